@@ -27,7 +27,6 @@ import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientRequest;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
-import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
 
 import org.familysearch.api.client.rt.FamilySearchPlatformJsonProvider;
 import org.familysearch.platform.Error;
@@ -208,12 +207,13 @@ public class FamilySearchStateFactory extends StateFactory {
     config.getSingletons().add( new FamilySearchPlatformJsonProvider(extensionClasses) );
     config.getSingletons().add( new GedcomxAtomJsonProvider(extensionClasses) );
     config.getSingletons().add( new JacksonJsonProvider() );
-    Client client = new Client(new URLConnectionClientHandler(), config);
+    Client client = new Client(createClientHandler(), config);
     //how to add an experiment:
     //client.addFilter(new ExperimentsJerseyClientFilter("experiment-name", "experiment-name"));
     if (Boolean.valueOf(System.getProperty(ENABLE_JERSEY_LOGGING_ENV_NAME))) {     // handles null
       client.addFilter(new com.sun.jersey.api.client.filter.LoggingFilter());
     }
+    addFilters(client);
     return client;
   }
 
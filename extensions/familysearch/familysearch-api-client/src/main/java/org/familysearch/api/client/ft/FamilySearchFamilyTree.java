@@ -18,9 +18,23 @@ package org.familysearch.api.client.ft;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.MultivaluedMap;
 
@@ -66,6 +80,7 @@ public class FamilySearchFamilyTree extends FamilySearchCollectionState {
 
   public static final String URI = "https://api.familysearch.org/platform/collections/tree";
   public static final String SANDBOX_URI = "https://api-integ.familysearch.org/platform/collections/tree";
+  public static final int DEFAULT_BULK_READ_CONCURRENCY = 8;
 
   public FamilySearchFamilyTree() {
     this(false);
@@ -257,6 +272,181 @@ public class FamilySearchFamilyTree extends FamilySearchCollectionState {
     return ((FamilyTreeStateFactory)this.stateFactory).newPersonState(request, invoke(request, options), this.accessToken);
   }
 
+  /**
+   * Read the persons with the given ids, one request per person, at most {@link #DEFAULT_BULK_READ_CONCURRENCY} at a
+   * time. The requests are made on the executor for
+   * {@link org.gedcomx.rs.client.StateFactory#getAsyncExecutor() async transitions}.
+   *
+   * @param ids The ids of the persons to read.
+   * @param options The options to apply to each request.
+   * @return The results, in the order of the ids.
+   * @see #readPersonsById(Collection, Executor, int, StateTransitionOption...)
+   */
+  public Stream<PersonReadResult> readPersonsById(Collection<String> ids, StateTransitionOption... options) {
+    return readPersonsById(ids, getAsyncExecutor(), DEFAULT_BULK_READ_CONCURRENCY, options);
+  }
+
+  /**
+   * Read the persons with the given ids, one request per person, with at most {@code maxConcurrency} requests in
+   * flight on the given executor. The stream is lazy: requests are made as the stream is consumed, a few ids ahead of
+   * the result being read, and closing the stream cancels the requests that haven't completed. A person that can't be
+   * read doesn't fail the stream; its result carries the error instead.
+   *
+   * <p>To read the persons as a single {@link FamilyTreePersonsState} with one request, see
+   * {@link #readPersons(Set, StateTransitionOption...)}.</p>
+   *
+   * @param ids The ids of the persons to read.
+   * @param executor The executor on which to make the requests, or null to make them one at a time on the calling thread.
+   * @param maxConcurrency The maximum number of requests in flight.
+   * @param options The options to apply to each request.
+   * @return The results, in the order of the ids.
+   */
+  public Stream<PersonReadResult> readPersonsById(Collection<String> ids, Executor executor, int maxConcurrency, StateTransitionOption... options) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be at least 1.");
+    }
+
+    Link link = getLink(Rel.PERSON);
+    if (link == null || link.getTemplate() == null) {
+      throw new GedcomxApplicationException(String.format("FamilySearch Family Tree at %s didn't provide a 'person' link.", getUri()));
+    }
+
+    PersonReads reads = new PersonReads(ids.iterator(), executor, executor == null ? 1 : maxConcurrency, options);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reads, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(reads::cancel);
+  }
+
+  /**
+   * The result of reading a single person with {@link #readPersonsById(Collection, StateTransitionOption...)}.
+   */
+  public static class PersonReadResult {
+
+    private final String id;
+    private final FamilyTreePersonState state;
+    private final RuntimeException error;
+
+    public PersonReadResult(String id, FamilyTreePersonState state, RuntimeException error) {
+      this.id = id;
+      this.state = state;
+      this.error = error;
+    }
+
+    /**
+     * @return The id of the person.
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return The person state, or null if the request couldn't be made. The state may still hold an error response.
+     */
+    public FamilyTreePersonState getState() {
+      return state;
+    }
+
+    /**
+     * @return The error that kept the request from completing, or null if the server responded.
+     */
+    public RuntimeException getError() {
+      return error;
+    }
+
+    /**
+     * @return Whether the person was read successfully.
+     */
+    public boolean isSuccessful() {
+      return this.error == null && this.state != null && !this.state.hasError();
+    }
+  }
+
+  /**
+   * Keeps up to {@code maxConcurrency} reads in flight ahead of the consumer and hands the results back in order.
+   */
+  private class PersonReads implements Iterator<PersonReadResult> {
+
+    private final Iterator<String> ids;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final StateTransitionOption[] options;
+    private final Deque<FutureTask<PersonReadResult>> inFlight = new ArrayDeque<FutureTask<PersonReadResult>>();
+
+    private PersonReads(Iterator<String> ids, Executor executor, int maxConcurrency, StateTransitionOption[] options) {
+      this.ids = ids;
+      this.executor = executor;
+      this.maxConcurrency = maxConcurrency;
+      this.options = options;
+    }
+
+    private void fill() {
+      while (this.inFlight.size() < this.maxConcurrency && this.ids.hasNext()) {
+        final String id = this.ids.next();
+        FutureTask<PersonReadResult> read = new FutureTask<PersonReadResult>(new Callable<PersonReadResult>() {
+          @Override
+          public PersonReadResult call() {
+            try {
+              return new PersonReadResult(id, readPersonById(id, options), null);
+            }
+            catch (RuntimeException e) {
+              return new PersonReadResult(id, null, e);
+            }
+          }
+        });
+        this.inFlight.add(read);
+        if (this.executor != null) {
+          try {
+            this.executor.execute(read);
+          }
+          catch (RejectedExecutionException e) {
+            read.run();
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      fill();
+      return !this.inFlight.isEmpty();
+    }
+
+    @Override
+    public PersonReadResult next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      FutureTask<PersonReadResult> read = this.inFlight.poll();
+      if (this.executor == null) {
+        read.run();
+      }
+
+      try {
+        return read.get();
+      }
+      catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new GedcomxApplicationException(e);
+      }
+      catch (ExecutionException e) {
+        //the read itself catches everything it can; this is just in case.
+        throw new GedcomxApplicationException(e.getCause());
+      }
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void cancel() {
+      FutureTask<PersonReadResult> read;
+      while ((read = this.inFlight.poll()) != null) {
+        read.cancel(true);
+      }
+    }
+  }
+
   public PreferredRelationshipState readPreferredSpouseRelationship(UserState user, FamilyTreePersonState person, StateTransitionOption... options) {
     return readPreferredRelationship(Rel.PREFERRED_SPOUSE_RELATIONSHIP, user.getUser().getTreeUserId(), person.getPerson().getId(), options);
   }
@@ -0,0 +1,161 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.familysearch.api.client.ft;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.familysearch.platform.FamilySearchPlatform;
+import org.gedcomx.rt.GedcomxConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ReadPersonsByIdTest {
+
+  private HttpServer server;
+  private ExecutorService serverThreads;
+  private String base;
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger peak = new AtomicInteger();
+  private final AtomicInteger served = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/platform/collections/tree", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String collection = "{\"collections\":[{\"id\":\"FSFT\",\"links\":{\"person\":{\"template\":\"" + base + "/platform/tree/persons/{pid}\"}}}]}";
+        respond(exchange, 200, GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE, collection);
+      }
+    });
+    this.server.createContext("/platform/tree/persons/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring("/platform/tree/persons/".length());
+        int now = active.incrementAndGet();
+        peak.accumulateAndGet(now, Math::max);
+        served.incrementAndGet();
+        try {
+          //hold each request long enough for the others to overlap with it.
+          Thread.sleep(50);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        active.decrementAndGet();
+        if (id.startsWith("missing")) {
+          respond(exchange, 404, null, null);
+        }
+        else {
+          respond(exchange, 200, FamilySearchPlatform.JSON_MEDIA_TYPE, "{\"persons\":[{\"id\":\"" + id + "\"}]}");
+        }
+      }
+    });
+    this.serverThreads = Executors.newCachedThreadPool();
+    this.server.setExecutor(this.serverThreads);
+    this.server.start();
+    this.base = "http://localhost:" + this.server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop(0);
+    this.serverThreads.shutdownNow();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+    if (body == null) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+
+    byte[] bytes = body.getBytes("UTF-8");
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+  private FamilySearchFamilyTree tree() {
+    return new FamilySearchFamilyTree(URI.create(this.base + "/platform/collections/tree")).ifSuccessful();
+  }
+
+  @Test
+  public void testResultsInOrderWithBoundedConcurrency() {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (Stream<FamilySearchFamilyTree.PersonReadResult> results = tree().readPersonsById(Arrays.asList("P1", "P2", "missing", "P4", "P5", "P6", "P7", "P8"), executor, 3)) {
+      List<FamilySearchFamilyTree.PersonReadResult> read = results.collect(Collectors.toList());
+      assertEquals(Arrays.asList("P1", "P2", "missing", "P4", "P5", "P6", "P7", "P8"), read.stream().map(FamilySearchFamilyTree.PersonReadResult::getId).collect(Collectors.toList()));
+      for (FamilySearchFamilyTree.PersonReadResult result : read) {
+        if (result.getId().equals("missing")) {
+          assertFalse(result.isSuccessful());
+          assertNull(result.getError());
+          assertEquals(404, result.getState().getResponse().getStatus());
+        }
+        else {
+          assertTrue(result.isSuccessful());
+          assertEquals(result.getId(), result.getState().getPerson().getId());
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    assertEquals(8, this.served.get());
+    assertTrue("requests weren't made concurrently", this.peak.get() > 1);
+    assertTrue("more than 3 requests were in flight", this.peak.get() <= 3);
+  }
+
+  @Test
+  public void testDefaultExecutor() {
+    //the tree's state factory has no executor.
+    try (Stream<FamilySearchFamilyTree.PersonReadResult> results = tree().readPersonsById(Arrays.asList("P1", "P2", "P3", "P4"))) {
+      assertEquals(4, results.filter(FamilySearchFamilyTree.PersonReadResult::isSuccessful).count());
+    }
+    assertTrue("requests weren't made concurrently", this.peak.get() > 1);
+    assertTrue(this.peak.get() <= FamilySearchFamilyTree.DEFAULT_BULK_READ_CONCURRENCY);
+  }
+
+  @Test
+  public void testClosingCancelsRemainingReads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (Stream<FamilySearchFamilyTree.PersonReadResult> results = tree().readPersonsById(Arrays.asList("P1", "P2", "P3", "P4", "P5", "P6", "P7", "P8"), executor, 2)) {
+      assertEquals("P1", results.iterator().next().getId());
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertTrue(this.served.get() < 8);
+  }
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlSeeAlso;
@@ -419,74 +420,29 @@ public class FamilySearchPlatform extends Gedcomx {
   }
 
   @Override
-  public void embed(Gedcomx gedcomx) {
-    super.embed(gedcomx);
-
-    if (gedcomx instanceof FamilySearchPlatform) {
-      List<ChildAndParentsRelationship> relationships = ((FamilySearchPlatform) gedcomx).getChildAndParentsRelationships();
-      if (relationships != null) {
-        for (ChildAndParentsRelationship relationship : relationships) {
-          boolean found = false;
-          if (relationship.getId() != null) {
-            if (getChildAndParentsRelationships() != null) {
-              for (ChildAndParentsRelationship target : getChildAndParentsRelationships()) {
-                if (relationship.getId().equals(target.getId())) {
-                  target.embed(relationship);
-                  found = true;
-                  break;
-                }
-              }
-            }
-          }
+  protected Embedder newEmbedder() {
+    return new PlatformEmbedder();
+  }
 
-          if (!found) {
-            addChildAndParentsRelationship(relationship);
-          }
-        }
-      }
+  /**
+   * Embeds documents into this one, also merging their child-and-parents relationships, discussions and vocabulary
+   * concepts by id.
+   */
+  protected class PlatformEmbedder extends Embedder {
 
-      List<Discussion> discussions = ((FamilySearchPlatform) gedcomx).getDiscussions();
-      if (discussions != null) {
-        for (Discussion discussion : discussions) {
-          boolean found = false;
-          if (discussion.getId() != null) {
-            if (getDiscussions() != null) {
-              for (Discussion target : getDiscussions()) {
-                if (discussion.getId().equals(target.getId())) {
-                  target.embed(discussion);
-                  found = true;
-                  break;
-                }
-              }
-            }
-          }
+    private final IdMerger<ChildAndParentsRelationship> childAndParentsRelationships = new IdMerger<ChildAndParentsRelationship>(getChildAndParentsRelationships(), FamilySearchPlatform.this::addChildAndParentsRelationship, (target, relationship) -> target.embed(relationship));
+    private final IdMerger<Discussion> discussions = new IdMerger<Discussion>(getDiscussions(), FamilySearchPlatform.this::addDiscussion, (target, discussion) -> target.embed(discussion));
+    private final IdMerger<VocabConcept> vocabConcepts = new IdMerger<VocabConcept>(getVocabConcepts(), FamilySearchPlatform.this::addVocabConcept, (target, vocabConcept) -> target.embed(vocabConcept));
 
-          if (!found) {
-            addDiscussion(discussion);
-          }
-        }
-      }
-    }
-
-    List<VocabConcept> localVocabConcepts = ((FamilySearchPlatform) gedcomx).getVocabConcepts();
-    if (localVocabConcepts != null) {
-      for (VocabConcept vocabConcept : localVocabConcepts) {
-        boolean found = false;
-        if (vocabConcept.getId() != null) {
-          if (getVocabConcepts() != null) {
-            for (VocabConcept target : getVocabConcepts()) {
-              if (vocabConcept.getId().equals(target.getId())) {
-                target.embed(vocabConcept);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
+    @Override
+    protected void embed(Gedcomx gedcomx) {
+      super.embed(gedcomx);
 
-        if (!found) {
-          addVocabConcept(vocabConcept);
-        }
+      if (gedcomx instanceof FamilySearchPlatform) {
+        FamilySearchPlatform platform = (FamilySearchPlatform) gedcomx;
+        this.childAndParentsRelationships.merge(platform.getChildAndParentsRelationships());
+        this.discussions.merge(platform.getDiscussions());
+        this.vocabConcepts.merge(platform.getVocabConcepts());
       }
     }
   }
@@ -565,22 +521,18 @@ public class FamilySearchPlatform extends Gedcomx {
 
   @Override
   public FamilySearchPlatform fixLocalReferences() {
-    List<Person> locals = getPersons() == null ? Collections.emptyList() : getPersons();
     List<ChildAndParentsRelationship> childAndParentsRelationships = getChildAndParentsRelationships() != null ? getChildAndParentsRelationships() : Collections.emptyList();
-    List<Ordinance> ordinances = getOrdinances(this);
-    List<SourceDescription> sds = getSourceDescriptions() == null ? Collections.emptyList() : getSourceDescriptions();
-
-    for (Person local : locals) {
-      String localId = local.getId();
-      if (localId != null) {
-        for (ChildAndParentsRelationship capRelationship : childAndParentsRelationships) {
-          fixId(capRelationship.getParent1(), localId);
-          fixId(capRelationship.getParent2(), localId);
-          fixId(capRelationship.getChild(), localId);
-          fixupSourceReferences(sds, capRelationship);
-        }
-        fixupPersonReferencesInOrdinances(ordinances, localId);
+    Set<String> localIds = localIds(getPersons());
+    Set<String> sdids = localIds(getSourceDescriptions());
+
+    if (!localIds.isEmpty()) {
+      for (ChildAndParentsRelationship capRelationship : childAndParentsRelationships) {
+        fixId(capRelationship.getParent1(), localIds);
+        fixId(capRelationship.getParent2(), localIds);
+        fixId(capRelationship.getChild(), localIds);
+        fixupSourceReferences(sdids, capRelationship);
       }
+      fixupPersonReferencesInOrdinances(getOrdinances(this), localIds);
     }
 
     return (FamilySearchPlatform) super.fixLocalReferences();
@@ -606,6 +558,16 @@ public class FamilySearchPlatform extends Gedcomx {
     return rtn;
   }
 
+  protected static void fixupPersonReferencesInOrdinances(List<Ordinance> ordinances, Set<String> personIds) {
+    for (Ordinance ordinance : ordinances) {
+      if (ordinance.getParticipants() != null) {
+        for (OrdinanceParticipant participant: ordinance.getParticipants()) {
+          fixId(participant.getParticipant(), personIds);
+        }
+      }
+    }
+  }
+
   protected static void fixupPersonReferencesInOrdinances(List<Ordinance> ordinances, String personId) {
     for (Ordinance ordinance : ordinances) {
       if (ordinance.getParticipants() != null) {
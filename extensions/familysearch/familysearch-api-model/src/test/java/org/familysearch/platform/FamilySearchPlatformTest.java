@@ -2,8 +2,11 @@ package org.familysearch.platform;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.familysearch.platform.ct.ChildAndParentsRelationship;
+import org.familysearch.platform.discussions.Comment;
+import org.familysearch.platform.discussions.Discussion;
 import org.familysearch.platform.records.AlternateDate;
 import org.familysearch.platform.records.AlternatePlaceReference;
+import org.familysearch.platform.vocab.VocabConcept;
 import org.gedcomx.Gedcomx;
 import org.gedcomx.common.ResourceReference;
 import org.gedcomx.common.URI;
@@ -13,6 +16,8 @@ import org.gedcomx.types.FactType;
 import org.gedcomx.types.RelationshipType;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -101,6 +106,58 @@ public class FamilySearchPlatformTest {
     assertNull(g.findCoupleRelationship(fam2));
   }
 
+  @Test
+  public void testEmbedAll() {
+    // embedding merges into the elements of the first page, so each document gets its own copies.
+    FamilySearchPlatform embedded = new FamilySearchPlatform();
+    embedded.embed(makePage(1));
+    embedded.embed(makePage(2));
+
+    FamilySearchPlatform embeddedAll = new FamilySearchPlatform();
+    embeddedAll.embedAll(Arrays.asList(makePage(1), makePage(2)));
+
+    for (FamilySearchPlatform g : new FamilySearchPlatform[] {embedded, embeddedAll}) {
+      assertEquals(2, g.getPersons().size());
+      assertEquals(2, g.getChildAndParentsRelationships().size());
+      ChildAndParentsRelationship shared = g.getChildAndParentsRelationships().get(0);
+      assertEquals("cap0", shared.getId());
+      assertEquals(2, shared.getParent1Facts().size());
+      assertEquals("cap2", g.getChildAndParentsRelationships().get(1).getId());
+      assertEquals(2, g.getDiscussions().size());
+      assertEquals(2, g.getDiscussions().get(0).getComments().size());
+      assertEquals(2, g.getVocabConcepts().size());
+    }
+  }
+
+  private static FamilySearchPlatform makePage(int page) {
+    // each page has the shared elements with id 0, and ones of its own.
+    FamilySearchPlatform doc = new FamilySearchPlatform();
+    doc.addPerson(new Person().id("p" + page));
+    ChildAndParentsRelationship relationship = new ChildAndParentsRelationship();
+    relationship.setId("cap0");
+    relationship.addParent1Fact(new Fact(FactType.BiologicalParent, null));
+    doc.addChildAndParentsRelationship(relationship);
+    Discussion discussion = new Discussion();
+    discussion.setId("d0");
+    Comment comment = new Comment();
+    comment.setId("c" + page);
+    discussion.addComment(comment);
+    doc.addDiscussion(discussion);
+    VocabConcept vocabConcept = new VocabConcept();
+    vocabConcept.setId("v" + page);
+    doc.addVocabConcept(vocabConcept);
+
+    if (page > 1) {
+      relationship = new ChildAndParentsRelationship();
+      relationship.setId("cap" + page);
+      doc.addChildAndParentsRelationship(relationship);
+      discussion = new Discussion();
+      discussion.setId("d" + page);
+      doc.addDiscussion(discussion);
+    }
+    return doc;
+  }
+
   private FamilySearchPlatform makeDoc() {
     FamilySearchPlatform g = new FamilySearchPlatform();
     g.addPerson(makePerson());
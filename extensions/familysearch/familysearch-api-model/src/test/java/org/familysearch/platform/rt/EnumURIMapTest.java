@@ -5,7 +5,10 @@ import org.gedcomx.rt.EnumURIMap;
 import org.gedcomx.rt.GedcomxConstants;
 import org.gedcomx.types.ResourceType;
 import org.junit.Assert;
-import org.junit.jupiter.api.Test;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
 
 public class EnumURIMapTest {
 
@@ -19,4 +22,55 @@ public class EnumURIMapTest {
 
 
   }
+
+  @Test
+  public void testLookUpRelativeAndUnknownURIs() {
+    EnumURIMap<ResourceType> uriMap = new EnumURIMap<>(ResourceType.class, GedcomxConstants.GEDCOMX_TYPES_NAMESPACE);
+    for (int i = 0; i < 2; i++) {
+      // the second time around, the answers come from the cache.
+      Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(URI.create("Record")));
+      Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(URI.create("Record#fragment")));
+      Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(URI.create("http://example.org/Unknown")));
+    }
+
+    uriMap.put(ResourceType.Record, "http://example.org/Record");
+    Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(URI.create("http://example.org/Record")));
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(URI.create("Record")));
+  }
+
+  @Test
+  public void testChangesThroughViews() {
+    EnumURIMap<ResourceType> uriMap = new EnumURIMap<>(ResourceType.class, GedcomxConstants.GEDCOMX_TYPES_NAMESPACE);
+    URI record = ResourceType.Record.toQNameURI();
+    Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(record));
+    Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(URI.create("Record")));
+
+    for (Map.Entry<ResourceType, String> entry : uriMap.entrySet()) {
+      if (entry.getKey() == ResourceType.Record) {
+        entry.setValue("http://example.org/Record");
+      }
+    }
+    Assert.assertEquals("http://example.org/Record", uriMap.get(ResourceType.Record));
+    Assert.assertEquals(ResourceType.Record, uriMap.fromURIValue(URI.create("http://example.org/Record")));
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(record));
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(URI.create("Record")));
+
+    Assert.assertTrue(uriMap.values().remove("http://example.org/Record"));
+    Assert.assertFalse(uriMap.containsKey(ResourceType.Record));
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(URI.create("http://example.org/Record")));
+
+    URI collection = ResourceType.Collection.toQNameURI();
+    Assert.assertEquals(ResourceType.Collection, uriMap.fromURIValue(collection));
+    Assert.assertTrue(uriMap.keySet().remove(ResourceType.Collection));
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(collection));
+
+    URI person = ResourceType.Person.toQNameURI();
+    Assert.assertEquals(ResourceType.Person, uriMap.fromURIValue(person));
+    for (Iterator<Map.Entry<ResourceType, String>> entries = uriMap.entrySet().iterator(); entries.hasNext(); ) {
+      if (entries.next().getKey() == ResourceType.Person) {
+        entries.remove();
+      }
+    }
+    Assert.assertEquals(ResourceType.OTHER, uriMap.fromURIValue(person));
+  }
 }
@@ -18,6 +18,7 @@ package org.gedcomx.atom;
 import com.webcohesion.enunciate.metadata.Facet;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.gedcomx.common.HasTransientProperties;
+import org.gedcomx.common.TransientPropertyMap;
 import org.gedcomx.rt.GedcomxConstants;
 import org.gedcomx.rt.SupportsExtensionElements;
 
@@ -34,7 +35,7 @@ import java.util.*;
 public abstract class ExtensibleElement extends CommonAttributes implements SupportsExtensionElements, HasTransientProperties {
 
   private List<Object> extensionElements;
-  protected final Map<String, Object> transientProperties = new TreeMap<String, Object>();
+  protected Map<String, Object> transientProperties;
 
   /**
    * Custom extension elements.
@@ -113,7 +114,7 @@ public abstract class ExtensibleElement extends CommonAttributes implements Supp
   @XmlTransient
   @Override
   public Map<String, Object> getTransientProperties() {
-    return Collections.unmodifiableMap(this.transientProperties);
+    return this.transientProperties == null ? Collections.<String, Object>emptyMap() : Collections.unmodifiableMap(this.transientProperties);
   }
 
   /**
@@ -123,7 +124,7 @@ public abstract class ExtensibleElement extends CommonAttributes implements Supp
    * @return The property.
    */
   public Object getTransientProperty(String name) {
-    return this.transientProperties.get(name);
+    return this.transientProperties == null ? null : this.transientProperties.get(name);
   }
 
   /**
@@ -133,6 +134,9 @@ public abstract class ExtensibleElement extends CommonAttributes implements Supp
    * @param value the property value.
    */
   public void setTransientProperty(String name, Object value) {
+    if (this.transientProperties == null) {
+      this.transientProperties = new TransientPropertyMap();
+    }
     this.transientProperties.put(name, value);
   }
 }
@@ -0,0 +1,229 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.date;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of parsed formal dates. Dates have no setters, so one parsed instance can be shared by
+ * every caller that parses the same string. Strings that fail to parse are not cached, and neither are strings with a
+ * time but no time zone: those take the local offset at the time they are parsed, which a shared instance would keep.
+ *
+ * <p>The cache is split into segments that are locked independently, so the size bound and the eviction order are
+ * kept per segment rather than exactly across the whole cache.</p>
+ *
+ * @see GedcomxDateUtil#setParseCache(GedcomxDateCache)
+ */
+public class GedcomxDateCache {
+
+  /**
+   * Which date to evict when the cache is full.
+   */
+  public enum Eviction {
+
+    /**
+     * Evict the date that was looked up least recently.
+     */
+    LEAST_RECENTLY_USED,
+
+    /**
+     * Evict the date that was added first, regardless of how often it is looked up. Lookups don't reorder the
+     * cache, so they are cheaper than with LEAST_RECENTLY_USED.
+     */
+    FIRST_IN_FIRST_OUT
+  }
+
+  private static final int SEGMENTS = 16;
+
+  private final int maximumSize;
+  private final Eviction eviction;
+  private final Segment[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * A cache of up to maximumSize dates, evicting the least recently used.
+   * @param maximumSize The maximum number of dates to keep
+   */
+  public GedcomxDateCache(int maximumSize) {
+    this(maximumSize, Eviction.LEAST_RECENTLY_USED);
+  }
+
+  /**
+   * A cache of up to maximumSize dates.
+   * @param maximumSize The maximum number of dates to keep
+   * @param eviction Which date to evict when the cache is full
+   */
+  public GedcomxDateCache(int maximumSize, Eviction eviction) {
+    if(maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    if(eviction == null) {
+      throw new NullPointerException("eviction");
+    }
+
+    this.maximumSize = maximumSize;
+    this.eviction = eviction;
+    int segmentCount = Math.max(1, Math.min(SEGMENTS, maximumSize / SEGMENTS));
+    this.segments = new Segment[segmentCount];
+    for(int i = 0; i < segmentCount; i++) {
+      // spread the remainder so the segment sizes add up to maximumSize
+      int segmentSize = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+      this.segments[i] = new Segment(segmentSize, eviction == Eviction.LEAST_RECENTLY_USED);
+    }
+  }
+
+  /**
+   * Parse a formal date string, returning the shared instance if the string has been parsed before.
+   * @param date The formal date string
+   * @return The date
+   * @see GedcomxDateUtil#parse(String)
+   */
+  public GedcomxDate parse(String date) {
+    if(date == null) {
+      return GedcomxDateUtil.parseUncached(null);
+    }
+
+    int hash = date.hashCode();
+    Segment segment = this.segments[((hash ^ (hash >>> 16)) & 0x7FFFFFFF) % this.segments.length];
+    GedcomxDate parsed;
+    synchronized (segment) {
+      parsed = segment.get(date);
+    }
+    if(parsed != null) {
+      this.hits.increment();
+      return parsed;
+    }
+
+    this.misses.increment();
+    parsed = GedcomxDateUtil.parseUncached(date);
+    if(hasLocalTime(date)) {
+      return parsed;
+    }
+    synchronized (segment) {
+      GedcomxDate existing = segment.putIfAbsent(date, parsed);
+      if(existing != null) {
+        // another thread parsed the same string first; share its instance
+        parsed = existing;
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * Whether any date in the string has a time without a time zone, e.g. "+1900-01-01T10:00". Durations are skipped;
+   * their time designator isn't a time of day.
+   * @param date The formal date string
+   * @return Whether the string has a local time
+   */
+  static boolean hasLocalTime(String date) {
+    for(String part : date.split("/")) {
+      if(part.startsWith("A")) {
+        part = part.substring(1);
+      }
+      int time = part.indexOf('T');
+      if(time < 0 || part.startsWith("P") || part.startsWith("R")) {
+        continue;
+      }
+      String zone = part.substring(time + 1);
+      if(zone.indexOf('Z') < 0 && zone.indexOf('+') < 0 && zone.indexOf('-') < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return The maximum number of dates this cache keeps.
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * @return Which date this cache evicts when it is full.
+   */
+  public Eviction getEviction() {
+    return eviction;
+  }
+
+  /**
+   * @return The number of parses answered from the cache.
+   */
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * @return The number of parses that had to parse the string.
+   */
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * @return The number of dates evicted to make room for others.
+   */
+  public long getEvictionCount() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * @return The number of dates in the cache.
+   */
+  public int size() {
+    int size = 0;
+    for(Segment segment : this.segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Remove every date from the cache. The counters are not reset.
+   */
+  public void clear() {
+    for(Segment segment : this.segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  private class Segment extends LinkedHashMap<String, GedcomxDate> {
+
+    private final int maximumSize;
+
+    Segment(int maximumSize, boolean accessOrder) {
+      super(16, 0.75f, accessOrder);
+      this.maximumSize = maximumSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, GedcomxDate> eldest) {
+      if(size() > this.maximumSize) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -15,6 +15,13 @@
  */
 package org.gedcomx.date;
 
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
 /**
  * A Recurring Date
  * @author John Clark.
@@ -119,10 +126,30 @@ public class GedcomxDateRecurring extends GedcomxDate {
    * @return The date of the nth instance
    */
   public GedcomxDateSimple getNth(Integer count) {
+    return GedcomxDateUtil.addDuration(range.getStart(), range.getDuration(), count);
+  }
 
-    GedcomxDateDuration duration = GedcomxDateUtil.multiplyDuration(range.getDuration(), count);
+  /**
+   * Iterate the instances of this recurring date, starting with the start date and ending with the end date. A
+   * recurring date without a count continues until the year 9999. Each instance is packed the way
+   * {@link GedcomxDateSimple#toPackedLong()} packs it and is worked out directly from the start date, so iterating
+   * doesn't allocate.
+   * @return The packed instances
+   */
+  public PrimitiveIterator.OfLong iterator() {
+    return new OccurrenceIterator();
+  }
 
-    return GedcomxDateUtil.addDuration(range.getStart(), duration);
+  /**
+   * The instances of this recurring date, as returned by {@link #iterator()}.
+   * @return The packed instances
+   */
+  public LongStream occurrences() {
+    int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    Spliterator.OfLong spliterator = count != null
+      ? Spliterators.spliterator(iterator(), count.longValue() + 1, characteristics)
+      : Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+    return StreamSupport.longStream(spliterator, false);
   }
 
   /**
@@ -155,4 +182,36 @@ public class GedcomxDateRecurring extends GedcomxDate {
       return "R/"+range.toFormalString();
     }
   }
+
+  private class OccurrenceIterator implements PrimitiveIterator.OfLong {
+
+    private long n = 0;
+    private long next;
+    private boolean ready = false;
+
+    @Override
+    public boolean hasNext() {
+      if(!ready) {
+        if(n == 0) {
+          next = range.getStart().toPackedLong();
+        } else if(count != null && n > count) {
+          next = GedcomxDateSimple.OUT_OF_RANGE;
+        } else {
+          next = GedcomxDateUtil.plus(range.getStart(), range.getDuration(), n);
+        }
+        ready = true;
+      }
+      return next != GedcomxDateSimple.OUT_OF_RANGE;
+    }
+
+    @Override
+    public long nextLong() {
+      if(!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ready = false;
+      n++;
+      return next;
+    }
+  }
 }
@@ -15,8 +15,6 @@
  */
 package org.gedcomx.date;
 
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
 
 /**
@@ -25,14 +23,51 @@ import java.util.TimeZone;
  */
 public class GedcomxDateSimple extends GedcomxDate {
 
-  private Integer year = null;
-  private Integer month = null;
-  private Integer day = null;
-  private Integer hours = null;
-  private Integer minutes = null;
-  private Integer seconds = null;
-  private Integer tzHours = null;
-  private Integer tzMinutes = null;
+  // The components are packed into a single long, most significant first, so that packed values order the same way
+  // as their components. Every component except the year is stored with an offset so that 0 means "not specified".
+  private static final int YEAR_SHIFT = 42;
+  private static final int MONTH_SHIFT = 38;
+  private static final int DAY_SHIFT = 33;
+  private static final int HOURS_SHIFT = 28;
+  private static final int MINUTES_SHIFT = 22;
+  private static final int SECONDS_SHIFT = 16;
+  private static final int TZ_HOURS_SHIFT = 8;
+  private static final int TZ_MINUTES_SHIFT = 0;
+
+  private static final long YEAR_MASK = 0x7FFF;
+  private static final long MONTH_MASK = 0xF;
+  private static final long DAY_MASK = 0x1F;
+  private static final long HOURS_MASK = 0x1F;
+  private static final long MINUTES_MASK = 0x3F;
+  private static final long SECONDS_MASK = 0x3F;
+  private static final long TZ_HOURS_MASK = 0xFF;
+  private static final long TZ_MINUTES_MASK = 0xFF;
+
+  private static final int YEAR_BIAS = 10000;
+  private static final int TIME_BIAS = 1;
+  private static final int TZ_HOURS_BIAS = 100;
+  private static final int TZ_MINUTES_BIAS = 60;
+
+  private static final long TZ_BITS = (TZ_HOURS_MASK << TZ_HOURS_SHIFT) | (TZ_MINUTES_MASK << TZ_MINUTES_SHIFT);
+
+  // The components that are specified, as used by plus()
+  static final int MONTH_FIELD = 1;
+  static final int DAY_FIELD = 1 << 1;
+  static final int HOURS_FIELD = 1 << 2;
+  static final int MINUTES_FIELD = 1 << 3;
+  static final int SECONDS_FIELD = 1 << 4;
+
+  /**
+   * Returned by plus() when the result falls outside of the years -9999 through +9999.
+   */
+  static final long OUT_OF_RANGE = -1;
+
+  private static final long MIN_DAY_NUMBER = GedcomxDateUtil.toDayNumber(-9999, 1, 1);
+  private static final long MAX_DAY_NUMBER = GedcomxDateUtil.toDayNumber(9999, 12, 31);
+  private static final long MAX_DAYS = MAX_DAY_NUMBER - MIN_DAY_NUMBER + 1;
+  private static final long MAX_MONTHS = 12 * 20000;
+
+  private long packed;
 
   /**
    * Instantiate a new Simple date based off of a formal date string.
@@ -42,6 +77,61 @@ public class GedcomxDateSimple extends GedcomxDate {
     parseDate(date);
   }
 
+  private GedcomxDateSimple(long packed) {
+    this.packed = packed;
+  }
+
+  /**
+   * Instantiate a Simple date from a value previously returned by {@link #toPackedLong()}.
+   * @param packed The packed date
+   * @return The date
+   */
+  public static GedcomxDateSimple fromPackedLong(long packed) {
+    GedcomxDateSimple date = new GedcomxDateSimple(packed);
+    if(!date.isWellFormed()) {
+      throw new GedcomxDateException("Invalid Date: Malformed packed date");
+    }
+    return date;
+  }
+
+  /**
+   * Whether the packed components are ones the parser could have produced.
+   * @return True if they are
+   */
+  private boolean isWellFormed() {
+    int year = component(YEAR_SHIFT, YEAR_MASK);
+    if((this.packed >>> (YEAR_SHIFT + 15)) != 0 || year == 0 || year == YEAR_BIAS || year > YEAR_BIAS + 9999) {
+      return false;
+    }
+
+    int month = component(MONTH_SHIFT, MONTH_MASK);
+    int day = component(DAY_SHIFT, DAY_MASK);
+    if(month > 12 || (day != 0 && (month == 0 || day > GedcomxDateUtil.daysInMonth(month, year - YEAR_BIAS)))) {
+      return false;
+    }
+
+    int hours = component(HOURS_SHIFT, HOURS_MASK);
+    int minutes = component(MINUTES_SHIFT, MINUTES_MASK);
+    int seconds = component(SECONDS_SHIFT, SECONDS_MASK);
+    int tzHours = component(TZ_HOURS_SHIFT, TZ_HOURS_MASK);
+    int tzMinutes = component(TZ_MINUTES_SHIFT, TZ_MINUTES_MASK);
+    if(hours == 0) {
+      // no time, so no minutes, seconds or time zone either
+      return minutes == 0 && seconds == 0 && tzHours == 0 && tzMinutes == 0;
+    }
+    if(hours - TIME_BIAS > 24 || minutes - TIME_BIAS > 59 || seconds - TIME_BIAS > 59 || (minutes == 0 && seconds != 0)) {
+      return false;
+    }
+    if(hours - TIME_BIAS == 24 && (minutes > TIME_BIAS || seconds > TIME_BIAS)) {
+      return false;
+    }
+
+    // a time always has a time zone: tzHours of [+-]00 through 99, and tzMinutes of 00 through 99 (or down to -59
+    // when taken from the local time zone)
+    return tzHours >= TZ_HOURS_BIAS - 99 && tzHours <= TZ_HOURS_BIAS + 99
+      && tzMinutes >= TZ_MINUTES_BIAS - 59 && tzMinutes <= TZ_MINUTES_BIAS + 99;
+  }
+
   /**
    * Parse the date portion of the formal string
    * @param date The date string
@@ -55,7 +145,6 @@ public class GedcomxDateSimple extends GedcomxDate {
 
     int end = date.length();
     int offset = 0;
-    String num;
 
     // Must start with a + or -
     if(date.charAt(offset) != '+' && date.charAt(offset) != '-') {
@@ -63,27 +152,27 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = date.charAt(0) == '-' ? "-" : "";
+    int year = 0;
     for(int i=0;i<4;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Year");
-      }
-      num += date.charAt(offset++);
+      year = year * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Year");
+    }
+    if(date.charAt(0) == '-') {
+      year = -year;
     }
-
-    year = Integer.valueOf(num);
 
     if(year == 0) {
       throw new GedcomxDateException("Invalid Date: Year 0000 does not exist in Anno Domini (AD) system");
     }
 
+    this.packed = ((long) (year + YEAR_BIAS)) << YEAR_SHIFT;
+
     if(offset == end) {
       return;
     }
 
     // If there is time
     if(date.charAt(offset) == 'T') {
-      parseTime(date.substring(offset+1));
+      parseTime(date, offset+1);
       return;
     }
 
@@ -97,27 +186,24 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = "";
+    int month = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Month");
-      }
-      num += date.charAt(offset++);
+      month = month * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Month");
     }
 
-    month = Integer.valueOf(num);
-
     if(month < 1 || month > 12) {
       throw new GedcomxDateException("Invalid Date: Month must be between 1 and 12");
     }
 
+    this.packed |= ((long) month) << MONTH_SHIFT;
+
     if(offset == end) {
       return;
     }
 
     // If there is time
     if(date.charAt(offset) == 'T') {
-      parseTime(date.substring(offset+1));
+      parseTime(date, offset+1);
       return;
     }
 
@@ -131,16 +217,11 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = "";
+    int day = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Day");
-      }
-      num += date.charAt(offset++);
+      day = day * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Day");
     }
 
-    day = Integer.valueOf(num);
-
     if(day < 1) {
       throw new GedcomxDateException("Invalid Date: Day 0 does not exist");
     }
@@ -150,12 +231,14 @@ public class GedcomxDateSimple extends GedcomxDate {
       throw new GedcomxDateException("Invalid Date: There are only "+daysInMonth+" days in Month "+month+" year "+year);
     }
 
+    this.packed |= ((long) day) << DAY_SHIFT;
+
     if(offset == end) {
       return;
     }
 
     if(date.charAt(offset) == 'T') {
-      parseTime(date.substring(offset+1));
+      parseTime(date, offset+1);
     } else {
       throw new GedcomxDateException("Invalid Date: +YYYY-MM-DD must have T before time");
     }
@@ -164,38 +247,28 @@ public class GedcomxDateSimple extends GedcomxDate {
 
   /**
    * Parse the time portion of the formal string
-   * @param date The date string (minus the date)
+   * @param date The date string
+   * @param offset The index of the first character after the T
    */
-  private void parseTime(String date) {
+  private void parseTime(String date, int offset) {
 
-    int offset = 0;
     int end = date.length();
-    String num;
     boolean flag24 = false;
 
     // Always initialize the Timezone to the local offset.
     // It may be overridden if set
-    TimeZone tz = TimeZone.getDefault();
-    Calendar cal = GregorianCalendar.getInstance(tz);
-    int offsetInMillis = tz.getOffset(cal.getTimeInMillis());
-    tzHours = offsetInMillis / 3600000;
-    tzMinutes = (offsetInMillis / 60000) % 60;
+    this.packed |= localTimezone();
 
     // You must at least have hours
-    if(end < 2) {
+    if(end-offset < 2) {
       throw new GedcomxDateException("Invalid Date: Hours must be 2 digits");
     }
 
-    num = "";
+    int hours = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Hours");
-      }
-      num += date.charAt(offset++);
+      hours = hours * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Hours");
     }
 
-    hours = Integer.valueOf(num);
-
     if(hours > 24) {
       throw new GedcomxDateException("Invalid Date: Hours must be between 0 and 24");
     }
@@ -204,13 +277,15 @@ public class GedcomxDateSimple extends GedcomxDate {
       flag24 = true;
     }
 
+    this.packed |= ((long) (hours + TIME_BIAS)) << HOURS_SHIFT;
+
     if(offset == end) {
       return;
     }
 
     // If there is a timezone offset
     if(date.charAt(offset) == '+' || date.charAt(offset) == '-' || date.charAt(offset) == 'Z') {
-      parseTimezone(date.substring(offset)); // Don't remove the character when calling
+      parseTimezone(date, offset); // Don't skip the character when calling
       return;
     }
 
@@ -223,16 +298,11 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = "";
+    int minutes = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Minutes");
-      }
-      num += date.charAt(offset++);
+      minutes = minutes * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Minutes");
     }
 
-    minutes = Integer.valueOf(num);
-
     if(minutes > 59) {
       throw new GedcomxDateException("Invalid Date: Minutes must be between 0 and 59");
     }
@@ -241,13 +311,15 @@ public class GedcomxDateSimple extends GedcomxDate {
       throw new GedcomxDateException("Invalid Date: Hours of 24 requires 00 Minutes");
     }
 
+    this.packed |= ((long) (minutes + TIME_BIAS)) << MINUTES_SHIFT;
+
     if(offset == end) {
       return;
     }
 
     // If there is a timezone offset
     if(date.charAt(offset) == '+' || date.charAt(offset) == '-' || date.charAt(offset) == 'Z') {
-      parseTimezone(date.substring(offset)); // Don't remove the character when calling
+      parseTimezone(date, offset); // Don't skip the character when calling
       return;
     }
 
@@ -260,16 +332,11 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = "";
+    int seconds = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed Seconds");
-      }
-      num += date.charAt(offset++);
+      seconds = seconds * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed Seconds");
     }
 
-    seconds = Integer.valueOf(num);
-
     if(seconds > 59) {
       throw new GedcomxDateException("Invalid Date: Seconds must be between 0 and 59");
     }
@@ -278,28 +345,29 @@ public class GedcomxDateSimple extends GedcomxDate {
       throw new GedcomxDateException("Invalid Date: Hours of 24 requires 00 Seconds");
     }
 
+    this.packed |= ((long) (seconds + TIME_BIAS)) << SECONDS_SHIFT;
+
     if(offset == end) {
       return;
     } else {
-      parseTimezone(date.substring(offset)); // Don't remove the character when calling
+      parseTimezone(date, offset); // Don't skip the character when calling
     }
 
   }
 
   /**
    * Parse the timezone portion of the formal string
-   * @param date The date string (minus the date and time)
+   * @param date The date string
+   * @param offset The index of the timezone designator (Z, + or -)
    */
-  private void parseTimezone(String date) {
-    int offset = 0;
+  private void parseTimezone(String date, int offset) {
+    int start = offset;
     int end = date.length();
-    String num;
 
     // If Z we're done
     if(date.charAt(offset) == 'Z') {
-      if(end == 1) {
-        tzHours = 0;
-        tzMinutes = 0;
+      if(end-start == 1) {
+        setTimezone(0, 0);
         return;
       } else {
         throw new GedcomxDateException("Invalid Date: Malformed Timezone - No Characters allowed after Z");
@@ -316,17 +384,16 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = date.charAt(0) == '-' ? "-" : "";
+    int tzHours = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed tzHours");
-      }
-      num += date.charAt(offset++);
+      tzHours = tzHours * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed tzHours");
+    }
+    if(date.charAt(start) == '-') {
+      tzHours = -tzHours;
     }
 
-    tzHours = Integer.valueOf(num);
     // Set tzMinutes to clear out default local tz offset
-    tzMinutes = 0;
+    setTimezone(tzHours, 0);
 
     if(offset == end) {
       return;
@@ -341,15 +408,12 @@ public class GedcomxDateSimple extends GedcomxDate {
     }
 
     offset++;
-    num = "";
+    int tzMinutes = 0;
     for(int i=0;i<2;i++) {
-      if(!Character.isDigit(date.charAt(offset))) {
-        throw new GedcomxDateException("Invalid Date: Malformed tzMinutes");
-      }
-      num += date.charAt(offset++);
+      tzMinutes = tzMinutes * 10 + digit(date.charAt(offset++), "Invalid Date: Malformed tzMinutes");
     }
 
-    tzMinutes = Integer.valueOf(num);
+    setTimezone(tzHours, tzMinutes);
 
     if(offset == end) {
       return;
@@ -359,6 +423,37 @@ public class GedcomxDateSimple extends GedcomxDate {
 
   }
 
+  /**
+   * The value of a digit character.
+   * @param c The character
+   * @param message The message if the character isn't a digit
+   * @return The value
+   */
+  private static int digit(char c, String message) {
+    if(!Character.isDigit(c)) {
+      throw new GedcomxDateException(message);
+    }
+    return Character.digit(c, 10);
+  }
+
+  private void setTimezone(int tzHours, int tzMinutes) {
+    this.packed = (this.packed & ~TZ_BITS) | timezone(tzHours, tzMinutes);
+  }
+
+  private static long timezone(int tzHours, int tzMinutes) {
+    return ((long) (tzHours + TZ_HOURS_BIAS)) << TZ_HOURS_SHIFT
+      | ((long) (tzMinutes + TZ_MINUTES_BIAS)) << TZ_MINUTES_SHIFT;
+  }
+
+  private static long localTimezone() {
+    int offsetInMillis = TimeZone.getDefault().getOffset(System.currentTimeMillis());
+    return timezone(offsetInMillis / 3600000, (offsetInMillis / 60000) % 60);
+  }
+
+  private int component(int shift, long mask) {
+    return (int) ((this.packed >>> shift) & mask);
+  }
+
   /**
    * Get the Date Type
    * @return The type
@@ -383,41 +478,223 @@ public class GedcomxDateSimple extends GedcomxDate {
    */
   @Override
   public String toFormalString() {
-    StringBuilder simple = new StringBuilder();
+    StringBuilder simple = new StringBuilder(25);
 
-    simple.append(year >= 0 ? "+" : "-").append(String.format("%04d", Math.abs(year)));
+    int year = year();
+    simple.append(year >= 0 ? '+' : '-');
+    appendPadded(simple, Math.abs(year), 4);
 
-    if(month != null) {
-      simple.append("-").append(String.format("%02d", month));
+    int month = component(MONTH_SHIFT, MONTH_MASK);
+    if(month != 0) {
+      simple.append('-');
+      appendPadded(simple, month, 2);
     }
 
-    if(day != null) {
-      simple.append("-").append(String.format("%02d", day));
+    int day = component(DAY_SHIFT, DAY_MASK);
+    if(day != 0) {
+      simple.append('-');
+      appendPadded(simple, day, 2);
     }
 
-    if(hours != null) {
-      simple.append("T").append(String.format("%02d", hours));
+    int hours = component(HOURS_SHIFT, HOURS_MASK);
+    if(hours != 0) {
+      simple.append('T');
+      appendPadded(simple, hours - TIME_BIAS, 2);
 
-      if(minutes != null) {
-        simple.append(":").append(String.format("%02d", minutes));
+      int minutes = component(MINUTES_SHIFT, MINUTES_MASK);
+      if(minutes != 0) {
+        simple.append(':');
+        appendPadded(simple, minutes - TIME_BIAS, 2);
       }
 
-      if(seconds != null) {
-        simple.append(":").append(String.format("%02d", seconds));
+      int seconds = component(SECONDS_SHIFT, SECONDS_MASK);
+      if(seconds != 0) {
+        simple.append(':');
+        appendPadded(simple, seconds - TIME_BIAS, 2);
       }
 
       // If we have time we always have tz
+      int tzHours = component(TZ_HOURS_SHIFT, TZ_HOURS_MASK) - TZ_HOURS_BIAS;
+      int tzMinutes = component(TZ_MINUTES_SHIFT, TZ_MINUTES_MASK) - TZ_MINUTES_BIAS;
       if(tzHours == 0 && tzMinutes == 0) {
-        simple.append("Z");
+        simple.append('Z');
       } else {
-        simple.append(tzHours >= 0 ? "+" : "-").append(String.format("%02d", Math.abs(tzHours)));
-        simple.append(":").append(String.format("%02d", tzMinutes));
+        simple.append(tzHours >= 0 ? '+' : '-');
+        appendPadded(simple, Math.abs(tzHours), 2);
+        simple.append(':');
+        appendPadded(simple, tzMinutes, 2);
       }
     }
 
+    return simple.toString();
+  }
 
+  /**
+   * Append a number zero-padded to the given width, the way String.format("%0nd") does.
+   */
+  private static void appendPadded(StringBuilder builder, int value, int width) {
+    int digits = value < 0 ? 1 : 0;
+    for(int v = value; v != 0; v /= 10) {
+      digits++;
+    }
+    if(value < 0) {
+      builder.append('-');
+    }
+    for(int i = Math.max(digits, 1); i < width; i++) {
+      builder.append('0');
+    }
+    builder.append(Math.abs(value));
+  }
 
-    return simple.toString();
+  /**
+   * This date packed into a long. Packed dates order the same way as their components (year, month, day, hours,
+   * minutes, seconds, then time zone), with unspecified components ordering before specified ones.
+   * @return The packed date
+   * @see #fromPackedLong(long)
+   */
+  public long toPackedLong() {
+    return packed;
+  }
+
+  /**
+   * Get the year as a primitive
+   * @return The Year
+   */
+  int year() {
+    return component(YEAR_SHIFT, YEAR_MASK) - YEAR_BIAS;
+  }
+
+  /**
+   * Get the month as a primitive
+   * @return The Month, or 0 if not specified
+   */
+  int month() {
+    return component(MONTH_SHIFT, MONTH_MASK);
+  }
+
+  /**
+   * Get the day as a primitive
+   * @return The Day, or 0 if not specified
+   */
+  int day() {
+    return component(DAY_SHIFT, DAY_MASK);
+  }
+
+  /**
+   * The components that are specified, as a combination of MONTH_FIELD, DAY_FIELD, HOURS_FIELD, MINUTES_FIELD and
+   * SECONDS_FIELD.
+   * @return The specified components
+   */
+  int fields() {
+    int fields = 0;
+    if(month() != 0) {
+      fields |= MONTH_FIELD;
+    }
+    if(day() != 0) {
+      fields |= DAY_FIELD;
+    }
+    if(component(HOURS_SHIFT, HOURS_MASK) != 0) {
+      fields |= HOURS_FIELD;
+    }
+    if(component(MINUTES_SHIFT, MINUTES_MASK) != 0) {
+      fields |= MINUTES_FIELD;
+    }
+    if(component(SECONDS_SHIFT, SECONDS_MASK) != 0) {
+      fields |= SECONDS_FIELD;
+    }
+    return fields;
+  }
+
+  /**
+   * Add an amount of time to this date without building any intermediate dates. The result has every component that
+   * this date has plus the ones in durationFields, with missing months and days starting at 1 and missing time at 0.
+   * Days and time are added on the day-number timeline, carrying into the month and year, and then the years and
+   * months are added to the resulting month.
+   * @param durationFields The components the result must have
+   * @param years The years to add
+   * @param months The months to add
+   * @param days The days to add
+   * @param seconds The time to add, in seconds
+   * @return The packed result, or OUT_OF_RANGE
+   */
+  long plus(int durationFields, long years, long months, long days, long seconds) {
+    if(Math.abs(years) > MAX_MONTHS || Math.abs(months) > MAX_MONTHS || Math.abs(days) > MAX_DAYS || Math.abs(seconds) > MAX_DAYS * 86400) {
+      return OUT_OF_RANGE;
+    }
+
+    int fields = fields() | durationFields;
+    long year = year();
+    int month = Math.max(month(), 1);
+    int day = Math.max(day(), 1);
+    int hours = component(HOURS_SHIFT, HOURS_MASK);
+    int minutes = component(MINUTES_SHIFT, MINUTES_MASK);
+    int secs = component(SECONDS_SHIFT, SECONDS_MASK);
+
+    if((fields & DAY_FIELD) != 0) {
+      long secondOfDay = Math.max(hours - TIME_BIAS, 0) * 3600L
+        + Math.max(minutes - TIME_BIAS, 0) * 60L
+        + Math.max(secs - TIME_BIAS, 0)
+        + seconds;
+      long dayNumber = GedcomxDateUtil.toDayNumber(year, month, day) + days + Math.floorDiv(secondOfDay, 86400);
+      if(dayNumber < MIN_DAY_NUMBER || dayNumber > MAX_DAY_NUMBER) {
+        return OUT_OF_RANGE;
+      }
+
+      int date = GedcomxDateUtil.fromDayNumber(dayNumber);
+      year = date >> 9;
+      month = (date >> 5) & 0xF;
+      day = date & 0x1F;
+
+      secondOfDay = Math.floorMod(secondOfDay, 86400);
+      hours = (int) (secondOfDay / 3600) + TIME_BIAS;
+      minutes = (int) (secondOfDay / 60 % 60) + TIME_BIAS;
+      secs = (int) (secondOfDay % 60) + TIME_BIAS;
+    }
+
+    if((fields & MONTH_FIELD) != 0) {
+      long monthIndex = year * 12 + (month - 1) + years * 12 + months;
+      year = Math.floorDiv(monthIndex, 12);
+      month = (int) Math.floorMod(monthIndex, 12) + 1;
+    }
+    else {
+      year += years;
+    }
+
+    if(year < -9999 || year > 9999) {
+      return OUT_OF_RANGE;
+    }
+    if(year == 0) {
+      throw new GedcomxDateException("Invalid Date: Year 0000 does not exist in Anno Domini (AD) system");
+    }
+
+    long result = (year + YEAR_BIAS) << YEAR_SHIFT;
+    if((fields & MONTH_FIELD) != 0) {
+      result |= ((long) month) << MONTH_SHIFT;
+    }
+    if((fields & DAY_FIELD) != 0) {
+      int daysInMonth = GedcomxDateUtil.lengthOfMonth(month, (int) year);
+      if(day > daysInMonth) {
+        throw new GedcomxDateException("Invalid Date: There are only "+daysInMonth+" days in Month "+month+" year "+year);
+      }
+      result |= ((long) day) << DAY_SHIFT;
+    }
+    if((fields & HOURS_FIELD) != 0) {
+      result |= ((long) hours) << HOURS_SHIFT;
+      long tz = this.packed & TZ_BITS;
+      result |= tz != 0 ? tz : localTimezone();
+    }
+    if((fields & MINUTES_FIELD) != 0) {
+      result |= ((long) minutes) << MINUTES_SHIFT;
+    }
+    if((fields & SECONDS_FIELD) != 0) {
+      result |= ((long) secs) << SECONDS_SHIFT;
+    }
+    return result;
+  }
+
+  private Integer optional(int shift, long mask, int bias) {
+    int value = component(shift, mask);
+    return value == 0 ? null : Integer.valueOf(value - bias);
   }
 
   /**
@@ -425,7 +702,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Year
    */
   public Integer getYear() {
-    return year;
+    return year();
   }
 
   /**
@@ -433,7 +710,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Month
    */
   public Integer getMonth() {
-    return month;
+    return optional(MONTH_SHIFT, MONTH_MASK, 0);
   }
 
   /**
@@ -441,7 +718,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Day
    */
   public Integer getDay() {
-    return day;
+    return optional(DAY_SHIFT, DAY_MASK, 0);
   }
 
   /**
@@ -449,7 +726,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Hours
    */
   public Integer getHours() {
-    return hours;
+    return optional(HOURS_SHIFT, HOURS_MASK, TIME_BIAS);
   }
 
   /**
@@ -457,7 +734,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Minutes
    */
   public Integer getMinutes() {
-    return minutes;
+    return optional(MINUTES_SHIFT, MINUTES_MASK, TIME_BIAS);
   }
 
   /**
@@ -465,7 +742,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The seconds
    */
   public Integer getSeconds() {
-    return seconds;
+    return optional(SECONDS_SHIFT, SECONDS_MASK, TIME_BIAS);
   }
 
   /**
@@ -473,7 +750,7 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Timezone Hours
    */
   public Integer getTzHours() {
-    return tzHours;
+    return optional(TZ_HOURS_SHIFT, TZ_HOURS_MASK, TZ_HOURS_BIAS);
   }
 
   /**
@@ -481,6 +758,6 @@ public class GedcomxDateSimple extends GedcomxDate {
    * @return The Timezone Minutes
    */
   public Integer getTzMinutes() {
-    return tzMinutes;
+    return optional(TZ_MINUTES_SHIFT, TZ_MINUTES_MASK, TZ_MINUTES_BIAS);
   }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.date;
+
+/**
+ * Numeric sort keys for formal dates. A key holds the earliest and latest day a date could refer to, as epoch days
+ * (see {@link GedcomxDateUtil#toEpochDay(int, int, int)}), packed into a single long. Keys order by their earliest
+ * day and then by their latest day, so an array of keys can be sorted with {@link java.util.Arrays#sort(long[])},
+ * and comparing or testing keys for overlap doesn't allocate.
+ *
+ * <p>A date is resolved to whole days; times and time zones are ignored. A year or a month without a day covers
+ * the whole year or month. An approximate date is widened by a number of years on each side. A range without a
+ * start or an end, or a recurring date without a count, is open on that side.</p>
+ */
+public final class GedcomxDateSortKey {
+
+  /**
+   * The earliest day of a key that has no start.
+   */
+  public static final long OPEN_START = Integer.MIN_VALUE;
+
+  /**
+   * The latest day of a key that has no end.
+   */
+  public static final long OPEN_END = Integer.MAX_VALUE;
+
+  /**
+   * The number of years an approximate date is widened by on each side, unless otherwise specified.
+   */
+  public static final int DEFAULT_APPROXIMATE_YEARS = 5;
+
+  private GedcomxDateSortKey() {
+  }
+
+  /**
+   * The sort key of a formal date string.
+   * @param date The formal date string
+   * @return The sort key
+   */
+  public static long of(String date) {
+    return of(GedcomxDateUtil.parse(date));
+  }
+
+  /**
+   * The sort key of a date, widening approximate dates by {@link #DEFAULT_APPROXIMATE_YEARS}.
+   * @param date The date
+   * @return The sort key
+   */
+  public static long of(GedcomxDate date) {
+    return of(date, DEFAULT_APPROXIMATE_YEARS);
+  }
+
+  /**
+   * The sort key of a date.
+   * @param date The date
+   * @param approximateYears The number of years to widen an approximate date by on each side
+   * @return The sort key
+   */
+  public static long of(GedcomxDate date, int approximateYears) {
+    if(date == null) {
+      throw new GedcomxDateException("Invalid Date");
+    }
+    if(approximateYears < 0) {
+      throw new GedcomxDateException("Invalid Approximation: Must not be negative");
+    }
+
+    switch(date.getType()) {
+      case SIMPLE: {
+        GedcomxDateSimple simple = (GedcomxDateSimple) date;
+        return pack(earliestDay(simple, 0), latestDay(simple, 0));
+      }
+      case APPROXIMATE: {
+        GedcomxDateSimple simple = ((GedcomxDateApproximate) date).getSimpleDate();
+        return pack(earliestDay(simple, approximateYears), latestDay(simple, approximateYears));
+      }
+      case RANGE: {
+        GedcomxDateRange range = (GedcomxDateRange) date;
+        int widen = range.isApproximate() ? approximateYears : 0;
+        long earliest = range.getStart() == null ? OPEN_START : earliestDay(range.getStart(), widen);
+        long latest = range.getEnd() == null ? OPEN_END : latestDay(range.getEnd(), widen);
+        return pack(earliest, latest);
+      }
+      case RECURRING: {
+        GedcomxDateRecurring recurring = (GedcomxDateRecurring) date;
+        long latest = recurring.getEnd() == null ? OPEN_END : latestDay(recurring.getEnd(), 0);
+        return pack(earliestDay(recurring.getStart(), 0), latest);
+      }
+      default:
+        throw new GedcomxDateException("Invalid Date: A duration has no position in time");
+    }
+  }
+
+  /**
+   * Pack earliest and latest epoch days into a sort key.
+   * @param earliest The earliest day, or {@link #OPEN_START}
+   * @param latest The latest day, or {@link #OPEN_END}
+   * @return The sort key
+   */
+  public static long pack(long earliest, long latest) {
+    if(earliest < OPEN_START || latest > OPEN_END || earliest > latest) {
+      throw new GedcomxDateException("Invalid Sort Key: Earliest must not be after latest");
+    }
+    // Flip the sign bit of the latest day so that it orders correctly as the unsigned low half.
+    return (earliest << 32) | ((latest ^ 0x80000000L) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * The earliest day of a sort key.
+   * @param key The sort key
+   * @return The earliest epoch day, or {@link #OPEN_START}
+   */
+  public static long earliest(long key) {
+    return key >> 32;
+  }
+
+  /**
+   * The latest day of a sort key.
+   * @param key The sort key
+   * @return The latest epoch day, or {@link #OPEN_END}
+   */
+  public static long latest(long key) {
+    return (int) (key ^ 0x80000000L);
+  }
+
+  /**
+   * Compare two sort keys, by earliest day and then by latest day.
+   * @param key1 The first key
+   * @param key2 The second key
+   * @return A negative number, zero or a positive number as the first key orders before, with or after the second
+   */
+  public static int compare(long key1, long key2) {
+    return Long.compare(key1, key2);
+  }
+
+  /**
+   * Whether or not the days covered by two sort keys overlap.
+   * @param key1 The first key
+   * @param key2 The second key
+   * @return True if there's a day covered by both keys
+   */
+  public static boolean overlaps(long key1, long key2) {
+    return earliest(key1) <= latest(key2) && earliest(key2) <= latest(key1);
+  }
+
+  /**
+   * Whether or not a sort key covers a day.
+   * @param key The sort key
+   * @param epochDay The epoch day
+   * @return True if the day is between the earliest and latest day of the key
+   */
+  public static boolean contains(long key, long epochDay) {
+    return earliest(key) <= epochDay && epochDay <= latest(key);
+  }
+
+  private static long earliestDay(GedcomxDateSimple date, int widenYears) {
+    int year = GedcomxDateUtil.addYears(date.year(), -widenYears);
+    int month = date.month() == 0 ? 1 : date.month();
+    int day = date.day() == 0 ? 1 : Math.min(date.day(), GedcomxDateUtil.lengthOfMonth(month, year));
+    return GedcomxDateUtil.toEpochDay(year, month, day);
+  }
+
+  private static long latestDay(GedcomxDateSimple date, int widenYears) {
+    int year = GedcomxDateUtil.addYears(date.year(), widenYears);
+    int month = date.month() == 0 ? 12 : date.month();
+    int daysInMonth = GedcomxDateUtil.lengthOfMonth(month, year);
+    int day = date.day() == 0 ? daysInMonth : Math.min(date.day(), daysInMonth);
+    return GedcomxDateUtil.toEpochDay(year, month, day);
+  }
+}
@@ -21,12 +21,43 @@ package org.gedcomx.date;
  */
 public class GedcomxDateUtil {
 
+  /**
+   * Days from 0001-01-01 to 1970-01-01.
+   */
+  private static final long DAYS_0001_TO_1970 = 719162;
+
+  private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+  private static volatile GedcomxDateCache parseCache;
+
   /**
    * Parse a String representation of a Formal GedcomX Date
    * @param date The GedcomX Date
    * @return A GedcomxDate
    */
   public static GedcomxDate parse(String date) {
+    GedcomxDateCache cache = parseCache;
+    return cache != null ? cache.parse(date) : parseUncached(date);
+  }
+
+  /**
+   * Share parsed dates through a cache. When a cache is set, {@link #parse(String)} returns the same instance for
+   * strings it has parsed before. There is no cache by default.
+   * @param cache The cache, or null to parse every string
+   */
+  public static void setParseCache(GedcomxDateCache cache) {
+    parseCache = cache;
+  }
+
+  /**
+   * The cache that parse() shares dates through.
+   * @return The cache, or null if there is none
+   */
+  public static GedcomxDateCache getParseCache() {
+    return parseCache;
+  }
+
+  static GedcomxDate parseUncached(String date) {
 
     if(date == null || date.equals("")) {
       throw new GedcomxDateException("Invalid Date");
@@ -145,102 +176,103 @@ public class GedcomxDateUtil {
    * @return a new simple date
    */
   public static GedcomxDateSimple addDuration(GedcomxDateSimple startDate, GedcomxDateDuration duration) {
+    return addDuration(startDate, duration, 1);
+  }
 
-    if(startDate == null) {
-      throw new GedcomxDateException("Invalid Start Date");
-    }
+  /**
+   * Add a duration to a simple date a number of times. This gives the same date as adding
+   * {@link #multiplyDuration(GedcomxDateDuration, int)}, but works it out directly from a day count instead of
+   * building the multiplied duration and stepping through the months.
+   * @param startDate The date to start from
+   * @param duration The duration to add
+   * @param multiplier The number of times to add the duration
+   * @return a new simple date
+   */
+  public static GedcomxDateSimple addDuration(GedcomxDateSimple startDate, GedcomxDateDuration duration, int multiplier) {
 
-    if(duration == null) {
-      throw new GedcomxDateException("Invalid Duration");
+    if(multiplier <= 0) {
+      throw new GedcomxDateException("Invalid Multiplier");
     }
 
-    Date end = new Date(startDate, false);
-    StringBuilder endString = new StringBuilder();
-
-    // Initialize all the values we need in end based on the duration
-    zipDuration(end, duration);
+    return toSimple(plus(startDate, duration, multiplier));
+  }
 
-    // Add Timezone offset to endString
-    if(startDate.getTzHours() != null) {
-      endString.append(startDate.getTzHours() >= 0 ? "+" : "-").append(String.format("%02d", Math.abs(startDate.getTzHours())));
-      endString.append(":").append(String.format("%02d", startDate.getTzMinutes()));
-    }
+  /**
+   * Subtract a duration from a simple date. The days and time are subtracted first, then the months and years,
+   * the same way {@link #addDuration(GedcomxDateSimple, GedcomxDateDuration)} adds them.
+   * @param startDate The date to start from
+   * @param duration The duration to subtract
+   * @return a new simple date
+   */
+  public static GedcomxDateSimple subtractDuration(GedcomxDateSimple startDate, GedcomxDateDuration duration) {
+    return toSimple(plus(startDate, duration, -1));
+  }
 
-    if(end.seconds != null) {
-      if (duration.getSeconds() != null) {
-        end.seconds += duration.getSeconds();
-      }
-      while (end.seconds >= 60) {
-        end.seconds -= 60;
-        end.minutes += 1;
-      }
-      endString.insert(0, String.format("%02d", end.seconds)).insert(0, ":");
-    }
+  /**
+   * Add a duration to a simple date a number of times, without allocating.
+   * @param startDate The date to start from
+   * @param duration The duration to add
+   * @param multiplier The number of times to add the duration, negative to subtract
+   * @return The packed date, or GedcomxDateSimple.OUT_OF_RANGE
+   */
+  static long plus(GedcomxDateSimple startDate, GedcomxDateDuration duration, long multiplier) {
 
-    if(end.minutes != null) {
-      if (duration.getMinutes() != null) {
-        end.minutes += duration.getMinutes();
-      }
-      while (end.minutes >= 60) {
-        end.minutes -= 60;
-        end.hours += 1;
-      }
-      endString.insert(0, String.format("%02d", end.minutes)).insert(0, ":");
+    if(startDate == null) {
+      throw new GedcomxDateException("Invalid Start Date");
     }
 
-    if(end.hours != null) {
-      if (duration.getHours() != null) {
-        end.hours += duration.getHours();
-      }
-      while (end.hours >= 24) {
-        end.hours -= 24;
-        end.day += 1;
-      }
-      endString.insert(0, String.format("%02d", end.hours)).insert(0, "T");
+    if(duration == null) {
+      throw new GedcomxDateException("Invalid Duration");
     }
 
-    if(end.day != null) {
-      if (duration.getDays() != null) {
-        end.day += duration.getDays();
-      }
-      while (end.day >= GedcomxDateUtil.daysInMonth(end.month, end.year)) {
-        end.day -= GedcomxDateUtil.daysInMonth(end.month, end.year);
-        end.month += 1;
-        if(end.month > 12) {
-          end.month -= 12;
-          end.year += 1;
-        }
-      }
-      endString.insert(0, String.format("%02d", end.day)).insert(0, "-");
+    // Like zipDuration, the result has every component from the month down to the smallest one in the duration
+    int fields;
+    if(duration.getSeconds() != null) {
+      fields = GedcomxDateSimple.SECONDS_FIELD;
+    } else if(duration.getMinutes() != null) {
+      fields = GedcomxDateSimple.MINUTES_FIELD;
+    } else if(duration.getHours() != null) {
+      fields = GedcomxDateSimple.HOURS_FIELD;
+    } else if(duration.getDays() != null) {
+      fields = GedcomxDateSimple.DAY_FIELD;
+    } else if(duration.getMonths() != null) {
+      fields = GedcomxDateSimple.MONTH_FIELD;
+    } else {
+      fields = 0;
     }
-
-    if(end.month != null) {
-      if (duration.getMonths() != null) {
-        end.month += duration.getMonths();
-      }
-      while (end.month > 12) {
-        end.month -= 12;
-        end.year += 1;
-      }
-      endString.insert(0, String.format("%02d", end.month)).insert(0, "-");
+    if(fields != 0) {
+      fields |= fields - 1;
     }
 
-    if(duration.getYears() != null) {
-      end.year += duration.getYears();
-    }
+    long seconds = value(duration.getHours()) * 3600 + value(duration.getMinutes()) * 60 + value(duration.getSeconds());
+    return startDate.plus(fields,
+      times(value(duration.getYears()), multiplier),
+      times(value(duration.getMonths()), multiplier),
+      times(value(duration.getDays()), multiplier),
+      times(seconds, multiplier));
+  }
 
-    // After adding months to this year we could have bumped into or out of a non leap year
-    // TODO fix this
+  private static long value(Integer component) {
+    return component == null ? 0 : component;
+  }
 
-    if(end.year > 9999) {
-      throw new GedcomxDateException("New date out of range");
+  /**
+   * Multiply, saturating at a value that is out of range for any date instead of overflowing.
+   */
+  private static long times(long value, long multiplier) {
+    long limit = Long.MAX_VALUE / 2;
+    if(value != 0 && Math.abs(multiplier) > limit / value) {
+      return multiplier > 0 ? limit : -limit;
     }
+    return value * multiplier;
+  }
 
-    if(end.year != null) {
-      endString.insert(0, String.format("%04d", Math.abs(end.year))).insert(0,end.year >= 0 ? "+" : "-");
+  private static GedcomxDateSimple toSimple(long packed) {
+    if(packed == GedcomxDateSimple.OUT_OF_RANGE) {
+      throw new GedcomxDateException("New date out of range");
     }
 
-    return new GedcomxDateSimple(endString.toString());
+    return GedcomxDateSimple.fromPackedLong(packed);
   }
 
   /**
@@ -335,6 +367,118 @@ public class GedcomxDateUtil {
     }
   }
 
+  /**
+   * Whether or not a year is a leap year
+   * @param year The year
+   * @return True if the year is a leap year
+   */
+  static boolean isLeapYear(int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  /**
+   * The number of days in a month, without boxing
+   * @param month The month
+   * @param year The year
+   * @return The number of days in the month
+   */
+  static int lengthOfMonth(int month, int year) {
+    if(month < 1 || month > 12) {
+      throw new GedcomxDateException("Unknown Month");
+    }
+    if(month == 2) {
+      return isLeapYear(year) ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * The number of days from 1970-01-01 to the given date, in the proleptic Gregorian calendar. There is no year 0:
+   * -0001 immediately precedes +0001, and leap years are the ones {@link #daysInMonth(Integer, Integer)} allows.
+   * For years after 0 this is the same as java.time.LocalDate.toEpochDay().
+   * @param year The year
+   * @param month The month
+   * @param day The day
+   * @return The epoch day
+   */
+  public static long toEpochDay(int year, int month, int day) {
+    if(year == 0) {
+      throw new GedcomxDateException("Invalid Date: Year 0000 does not exist in Anno Domini (AD) system");
+    }
+    int daysInMonth = lengthOfMonth(month, year);
+    if(day < 1 || day > daysInMonth) {
+      throw new GedcomxDateException("Invalid Date: There are only "+daysInMonth+" days in Month "+month+" year "+year);
+    }
+
+    long days = daysBeforeYear(year) + DAYS_BEFORE_MONTH[month - 1] + day - 1;
+    if(month > 2 && isLeapYear(year)) {
+      days++;
+    }
+    return days - DAYS_0001_TO_1970;
+  }
+
+  /**
+   * The number of days from 1970-01-01 to the given date, counting the years as plain numbers the way
+   * {@link #addDuration(GedcomxDateSimple, GedcomxDateDuration)} does: -0001 is followed by a (leap) year 0.
+   * This is the day count used for date arithmetic; {@link #toEpochDay(int, int, int)} is the one for positions in time.
+   * @param year The year
+   * @param month The month
+   * @param day The day
+   * @return The day number
+   */
+  static long toDayNumber(long year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * The date of a day number; the inverse of {@link #toDayNumber(long, int, int)}.
+   * @param dayNumber The day number
+   * @return The date, packed as (year &lt;&lt; 9) | (month &lt;&lt; 5) | day
+   */
+  static int fromDayNumber(long dayNumber) {
+    long days = dayNumber + 719468;
+    long era = Math.floorDiv(days, 146097);
+    long dayOfEra = days - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+    return (year << 9) | (month << 5) | day;
+  }
+
+  /**
+   * The number of days from 0001-01-01 to the first day of the given year (negative for years before 1).
+   * Leap years are symmetric around year 0, so the years before 1 are counted the same way as the years after it.
+   */
+  private static long daysBeforeYear(int year) {
+    if(year > 0) {
+      long y = year - 1;
+      return 365 * y + y / 4 - y / 100 + y / 400;
+    }
+    else {
+      long y = -year;
+      return -(365 * y + y / 4 - y / 100 + y / 400);
+    }
+  }
+
+  /**
+   * Add a number of years to a year, skipping the year 0.
+   * @param year The year
+   * @param years The number of years to add
+   * @return The new year
+   */
+  static int addYears(int year, int years) {
+    long index = (year < 0 ? year + 1 : year) + (long) years;
+    return (int) (index <= 0 ? index - 1 : index);
+  }
+
   /**
    * Ensures that both start and end have values where the other has values.
    * For example, if start has minutes but end does not, this function
@@ -0,0 +1,117 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.date;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+public class CacheTest {
+
+  @After
+  public void tearDown() {
+    GedcomxDateUtil.setParseCache(null);
+  }
+
+  @Test
+  public void sharesParsedDates() {
+    GedcomxDateCache cache = new GedcomxDateCache(100);
+    GedcomxDate first = cache.parse("A+1900");
+    GedcomxDate second = cache.parse("A+1900");
+    assertThat(second == first).isEqualTo(true);
+    assertThat(second.toFormalString()).isEqualTo("A+1900");
+    assertThat(cache.parse("+1850/+1860").getType()).isEqualTo(GedcomxDateType.RANGE);
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+    assertThat(cache.getMissCount()).isEqualTo(2L);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void doesNotCacheErrors() {
+    GedcomxDateCache cache = new GedcomxDateCache(100);
+    for(int i = 0; i < 2; i++) {
+      try {
+        cache.parse("+1900-13");
+        fail("GedcomxDateException expected because month is invalid");
+      } catch(GedcomxDateException e) {
+        assertThat(e.getMessage()).isEqualTo("Invalid Date: Month must be between 1 and 12");
+      }
+    }
+    assertThat(cache.getMissCount()).isEqualTo(2L);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void doesNotCacheLocalTimes() {
+    GedcomxDateCache cache = new GedcomxDateCache(100);
+    GedcomxDate first = cache.parse("+1900-01-01T10:00");
+    assertThat(cache.parse("+1900-01-01T10:00") == first).isEqualTo(false);
+    assertThat(cache.parse("A+1900-01-01T10:00/+1901").getType()).isEqualTo(GedcomxDateType.RANGE);
+    assertThat(cache.size()).isEqualTo(0);
+
+    cache.parse("+1900-01-01T10:00Z");
+    cache.parse("+1900-01-01T10:00-07:00");
+    cache.parse("R2/+1900-01-01T10:00+01:00/P1DT2H");
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    GedcomxDateCache cache = new GedcomxDateCache(2, GedcomxDateCache.Eviction.LEAST_RECENTLY_USED);
+    GedcomxDate first = cache.parse("+1000");
+    cache.parse("+2000");
+    cache.parse("+1000");
+    cache.parse("+3000");
+    assertThat(cache.getEvictionCount()).isEqualTo(1L);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.parse("+1000") == first).isEqualTo(true);
+  }
+
+  @Test
+  public void evictsFirstInFirstOut() {
+    GedcomxDateCache cache = new GedcomxDateCache(2, GedcomxDateCache.Eviction.FIRST_IN_FIRST_OUT);
+    GedcomxDate first = cache.parse("+1000");
+    cache.parse("+2000");
+    cache.parse("+1000");
+    cache.parse("+3000");
+    assertThat(cache.getEvictionCount()).isEqualTo(1L);
+    assertThat(cache.parse("+1000") == first).isEqualTo(false);
+  }
+
+  @Test
+  public void boundsLargeCaches() {
+    GedcomxDateCache cache = new GedcomxDateCache(1000);
+    for(int year = 1; year <= 5000; year++) {
+      cache.parse(String.format("+%04d", year));
+    }
+    assertThat(cache.size()).isEqualTo(1000);
+    assertThat(cache.getEvictionCount()).isEqualTo(4000L);
+  }
+
+  @Test
+  public void parseUsesCache() {
+    GedcomxDateCache cache = new GedcomxDateCache(100);
+    GedcomxDateUtil.setParseCache(cache);
+    GedcomxDate first = GedcomxDateUtil.parse("R3/+1000/P1Y");
+    assertThat(GedcomxDateUtil.parse("R3/+1000/P1Y") == first).isEqualTo(true);
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+
+    GedcomxDateUtil.setParseCache(null);
+    assertThat(GedcomxDateUtil.parse("R3/+1000/P1Y") == first).isEqualTo(false);
+  }
+}
@@ -4,6 +4,8 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.fail;
@@ -189,6 +191,44 @@ public class RecurringTest {
     assertThat(recurring.getNth(13).toFormalString()).isEqualTo("+1013");
   }
 
+  @Test
+  public void getNthOfDays() {
+    GedcomxDateRecurring recurring = new GedcomxDateRecurring("R/+2000-01-01/P30D");
+    assertThat(recurring.getNth(1).toFormalString()).isEqualTo("+2000-01-31");
+    assertThat(recurring.getNth(1000).toFormalString()).isEqualTo("+2082-02-19");
+  }
+
+  @Test
+  public void iterator() {
+    GedcomxDateRecurring recurring = new GedcomxDateRecurring("R3/+1000-01-01/P1M");
+    PrimitiveIterator.OfLong iterator = recurring.iterator();
+    for(String expected : Arrays.asList("+1000-01-01", "+1000-02-01", "+1000-03-01", "+1000-04-01")) {
+      assertThat(iterator.hasNext()).isEqualTo(true);
+      assertThat(GedcomxDateSimple.fromPackedLong(iterator.nextLong()).toFormalString()).isEqualTo(expected);
+    }
+    assertThat(iterator.hasNext()).isEqualTo(false);
+    try {
+      iterator.nextLong();
+      fail("NoSuchElementException expected because there are no more instances");
+    } catch(NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void occurrences() {
+    GedcomxDateRecurring recurring = new GedcomxDateRecurring("R13/+1000/P1Y");
+    assertThat(recurring.occurrences().count()).isEqualTo(14L);
+    assertThat(recurring.occurrences().max().getAsLong()).isEqualTo(recurring.getEnd().toPackedLong());
+  }
+
+  @Test
+  public void occurrencesWithoutCount() {
+    GedcomxDateRecurring recurring = new GedcomxDateRecurring("R/+9000/P10Y");
+    assertThat(recurring.occurrences().count()).isEqualTo(100L);
+    assertThat(GedcomxDateSimple.fromPackedLong(recurring.occurrences().max().getAsLong()).toFormalString()).isEqualTo("+9990");
+  }
+
   @Test
   public void getType() {
     GedcomxDateRecurring recurring = new GedcomxDateRecurring("R1/+1000/P1Y");
@@ -611,4 +611,77 @@ public class SimpleTest {
     }
   }
 
+  @Test
+  public void packedLongRoundTrip() {
+    List<String> tests = Arrays.asList("+1000-01-01T24:00:00Z","-1000-01-01T23:15:15-06:30","+0001-12","-0090","-9999","+9999-12-31T23:59:59+14:00","+2000T10Z");
+    for(String test: tests) {
+      GedcomxDateSimple simple = new GedcomxDateSimple(test);
+      GedcomxDateSimple copy = GedcomxDateSimple.fromPackedLong(simple.toPackedLong());
+      assertThat(copy.toFormalString()).isEqualTo(test);
+      assertThat(copy.getYear()).isEqualTo(simple.getYear());
+      assertThat(copy.getMonth()).isEqualTo(simple.getMonth());
+      assertThat(copy.getDay()).isEqualTo(simple.getDay());
+      assertThat(copy.getHours()).isEqualTo(simple.getHours());
+      assertThat(copy.getMinutes()).isEqualTo(simple.getMinutes());
+      assertThat(copy.getSeconds()).isEqualTo(simple.getSeconds());
+      assertThat(copy.getTzHours()).isEqualTo(simple.getTzHours());
+      assertThat(copy.getTzMinutes()).isEqualTo(simple.getTzMinutes());
+    }
+  }
+
+  @Test
+  public void packedLongOrdersByComponents() {
+    List<String> tests = Arrays.asList("-1000","-0001-12-31","+0001","+0001-01","+0001-01-01","+0001-01-01T00Z","+0001-01-01T00:00Z","+0001-01-02","+1900-02","+1900-10","+2000");
+    for(int i = 1; i < tests.size(); i++) {
+      long previous = new GedcomxDateSimple(tests.get(i - 1)).toPackedLong();
+      long next = new GedcomxDateSimple(tests.get(i)).toPackedLong();
+      assertThat(previous < next).isEqualTo(true);
+    }
+  }
+
+  @Test
+  public void errorOnInvalidPackedLong() {
+    try {
+      GedcomxDateSimple.fromPackedLong(0);
+      fail("GedcomxDateException expected because 0 has no year");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("Invalid Date: Malformed packed date");
+    }
+  }
+
+  @Test
+  public void errorOnPackedLongWithInvalidComponents() {
+    long day = 1L << 33;
+    long hour = 1L << 28;
+    long minute = 1L << 22;
+    long second = 1L << 16;
+    long tzHour = 1L << 8;
+    long leapDay = new GedcomxDateSimple("+2000-02-29").toPackedLong();
+    long time = new GedcomxDateSimple("+2000-01-01T10:20:30Z").toPackedLong();
+    long midnight = new GedcomxDateSimple("+2000-01-01T24Z").toPackedLong();
+    long[] tests = {
+      new GedcomxDateSimple("+2000").toPackedLong() | (13L << 38),             // month 13
+      new GedcomxDateSimple("+2000").toPackedLong() | day,                     // day without a month
+      new GedcomxDateSimple("+2001-02").toPackedLong() | (29L * day),          // +2001-02-29
+      leapDay + day,                                                           // +2000-02-30
+      new GedcomxDateSimple("+2000-01-01").toPackedLong() | (26L * hour),      // hour 25
+      new GedcomxDateSimple("+2000-01-01").toPackedLong() | hour,              // time without a time zone
+      leapDay | tzHour,                                                        // time zone without a time
+      time + 40 * minute,                                                      // minute 60
+      time + 30 * second,                                                      // second 60
+      new GedcomxDateSimple("+2000-01-01T10Z").toPackedLong() | second,        // seconds without minutes
+      midnight | (2L * minute),                                                // 24:01
+      time + 100 * tzHour,                                                     // tzHours of 100
+      time & ~0xFFL                                                            // no tzMinutes
+    };
+    for(long test : tests) {
+      try {
+        GedcomxDateSimple.fromPackedLong(test);
+        fail("GedcomxDateException expected for " + Long.toHexString(test));
+      } catch(GedcomxDateException e) {
+        assertThat(e.getMessage()).isEqualTo("Invalid Date: Malformed packed date");
+      }
+    }
+  }
+
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.date;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+public class SortKeyTest {
+
+  @Test
+  public void epochDayMatchesLocalDate() {
+    for(LocalDate date = LocalDate.of(1, 1, 1); date.getYear() < 2400; date = date.plusDays(7)) {
+      long expected = date.toEpochDay();
+      assertThat(GedcomxDateUtil.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth())).isEqualTo(expected);
+    }
+    assertThat(GedcomxDateUtil.toEpochDay(1970, 1, 1)).isEqualTo(0L);
+    assertThat(GedcomxDateUtil.toEpochDay(9999, 12, 31)).isEqualTo(LocalDate.of(9999, 12, 31).toEpochDay());
+  }
+
+  @Test
+  public void epochDayHasNoYearZero() {
+    assertThat(GedcomxDateUtil.toEpochDay(-1, 12, 31) + 1).isEqualTo(GedcomxDateUtil.toEpochDay(1, 1, 1));
+    assertThat(GedcomxDateUtil.toEpochDay(-2, 12, 31) + 1).isEqualTo(GedcomxDateUtil.toEpochDay(-1, 1, 1));
+    // -0004 is a leap year, just like +0004
+    assertThat(GedcomxDateUtil.toEpochDay(-4, 3, 1) - GedcomxDateUtil.toEpochDay(-4, 2, 28)).isEqualTo(2L);
+    try {
+      GedcomxDateUtil.toEpochDay(0, 1, 1);
+      fail("GedcomxDateException expected because the year 0000 is invalid");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("Invalid Date: Year 0000 does not exist in Anno Domini (AD) system");
+    }
+  }
+
+  @Test
+  public void simpleDateBounds() {
+    long year = GedcomxDateSortKey.of("+1850");
+    assertThat(GedcomxDateSortKey.earliest(year)).isEqualTo(LocalDate.of(1850, 1, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(year)).isEqualTo(LocalDate.of(1850, 12, 31).toEpochDay());
+
+    long month = GedcomxDateSortKey.of("+1900-02");
+    assertThat(GedcomxDateSortKey.earliest(month)).isEqualTo(LocalDate.of(1900, 2, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(month)).isEqualTo(LocalDate.of(1900, 2, 28).toEpochDay());
+
+    long day = GedcomxDateSortKey.of("+1900-02-03T10:00:00Z");
+    assertThat(GedcomxDateSortKey.earliest(day)).isEqualTo(LocalDate.of(1900, 2, 3).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(day)).isEqualTo(LocalDate.of(1900, 2, 3).toEpochDay());
+
+    long bc = GedcomxDateSortKey.of("-0010");
+    assertThat(GedcomxDateSortKey.earliest(bc) < GedcomxDateSortKey.latest(bc)).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.latest(bc) < GedcomxDateSortKey.earliest(GedcomxDateSortKey.of("+0001"))).isEqualTo(true);
+  }
+
+  @Test
+  public void approximateDatesAreWidened() {
+    long key = GedcomxDateSortKey.of(GedcomxDateUtil.parse("A+1850-06"), 2);
+    assertThat(GedcomxDateSortKey.earliest(key)).isEqualTo(LocalDate.of(1848, 6, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(key)).isEqualTo(LocalDate.of(1852, 6, 30).toEpochDay());
+
+    key = GedcomxDateSortKey.of(GedcomxDateUtil.parse("A+1852-02-29"), 1);
+    assertThat(GedcomxDateSortKey.earliest(key)).isEqualTo(LocalDate.of(1851, 2, 28).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(key)).isEqualTo(LocalDate.of(1853, 2, 28).toEpochDay());
+
+    key = GedcomxDateSortKey.of(GedcomxDateUtil.parse("A+0001"), 1);
+    assertThat(GedcomxDateSortKey.earliest(key)).isEqualTo(GedcomxDateUtil.toEpochDay(-1, 1, 1));
+
+    key = GedcomxDateSortKey.of(GedcomxDateUtil.parse("A+1800/+1900"), 10);
+    assertThat(GedcomxDateSortKey.earliest(key)).isEqualTo(LocalDate.of(1790, 1, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(key)).isEqualTo(LocalDate.of(1910, 12, 31).toEpochDay());
+
+    assertThat(GedcomxDateSortKey.of("A+1850")).isEqualTo(GedcomxDateSortKey.of(GedcomxDateUtil.parse("A+1850"), GedcomxDateSortKey.DEFAULT_APPROXIMATE_YEARS));
+  }
+
+  @Test
+  public void openRanges() {
+    long from = GedcomxDateSortKey.of("+1900/");
+    assertThat(GedcomxDateSortKey.earliest(from)).isEqualTo(LocalDate.of(1900, 1, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(from)).isEqualTo(GedcomxDateSortKey.OPEN_END);
+
+    long until = GedcomxDateSortKey.of("/+1900");
+    assertThat(GedcomxDateSortKey.earliest(until)).isEqualTo(GedcomxDateSortKey.OPEN_START);
+    assertThat(GedcomxDateSortKey.latest(until)).isEqualTo(LocalDate.of(1900, 12, 31).toEpochDay());
+
+    assertThat(GedcomxDateSortKey.overlaps(from, until)).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.overlaps(from, GedcomxDateSortKey.of("+1899"))).isEqualTo(false);
+    assertThat(GedcomxDateSortKey.overlaps(until, GedcomxDateSortKey.of("+1901"))).isEqualTo(false);
+  }
+
+  @Test
+  public void rangesAndRecurringDates() {
+    long range = GedcomxDateSortKey.of("+1900-03/P1Y");
+    assertThat(GedcomxDateSortKey.earliest(range)).isEqualTo(LocalDate.of(1900, 3, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(range)).isEqualTo(LocalDate.of(1901, 3, 31).toEpochDay());
+
+    long recurring = GedcomxDateSortKey.of("R3/+1900-01-01/+1900-01-02");
+    assertThat(GedcomxDateSortKey.earliest(recurring)).isEqualTo(LocalDate.of(1900, 1, 1).toEpochDay());
+    assertThat(GedcomxDateSortKey.latest(recurring)).isEqualTo(LocalDate.of(1900, 1, 4).toEpochDay());
+
+    long forever = GedcomxDateSortKey.of("R/+1900-01-01/+1900-01-02");
+    assertThat(GedcomxDateSortKey.latest(forever)).isEqualTo(GedcomxDateSortKey.OPEN_END);
+
+    try {
+      GedcomxDateSortKey.of(new GedcomxDateDuration("P1Y"));
+      fail("GedcomxDateException expected because a duration has no position in time");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("Invalid Date: A duration has no position in time");
+    }
+  }
+
+  @Test
+  public void overlapsAndContains() {
+    long nineteenth = GedcomxDateSortKey.of("+1801/+1900");
+    assertThat(GedcomxDateSortKey.overlaps(nineteenth, GedcomxDateSortKey.of("+1850-06-01"))).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.overlaps(nineteenth, GedcomxDateSortKey.of("+1900"))).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.overlaps(nineteenth, GedcomxDateSortKey.of("+1901"))).isEqualTo(false);
+    assertThat(GedcomxDateSortKey.overlaps(nineteenth, GedcomxDateSortKey.of("A+1904"))).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.contains(nineteenth, LocalDate.of(1850, 1, 1).toEpochDay())).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.contains(nineteenth, LocalDate.of(1901, 1, 1).toEpochDay())).isEqualTo(false);
+  }
+
+  @Test
+  public void keysSortChronologically() {
+    // keys with the same earliest day put the narrower one first
+    List<String> ordered = Arrays.asList("/+1700", "-0500", "-0001-12-31", "+0001", "+1850-01-01", "+1850-01", "+1850", "+1850-02", "+1851", "+1900/", "+2000");
+    long[] keys = new long[ordered.size()];
+    for(int i = 0; i < keys.length; i++) {
+      keys[keys.length - 1 - i] = GedcomxDateSortKey.of(ordered.get(i));
+    }
+    Arrays.sort(keys);
+    for(int i = 0; i < keys.length; i++) {
+      assertThat(keys[i]).isEqualTo(GedcomxDateSortKey.of(ordered.get(i)));
+    }
+    for(int i = 1; i < keys.length; i++) {
+      assertThat(GedcomxDateSortKey.compare(keys[i - 1], keys[i]) < 0).isEqualTo(true);
+    }
+  }
+
+  @Test
+  public void packRoundTrip() {
+    long[][] bounds = {{0, 0}, {-5, 5}, {GedcomxDateSortKey.OPEN_START, 12}, {-12, GedcomxDateSortKey.OPEN_END}, {GedcomxDateSortKey.OPEN_START, GedcomxDateSortKey.OPEN_END}};
+    for(long[] b : bounds) {
+      long key = GedcomxDateSortKey.pack(b[0], b[1]);
+      assertThat(GedcomxDateSortKey.earliest(key)).isEqualTo(b[0]);
+      assertThat(GedcomxDateSortKey.latest(key)).isEqualTo(b[1]);
+    }
+    assertThat(GedcomxDateSortKey.compare(GedcomxDateSortKey.pack(0, 0), GedcomxDateSortKey.pack(0, 1)) < 0).isEqualTo(true);
+    assertThat(GedcomxDateSortKey.compare(GedcomxDateSortKey.pack(-3, -2), GedcomxDateSortKey.pack(-3, -1)) < 0).isEqualTo(true);
+  }
+
+}
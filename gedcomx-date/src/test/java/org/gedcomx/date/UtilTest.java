@@ -449,6 +449,64 @@ public class UtilTest {
     }
   }
 
+  @Test
+  public void shouldAddDaysToEndOfMonth() {
+    assertThat(GedcomxDateUtil.addDuration(new GedcomxDateSimple("+2000-01-01"), new GedcomxDateDuration("P30D")).toFormalString()).isEqualTo("+2000-01-31");
+    assertThat(GedcomxDateUtil.addDuration(new GedcomxDateSimple("+2000-02-28T12:00:00Z"), new GedcomxDateDuration("PT12H")).toFormalString()).isEqualTo("+2000-02-29T00:00:00Z");
+  }
+
+  @Test
+  public void shouldAddMultipleOfDuration() {
+    GedcomxDateSimple start = new GedcomxDateSimple("-0500-03-15T10:20:30Z");
+    GedcomxDateDuration duration = new GedcomxDateDuration("P1Y39DT13H5M7S");
+    for(int i = 1; i < 100; i++) {
+      GedcomxDateSimple expected = GedcomxDateUtil.addDuration(start, GedcomxDateUtil.multiplyDuration(duration, i));
+      assertThat(GedcomxDateUtil.addDuration(start, duration, i).toFormalString()).isEqualTo(expected.toFormalString());
+    }
+  }
+
+  @Test
+  public void errorOnAddInvalidMultiplier() {
+    try {
+      GedcomxDateUtil.addDuration(new GedcomxDateSimple("+1000"), new GedcomxDateDuration("P1Y"), 0);
+      fail("GedcomxDateException expected because multiplier is 0");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("Invalid Multiplier");
+    }
+  }
+
+  @Test
+  public void errorOnAddTooManyDays() {
+    try {
+      GedcomxDateUtil.addDuration(new GedcomxDateSimple("+9999-12-01"), new GedcomxDateDuration("P1000000D"), Integer.MAX_VALUE);
+      fail("GedcomxDateException expected because years exceed 9999");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("New date out of range");
+    }
+  }
+
+  /**
+   * subtractDuration
+   */
+
+  @Test
+  public void shouldSubtractDuration() {
+    assertThat(GedcomxDateUtil.subtractDuration(new GedcomxDateSimple("+2004-03-03"), new GedcomxDateDuration("P62D")).toFormalString()).isEqualTo("+2004-01-01");
+    assertThat(GedcomxDateUtil.subtractDuration(new GedcomxDateSimple("+1000-01-01T00:01:30Z"), new GedcomxDateDuration("PT91S")).toFormalString()).isEqualTo("+0999-12-31T23:59:59Z");
+    assertThat(GedcomxDateUtil.subtractDuration(new GedcomxDateSimple("+1002-02"), new GedcomxDateDuration("P25M")).toFormalString()).isEqualTo("+1000-01");
+    assertThat(GedcomxDateUtil.subtractDuration(new GedcomxDateSimple("-0800"), new GedcomxDateDuration("P200Y")).toFormalString()).isEqualTo("-1000");
+  }
+
+  @Test
+  public void errorOnSubtractTooManyYears() {
+    try {
+      GedcomxDateUtil.subtractDuration(new GedcomxDateSimple("-9999"), new GedcomxDateDuration("P1Y"));
+      fail("GedcomxDateException expected because years exceed -9999");
+    } catch(GedcomxDateException e) {
+      assertThat(e.getMessage()).isEqualTo("New date out of range");
+    }
+  }
+
   /**
    * multipleDuration
    */
@@ -0,0 +1,280 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.fileformat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a ZIP archive from entries that have already been deflated, so that the compression can happen on other
+ * threads than the one writing the archive. Archives with more than 65535 entries or larger than 4GB are written
+ * with the ZIP64 extensions, the same way <code>java.util.zip.ZipOutputStream</code> writes them.
+ */
+class DeflatedZipWriter {
+
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int ZIP64_END = 0x06064b50;
+  private static final int ZIP64_LOCATOR = 0x07064b50;
+  private static final int END = 0x06054b50;
+  private static final int UTF8_FLAG = 0x800;
+  private static final int DEFLATED = 8;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private final OutputStream out;
+  private final List<WrittenEntry> written = new ArrayList<WrittenEntry>();
+  private final byte[] buffer = new byte[64];
+  private long offset = 0;
+
+  DeflatedZipWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Append an entry to the archive.
+   *
+   * @param entry The entry.
+   * @throws IOException if an I/O error has occurred
+   */
+  void write(DeflatedEntry entry) throws IOException {
+    byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+    int dosTime = toDosTime(entry.time);
+
+    // the entries are in memory, so only the offset can need ZIP64
+    int pos = 0;
+    pos = putInt(pos, LOCAL_HEADER);
+    pos = putShort(pos, 20);
+    pos = putShort(pos, UTF8_FLAG);
+    pos = putShort(pos, DEFLATED);
+    pos = putInt(pos, dosTime);
+    pos = putInt(pos, (int) entry.crc);
+    pos = putInt(pos, entry.compressed.length);
+    pos = putInt(pos, (int) entry.size);
+    pos = putShort(pos, name.length);
+    pos = putShort(pos, 0);
+    this.out.write(this.buffer, 0, pos);
+    this.out.write(name);
+    this.out.write(entry.compressed);
+
+    this.written.add(new WrittenEntry(name, dosTime, entry.crc, entry.compressed.length, entry.size, this.offset));
+    this.offset += pos + name.length + entry.compressed.length;
+  }
+
+  /**
+   * Write the central directory and flush, leaving the underlying stream open.
+   *
+   * @throws IOException if an I/O error has occurred
+   */
+  void finish() throws IOException {
+    long directoryOffset = this.offset;
+    for (WrittenEntry entry : this.written) {
+      boolean zip64 = entry.offset >= ZIP64_MAGIC;
+      int pos = 0;
+      pos = putInt(pos, CENTRAL_HEADER);
+      pos = putShort(pos, zip64 ? 45 : 20);
+      pos = putShort(pos, zip64 ? 45 : 20);
+      pos = putShort(pos, UTF8_FLAG);
+      pos = putShort(pos, DEFLATED);
+      pos = putInt(pos, entry.dosTime);
+      pos = putInt(pos, (int) entry.crc);
+      pos = putInt(pos, (int) entry.compressedSize);
+      pos = putInt(pos, (int) entry.size);
+      pos = putShort(pos, entry.name.length);
+      pos = putShort(pos, zip64 ? 12 : 0);
+      pos = putShort(pos, 0); // comment
+      pos = putShort(pos, 0); // disk
+      pos = putShort(pos, 0); // internal attributes
+      pos = putInt(pos, 0); // external attributes
+      pos = putInt(pos, (int) (zip64 ? ZIP64_MAGIC : entry.offset));
+      this.out.write(this.buffer, 0, pos);
+      this.out.write(entry.name);
+      if (zip64) {
+        pos = 0;
+        pos = putShort(pos, 1);
+        pos = putShort(pos, 8);
+        pos = putLong(pos, entry.offset);
+        this.out.write(this.buffer, 0, pos);
+      }
+      this.offset += 46 + entry.name.length + (zip64 ? 12 : 0);
+    }
+
+    long directorySize = this.offset - directoryOffset;
+    int count = this.written.size();
+    if (count >= 0xFFFF || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC) {
+      int pos = 0;
+      pos = putInt(pos, ZIP64_END);
+      pos = putLong(pos, 44);
+      pos = putShort(pos, 45);
+      pos = putShort(pos, 45);
+      pos = putInt(pos, 0);
+      pos = putInt(pos, 0);
+      pos = putLong(pos, count);
+      pos = putLong(pos, count);
+      pos = putLong(pos, directorySize);
+      pos = putLong(pos, directoryOffset);
+      this.out.write(this.buffer, 0, pos);
+
+      pos = 0;
+      pos = putInt(pos, ZIP64_LOCATOR);
+      pos = putInt(pos, 0);
+      pos = putLong(pos, this.offset);
+      pos = putInt(pos, 1);
+      this.out.write(this.buffer, 0, pos);
+    }
+
+    int pos = 0;
+    pos = putInt(pos, END);
+    pos = putShort(pos, 0);
+    pos = putShort(pos, 0);
+    pos = putShort(pos, Math.min(count, 0xFFFF));
+    pos = putShort(pos, Math.min(count, 0xFFFF));
+    pos = putInt(pos, (int) Math.min(directorySize, ZIP64_MAGIC));
+    pos = putInt(pos, (int) Math.min(directoryOffset, ZIP64_MAGIC));
+    pos = putShort(pos, 0);
+    this.out.write(this.buffer, 0, pos);
+    this.out.flush();
+  }
+
+  private int putShort(int pos, int value) {
+    this.buffer[pos] = (byte) value;
+    this.buffer[pos + 1] = (byte) (value >>> 8);
+    return pos + 2;
+  }
+
+  private int putInt(int pos, int value) {
+    pos = putShort(pos, value);
+    return putShort(pos, value >>> 16);
+  }
+
+  private int putLong(int pos, long value) {
+    pos = putInt(pos, (int) value);
+    return putInt(pos, (int) (value >>> 32));
+  }
+
+  private static int toDosTime(long time) {
+    LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    if (dateTime.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (dateTime.getYear() - 1980) << 25
+      | dateTime.getMonthValue() << 21
+      | dateTime.getDayOfMonth() << 16
+      | dateTime.getHour() << 11
+      | dateTime.getMinute() << 5
+      | dateTime.getSecond() >> 1;
+  }
+
+  /**
+   * An entry that has been deflated and is ready to be written.
+   */
+  static final class DeflatedEntry {
+
+    private final String name;
+    private final long time;
+    private final long crc;
+    private final long size;
+    private final byte[] compressed;
+
+    private DeflatedEntry(String name, long time, long crc, long size, byte[] compressed) {
+      this.name = name;
+      this.time = time;
+      this.crc = crc;
+      this.size = size;
+      this.compressed = compressed;
+    }
+  }
+
+  /**
+   * A stream that deflates what is written to it into a {@link DeflatedEntry}.
+   */
+  static final class EntryOutputStream extends DeflaterOutputStream {
+
+    private final String name;
+    private final long time;
+    private final ByteArrayOutputStream compressed;
+    private final CRC32 crc = new CRC32();
+    private long size = 0;
+
+    EntryOutputStream(String name) {
+      this(name, new ByteArrayOutputStream());
+    }
+
+    private EntryOutputStream(String name, ByteArrayOutputStream compressed) {
+      super(compressed, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 8192);
+      this.name = name;
+      this.time = System.currentTimeMillis();
+      this.compressed = compressed;
+    }
+
+    // DeflaterOutputStream.write(int) goes through this one
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      this.crc.update(b, off, len);
+      this.size += len;
+    }
+
+    /**
+     * Finish deflating and release the deflater.
+     *
+     * @return The deflated entry.
+     * @throws IOException if an I/O error has occurred
+     */
+    DeflatedEntry toEntry() throws IOException {
+      try {
+        finish();
+      }
+      finally {
+        this.def.end();
+      }
+      return new DeflatedEntry(this.name, this.time, this.crc.getValue(), this.size, this.compressed.toByteArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+      // serializers may close the stream they are given; the entry is finished by toEntry()
+    }
+  }
+
+  private static final class WrittenEntry {
+
+    private final byte[] name;
+    private final int dosTime;
+    private final long crc;
+    private final long compressedSize;
+    private final long size;
+    private final long offset;
+
+    private WrittenEntry(byte[] name, int dosTime, long crc, long compressedSize, long size, long offset) {
+      this.name = name;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.offset = offset;
+    }
+  }
+}
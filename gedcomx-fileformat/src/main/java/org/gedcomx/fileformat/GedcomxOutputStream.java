@@ -86,12 +86,16 @@ public class GedcomxOutputStream {
    * @throws IOException if an I/O error has occurred
    */
   public void addResource(Gedcomx resource, Date lastModified) throws IOException {
+    addResource(defaultEntryName(this.entryCount, this.serializer), resource, lastModified);
+  }
+
+  static String defaultEntryName(int entryCount, GedcomxEntrySerializer serializer) {
     StringBuilder entryName = new StringBuilder("tree");
-    if (this.entryCount > 0) {
-      entryName.append(this.entryCount);
+    if (entryCount > 0) {
+      entryName.append(entryCount);
     }
-    entryName.append(this.serializer.suggestFilenameExtension());
-    addResource(entryName.toString(), resource, lastModified);
+    entryName.append(serializer.suggestFilenameExtension());
+    return entryName.toString();
   }
 
   /**
@@ -158,6 +162,16 @@ public class GedcomxOutputStream {
   }
 
   protected void putNextEntry(String contentType, String entryName, Date lastModified, Map<String, String> attributes) throws IOException {
+    entryName = addManifestEntry(this.mf, contentType, entryName, lastModified, attributes);
+    this.gedxOutputStream.putNextEntry(new JarEntry(entryName));
+  }
+
+  /**
+   * Validate an entry and record its attributes in the manifest.
+   *
+   * @return The name of the entry within the GEDCOM X file.
+   */
+  static String addManifestEntry(Manifest mf, String contentType, String entryName, Date lastModified, Map<String, String> attributes) {
     if (contentType.trim().length() == 0) {
       throw new IllegalArgumentException("contentType must not be null or empty.");
     }
@@ -165,7 +179,7 @@ public class GedcomxOutputStream {
     entryName = entryName.replaceAll("\\\\", "/");
     entryName = entryName.charAt(0) == '/' ? entryName.substring(1) : entryName;
 
-    JarEntry gedxEntry = new JarEntry(entryName); // will throw a runtime exception if entryName is not okay
+    new JarEntry(entryName); // will throw a runtime exception if entryName is not okay
     Attributes entryAttrs = new Attributes();
 
     if (lastModified != null) {
@@ -181,10 +195,10 @@ public class GedcomxOutputStream {
     }
 
     if (!entryAttrs.isEmpty()) {
-      this.mf.getEntries().put(entryName, entryAttrs);
+      mf.getEntries().put(entryName, entryAttrs);
     }
 
-    this.gedxOutputStream.putNextEntry(gedxEntry);
+    return entryName;
   }
 
   /**
@@ -17,41 +17,81 @@ package org.gedcomx.fileformat;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.gedcomx.Gedcomx;
 import org.gedcomx.rt.json.GedcomJacksonModule;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
  * A class for creating instances of <code>JAXBContext</code> appropriate for reading and writing GEDCOM X files.
+ *
+ * Instances are thread-safe. Instances created for the same classes share one <code>ObjectMapper</code>, and the
+ * readers and writers are created once per instance instead of once per entry.
  */
 public class JacksonJsonSerialization implements GedcomxEntrySerializer, GedcomxEntryDeserializer {
 
+  static final int MAX_SHARED_MAPPERS = 16;
+  static final SerializationCache<List<Object>, ObjectMapper> MAPPERS = new SerializationCache<List<Object>, ObjectMapper>(MAX_SHARED_MAPPERS);
+
   private final ObjectMapper mapper;
+  private final ObjectWriter writer;
+  private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
 
   public JacksonJsonSerialization(Class<?>... classes) {
     this(true, classes);
   }
 
   public JacksonJsonSerialization(boolean pretty, Class<?>... classes) {
-    this(createObjectMapper(pretty, classes));
+    this(getObjectMapper(pretty, classes));
   }
 
   public JacksonJsonSerialization(ObjectMapper mapper) {
     this.mapper = mapper;
+    //don't let the writer close the stream; the caller owns it.
+    this.writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.readers.put(Gedcomx.class, mapper.readerFor(Gedcomx.class));
   }
 
   public static ObjectMapper createObjectMapper(boolean pretty, Class<?>... classes) {
     return GedcomJacksonModule.createObjectMapper(classes);
   }
 
+  /**
+   * The shared mapper for the given options and classes, created on first use. The mapper is never handed out, so it
+   * can't be reconfigured after it is shared. Only the most recently used mappers are kept.
+   */
+  static ObjectMapper getObjectMapper(boolean pretty, Class<?>... classes) {
+    List<Object> key = Arrays.<Object>asList(pretty, new HashSet<Class<?>>(Arrays.asList(classes)));
+    ObjectMapper mapper = MAPPERS.get(key);
+    if (mapper == null) {
+      mapper = MAPPERS.putIfAbsent(key, createObjectMapper(pretty, classes));
+    }
+    return mapper;
+  }
+
   @Override
   public Object deserialize(InputStream in, String mediaType) throws IOException {
     Class<?> clazz = findClass(mediaType);
-    return clazz == null ? in : this.mapper.readValue(in, clazz);
+    return clazz == null ? in : getReader(clazz).readValue(in);
+  }
+
+  private ObjectReader getReader(Class<?> clazz) {
+    ObjectReader reader = this.readers.get(clazz);
+    if (reader == null) {
+      reader = this.mapper.readerFor(clazz);
+      this.readers.putIfAbsent(clazz, reader);
+    }
+    return reader;
   }
 
   protected Class<?> findClass(String mediaType) {
@@ -60,8 +100,7 @@ public class JacksonJsonSerialization implements GedcomxEntrySerializer, Gedcomx
 
   @Override
   public void serialize(Object resource, OutputStream out) throws IOException {
-    JsonGenerator generator = this.mapper.getFactory().createGenerator(out); //we're creating a generator so that the stream doesn't get auto-closed
-    this.mapper.writeValue(generator, resource);
+    this.writer.writeValue(out, resource);
   }
 
   @Override
@@ -27,37 +27,59 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 
 
 /**
  * A class for creating instances of <code>JAXBContext</code> appropriate for reading and writing GEDCOM X files.
+ *
+ * Instances are thread-safe. The <code>JAXBContext</code> for a set of classes is created once and shared by every
+ * instance for the same classes (only the most recently used contexts are kept), and each instance keeps a bounded
+ * pool of marshallers and unmarshallers so that concurrent reads and writes neither block each other nor create a
+ * new one per entry.
  */
 public class JaxbXmlSerialization implements GedcomxEntrySerializer, GedcomxEntryDeserializer {
 
-  private final Unmarshaller unmarshaller;
-  private final Marshaller marshaller;
+  static final int MAX_SHARED_CONTEXTS = 16;
+  static final int MAX_POOLED = 16;
+  static final SerializationCache<Set<Class<?>>, JAXBContext> CONTEXTS = new SerializationCache<Set<Class<?>>, JAXBContext>(MAX_SHARED_CONTEXTS);
+
+  private final JAXBContext context;
+  private final boolean pretty;
+  private final GedcomNamespaceManager namespaceManager = new GedcomNamespaceManager(Gedcomx.class);
+  final Queue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<Unmarshaller>(MAX_POOLED);
+  final Queue<Marshaller> marshallers = new ArrayBlockingQueue<Marshaller>(MAX_POOLED);
 
   public JaxbXmlSerialization(Class<?>... classes) {
     this(true, classes);
   }
 
   public JaxbXmlSerialization(boolean pretty, Class<?>... classes) {
+    this.pretty = pretty;
     try {
-      JAXBContext context = newContext(classes);
-      this.unmarshaller = context.createUnmarshaller();
-      this.marshaller = context.createMarshaller();
-      this.marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", new GedcomNamespaceManager(Gedcomx.class));
-      if (pretty) {
-        this.marshaller.setProperty("jaxb.formatted.output", Boolean.TRUE);
-      }
+      this.context = getContext(classes);
+      //create the first ones up front so that a bad configuration fails here instead of on first use.
+      this.unmarshallers.add(this.context.createUnmarshaller());
+      this.marshallers.add(createMarshaller());
     }
     catch (JAXBException e) {
       throw new IllegalArgumentException(e);
     }
   }
 
+  private Marshaller createMarshaller() throws JAXBException {
+    Marshaller marshaller = this.context.createMarshaller();
+    marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", this.namespaceManager);
+    if (this.pretty) {
+      marshaller.setProperty("jaxb.formatted.output", Boolean.TRUE);
+    }
+    return marshaller;
+  }
+
   @Override
   public Object deserialize(InputStream in, String mediaType) throws IOException {
     if (!isKnownContentType(mediaType)) {
@@ -65,7 +87,14 @@ public class JaxbXmlSerialization implements GedcomxEntrySerializer, GedcomxEntr
     }
 
     try {
-      return this.unmarshaller.unmarshal(in);
+      Unmarshaller unmarshaller = this.unmarshallers.poll();
+      if (unmarshaller == null) {
+        unmarshaller = this.context.createUnmarshaller();
+      }
+      Object resource = unmarshaller.unmarshal(in);
+      //only reuse it if it finished cleanly, and only while the pool has room.
+      this.unmarshallers.offer(unmarshaller);
+      return resource;
     }
     catch (JAXBException e) {
       throw new IOException(e);
@@ -79,13 +108,38 @@ public class JaxbXmlSerialization implements GedcomxEntrySerializer, GedcomxEntr
   @Override
   public void serialize(Object resource, OutputStream out) throws IOException {
     try {
-      this.marshaller.marshal(resource, out);
+      Marshaller marshaller = this.marshallers.poll();
+      if (marshaller == null) {
+        marshaller = createMarshaller();
+      }
+      marshaller.marshal(resource, out);
+      //only reuse it if it finished cleanly, and only while the pool has room.
+      this.marshallers.offer(marshaller);
     }
     catch (JAXBException e) {
       throw new IOException(e);
     }
   }
 
+  /**
+   * The shared <code>JAXBContext</code> for the given classes, created on first use. Only the most recently used
+   * contexts are kept.
+   *
+   * @param classes Additional classes to supplement (not override) the provided defaults
+   * @return A JAXBContext
+   * @throws JAXBException
+   * @see #newContext(Class[])
+   */
+  private static JAXBContext getContext(Class<?>... classes) throws JAXBException {
+    Set<Class<?>> key = Collections.unmodifiableSet(new HashSet<Class<?>>(Arrays.asList(classes)));
+    JAXBContext context = CONTEXTS.get(key);
+    if (context == null) {
+      //two threads may race to create the same context; the loser's is simply discarded.
+      context = CONTEXTS.putIfAbsent(key, newContext(classes));
+    }
+    return context;
+  }
+
   /**
    * Factory method for creating a new instance of a <code>JAXBContext</code> appropriate for reading and/or writing a GEDCOM X file.
    *
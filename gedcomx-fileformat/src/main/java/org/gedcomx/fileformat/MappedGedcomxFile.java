@@ -0,0 +1,475 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.fileformat;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+
+/**
+ * Reads the contents of a GEDCOM X file by mapping it into memory. The central directory and the manifest are read
+ * once when the file is opened, and every entry is indexed by name together with its manifest attributes, so
+ * looking up an entry or its content type doesn't touch the file again.
+ *
+ * Reading an entry works on its own view of the mapped file, so any number of threads can read entries at the same
+ * time without locking, and {@link #entries()} can be processed in parallel. Files larger than 2GB can't be mapped
+ * into a single buffer; for those the entries are read with positional reads, which don't lock either.
+ */
+public class MappedGedcomxFile implements Closeable {
+
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int ZIP64_END = 0x06064b50;
+  private static final int ZIP64_LOCATOR = 0x07064b50;
+  private static final int END = 0x06054b50;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private final FileChannel channel;
+  private final ByteBuffer mapped;
+  private final GedcomxEntryDeserializer deserializer;
+  private final Manifest manifest;
+  private final Map<String, String> attributes;
+  private final List<GedcomxFileEntry> entries;
+  private final Map<String, GedcomxFileEntry> entriesByName;
+  private volatile boolean closed = false;
+
+  /**
+   * Opens a GEDCOM X file for reading.
+   *
+   * @param file the file to be read
+   * @param deserializer the deserializer for the resources
+   * @throws IOException if an I/O error has occurred or the file isn't a valid GEDCOM X file
+   */
+  public MappedGedcomxFile(File file, GedcomxEntryDeserializer deserializer) throws IOException {
+    this(file, deserializer, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Opens a GEDCOM X file for reading, mapping it only if it is no larger than the given size.
+   *
+   * @param file the file to be read
+   * @param deserializer the deserializer for the resources
+   * @param mapLimit the largest file that is mapped; larger files are read with positional reads
+   * @throws IOException if an I/O error has occurred or the file isn't a valid GEDCOM X file
+   */
+  MappedGedcomxFile(File file, GedcomxEntryDeserializer deserializer, long mapLimit) throws IOException {
+    this.deserializer = deserializer;
+    this.channel = new RandomAccessFile(file, "r").getChannel();
+    try {
+      long size = this.channel.size();
+      this.mapped = size <= Math.min(mapLimit, Integer.MAX_VALUE) ? this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN) : null;
+
+      List<IndexedEntry> indexed = readCentralDirectory(size);
+      IndexedEntry manifestEntry = null;
+      for (IndexedEntry entry : indexed) {
+        if (JarFile.MANIFEST_NAME.equals(entry.getName())) {
+          manifestEntry = entry;
+        }
+      }
+
+      this.manifest = new Manifest();
+      if (manifestEntry != null) {
+        InputStream in = getInputStream(manifestEntry);
+        try {
+          this.manifest.read(in);
+        }
+        finally {
+          in.close();
+        }
+      }
+
+      Map<String, String> attributes = new HashMap<String, String>();
+      for (Map.Entry<Object, Object> entry : this.manifest.getMainAttributes().entrySet()) {
+        attributes.put(entry.getKey().toString(), (String) entry.getValue());
+      }
+      this.attributes = Collections.unmodifiableMap(attributes);
+
+      List<GedcomxFileEntry> entries = new ArrayList<GedcomxFileEntry>(indexed.size());
+      Map<String, GedcomxFileEntry> entriesByName = new HashMap<String, GedcomxFileEntry>(indexed.size() * 4 / 3 + 1);
+      for (IndexedEntry entry : indexed) {
+        if (entry != manifestEntry && !entry.isDirectory()) {
+          entry.attributes = this.manifest.getAttributes(entry.getName());
+          GedcomxFileEntry gedxEntry = new GedcomxFileEntry(entry);
+          entries.add(gedxEntry);
+          entriesByName.put(entry.getName(), gedxEntry);
+        }
+      }
+      this.entries = Collections.unmodifiableList(entries);
+      this.entriesByName = entriesByName;
+    }
+    catch (IOException e) {
+      this.channel.close();
+      throw e;
+    }
+    catch (RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a GEDCOM X file for reading.
+   *
+   * @param file the file to be read
+   * @param classes the classes to use for serialization
+   * @throws IOException if an I/O error has occurred or the file isn't a valid GEDCOM X file
+   */
+  public MappedGedcomxFile(File file, Class<?>... classes) throws IOException {
+    this(file, new JacksonJsonSerialization(classes));
+  }
+
+  private List<IndexedEntry> readCentralDirectory(long size) throws IOException {
+    // the end record is at the end of the file, followed by a comment of up to 65535 bytes
+    int tailLength = (int) Math.min(size, 22 + 0xFFFF);
+    ByteBuffer tail = read(size - tailLength, tailLength);
+    int end = -1;
+    for (int pos = tailLength - 22; pos >= 0; pos--) {
+      if (tail.getInt(pos) == END) {
+        end = pos;
+        break;
+      }
+    }
+    if (end < 0) {
+      throw new IOException("Not a GEDCOM X file: no ZIP central directory found.");
+    }
+
+    long count = tail.getShort(end + 10) & 0xFFFF;
+    long directorySize = tail.getInt(end + 12) & ZIP64_MAGIC;
+    long directoryOffset = tail.getInt(end + 16) & ZIP64_MAGIC;
+    if ((count == 0xFFFF || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) && end >= 20 && tail.getInt(end - 20) == ZIP64_LOCATOR) {
+      ByteBuffer zip64End = read(tail.getLong(end - 12), 56);
+      if (zip64End.getInt(0) != ZIP64_END) {
+        throw new IOException("Not a GEDCOM X file: invalid ZIP64 end of central directory.");
+      }
+      count = zip64End.getLong(32);
+      directorySize = zip64End.getLong(40);
+      directoryOffset = zip64End.getLong(48);
+    }
+    if (directorySize > Integer.MAX_VALUE || count > directorySize / 46) {
+      throw new IOException("Not a GEDCOM X file: invalid ZIP central directory.");
+    }
+
+    ByteBuffer directory = read(directoryOffset, (int) directorySize);
+    List<IndexedEntry> entries = new ArrayList<IndexedEntry>((int) count);
+    int pos = 0;
+    for (long i = 0; i < count; i++) {
+      if (directory.getInt(pos) != CENTRAL_HEADER) {
+        throw new IOException("Not a GEDCOM X file: invalid ZIP central directory entry.");
+      }
+      int method = directory.getShort(pos + 10) & 0xFFFF;
+      long crc = directory.getInt(pos + 16) & ZIP64_MAGIC;
+      long compressedSize = directory.getInt(pos + 20) & ZIP64_MAGIC;
+      long uncompressedSize = directory.getInt(pos + 24) & ZIP64_MAGIC;
+      int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+      int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+      int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+      long offset = directory.getInt(pos + 42) & ZIP64_MAGIC;
+
+      byte[] name = new byte[nameLength];
+      ByteBuffer view = directory.duplicate();
+      view.position(pos + 46);
+      view.get(name);
+
+      // the ZIP64 extra field holds, in order, whichever of these are too big for the header
+      int extra = pos + 46 + nameLength;
+      int extraEnd = extra + extraLength;
+      while (extra + 4 <= extraEnd) {
+        int id = directory.getShort(extra) & 0xFFFF;
+        int length = directory.getShort(extra + 2) & 0xFFFF;
+        if (id == 1) {
+          int field = extra + 4;
+          if (uncompressedSize == ZIP64_MAGIC) {
+            uncompressedSize = directory.getLong(field);
+            field += 8;
+          }
+          if (compressedSize == ZIP64_MAGIC) {
+            compressedSize = directory.getLong(field);
+            field += 8;
+          }
+          if (offset == ZIP64_MAGIC) {
+            offset = directory.getLong(field);
+          }
+        }
+        extra += 4 + length;
+      }
+
+      IndexedEntry entry = new IndexedEntry(new String(name, StandardCharsets.UTF_8), offset);
+      entry.setMethod(method);
+      entry.setCrc(crc);
+      entry.setCompressedSize(compressedSize);
+      entry.setSize(uncompressedSize);
+      entries.add(entry);
+      pos = extraEnd + commentLength;
+    }
+    return entries;
+  }
+
+  /**
+   * A view of a region of the file. Mapped regions share the mapping; the others are read into a new buffer.
+   */
+  private ByteBuffer read(long offset, int length) throws IOException {
+    if (this.mapped != null) {
+      if (offset < 0 || offset + length > this.mapped.capacity()) {
+        throw new EOFException("Region beyond the end of the file.");
+      }
+      ByteBuffer view = this.mapped.duplicate();
+      view.position((int) offset);
+      view.limit((int) offset + length);
+      return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (this.channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException("Region beyond the end of the file.");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private InputStream getInputStream(IndexedEntry entry) throws IOException {
+    if (this.closed) {
+      throw new IOException("GEDCOM X file is closed.");
+    }
+    if (entry.getCompressedSize() > Integer.MAX_VALUE) {
+      throw new IOException("Entry " + entry.getName() + " is too large to read.");
+    }
+
+    // the local header can have a different extra field than the central directory
+    ByteBuffer header = read(entry.offset, 30);
+    if (header.getInt(0) != LOCAL_HEADER) {
+      throw new IOException("Invalid local header for entry " + entry.getName() + ".");
+    }
+    long dataOffset = entry.offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    InputStream data = new ByteBufferInputStream(read(dataOffset, (int) entry.getCompressedSize()));
+
+    switch (entry.getMethod()) {
+      case ZipEntry.STORED:
+        return data;
+      case ZipEntry.DEFLATED:
+        return new EntryInflaterInputStream(data, (int) Math.max(1024, Math.min(entry.getSize(), 8192)));
+      default:
+        throw new IOException("Unsupported compression method " + entry.getMethod() + " for entry " + entry.getName() + ".");
+    }
+  }
+
+  /**
+   * Get the value of the specified attribute for this GEDCOM X file.
+   *
+   * @param name The attribute name.
+   * @return The attribute value.
+   */
+  public String getAttribute(String name) {
+    return this.manifest.getMainAttributes().getValue(name);
+  }
+
+  /**
+   * Get the attributes that have been associated with this GEDCOM X file.
+   *
+   * @return The attributes.
+   */
+  public Map<String, String> getAttributes() {
+    return this.attributes;
+  }
+
+  /**
+   * Get the manifest.
+   *
+   * @return The manifest.
+   */
+  public Manifest getManifest() {
+    return this.manifest;
+  }
+
+  /**
+   * Get the entries found in this GEDCOM X file, in the order they appear in the file.
+   *
+   * @return The GEDCOM X file entries.
+   */
+  public List<GedcomxFileEntry> getEntries() {
+    return this.entries;
+  }
+
+  /**
+   * Create a stream of the entries found in this GEDCOM X file. The stream splits evenly, so it can be made parallel.
+   *
+   * @return a stream of the GEDCOM X file entries.
+   */
+  public Stream<GedcomxFileEntry> entries() {
+    return this.entries.stream();
+  }
+
+  /**
+   * Get the entry with the given name.
+   *
+   * @param name The name of the entry.
+   * @return The entry, or null if there is no such entry.
+   */
+  public GedcomxFileEntry getEntry(String name) {
+    return this.entriesByName.get(name);
+  }
+
+  /**
+   * Get the input stream of the resource in the given entry.
+   *
+   * @param gedxEntry The entry that contains the desired resource.
+   * @return The input stream that constitutes the nature of the resource.
+   * @throws IOException if an I/O error has occurred
+   */
+  public InputStream getResourceStream(GedcomxFileEntry gedxEntry) throws IOException {
+    if (!(gedxEntry.getJarEntry() instanceof IndexedEntry) || getEntry(gedxEntry.getJarEntry().getName()) != gedxEntry) {
+      throw new IllegalArgumentException("Entry " + gedxEntry.getJarEntry().getName() + " is not from this file.");
+    }
+    return getInputStream((IndexedEntry) gedxEntry.getJarEntry());
+  }
+
+  /**
+   * Unmarshal the resource contained in the given entry as an object.
+   *
+   * @param gedxEntry The entry that contains the desired resource.
+   * @return The resource.
+   *
+   * @throws IOException If there was a problem unmarshalling the resource.
+   */
+  public Object readResource(GedcomxFileEntry gedxEntry) throws IOException {
+    return this.deserializer.deserialize(getResourceStream(gedxEntry), gedxEntry.getContentType());
+  }
+
+  /**
+   * Closes the GEDCOM X file. The mapping itself is released when it is garbage collected.
+   *
+   * @throws IOException if an I/O error has occurred
+   */
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    this.channel.close();
+  }
+
+  /**
+   * An entry of the central directory, with the manifest attributes of the entry.
+   */
+  private static class IndexedEntry extends JarEntry {
+
+    private final long offset;
+    private Attributes attributes;
+
+    private IndexedEntry(String name, long offset) {
+      super(name);
+      this.offset = offset;
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return this.attributes;
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, this.buffer.remaining());
+      this.buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public long skip(long n) {
+      int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+      this.buffer.position(this.buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return this.buffer.remaining();
+    }
+  }
+
+  private static class EntryInflaterInputStream extends InflaterInputStream {
+
+    private boolean eof = false;
+    private boolean closed = false;
+
+    private EntryInflaterInputStream(InputStream in, int size) {
+      super(in, new Inflater(true), size);
+    }
+
+    @Override
+    protected void fill() throws IOException {
+      if (this.eof) {
+        throw new EOFException("Unexpected end of ZLIB input stream");
+      }
+      this.len = this.in.read(this.buf, 0, this.buf.length);
+      if (this.len == -1) {
+        // a raw inflater may need one byte past the end of the data, as in java.util.zip.ZipFile
+        this.buf[0] = 0;
+        this.len = 1;
+        this.eof = true;
+      }
+      this.inf.setInput(this.buf, 0, this.len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!this.closed) {
+        this.closed = true;
+        this.inf.end();
+        super.close();
+      }
+    }
+  }
+}
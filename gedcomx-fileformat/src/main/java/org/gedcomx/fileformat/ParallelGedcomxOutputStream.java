@@ -0,0 +1,281 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.fileformat;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.GedcomxConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+
+/**
+ * Class to help in writing a GEDCOM X file, serializing and compressing the resources on an executor.
+ *
+ * Resources are added the same way as to a {@link GedcomxOutputStream}, and the entries are written to the file in
+ * the order they were added. Each resource is serialized and deflated by a task on the executor, and the calling
+ * thread only appends the finished entries to the file, so building a file with many resources uses as many cores
+ * as the executor has threads. The serializer must be thread-safe; the ones in this package are.
+ *
+ * Resources that have been added are serialized later, so they must not be modified until the stream is closed.
+ */
+public class ParallelGedcomxOutputStream {
+
+  private final GedcomxEntrySerializer serializer;
+  private final Executor executor;
+  private final OutputStream out;
+  private final DeflatedZipWriter writer;
+  private final Manifest mf;
+  private final Deque<FutureTask<DeflatedZipWriter.DeflatedEntry>> pending = new ArrayDeque<FutureTask<DeflatedZipWriter.DeflatedEntry>>();
+  private int maxPendingEntries = Runtime.getRuntime().availableProcessors() * 4;
+  private int entryCount = 0;
+
+  public ParallelGedcomxOutputStream(OutputStream gedxOutputStream, GedcomxEntrySerializer serializer, Executor executor) {
+    this.serializer = serializer;
+    this.executor = executor;
+    this.out = gedxOutputStream;
+    this.writer = new DeflatedZipWriter(gedxOutputStream);
+    this.mf = new Manifest();
+    this.mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+  }
+
+  /**
+   * Constructs a GEDCOM X output stream that writes the resources as JSON.
+   *
+   * @param gedxOutputStream an output stream to which the GEDCOM X resources will appended
+   * @param executor the executor to serialize and compress the resources on
+   * @param classes classes representing resources that will be serialized into the GEDCOM X output stream
+   */
+  public ParallelGedcomxOutputStream(OutputStream gedxOutputStream, Executor executor, Class<?>... classes) {
+    this(gedxOutputStream, new JacksonJsonSerialization(classes), executor);
+  }
+
+  /**
+   * The maximum number of entries that may be waiting to be serialized or written before adding a resource blocks
+   * until the oldest one is written. This bounds the memory held by finished entries that can't be written yet
+   * because an earlier one is still being serialized.
+   *
+   * @return The maximum number of pending entries.
+   */
+  public int getMaxPendingEntries() {
+    return maxPendingEntries;
+  }
+
+  /**
+   * The maximum number of entries that may be waiting to be serialized or written before adding a resource blocks
+   * until the oldest one is written.
+   *
+   * @param maxPendingEntries The maximum number of pending entries.
+   */
+  public void setMaxPendingEntries(int maxPendingEntries) {
+    if (maxPendingEntries < 1) {
+      throw new IllegalArgumentException("maxPendingEntries must be positive.");
+    }
+    this.maxPendingEntries = maxPendingEntries;
+  }
+
+  /**
+   * Add an attribute to the GEDCOM X output stream.
+   *
+   * @param name The name of the attribute.
+   * @param value The value of the attribute.
+   */
+  public void addAttribute(String name, String value) {
+    this.mf.getMainAttributes().putValue(name, value);
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream.
+   *
+   * @param resource The resource.
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(Gedcomx resource) throws IOException {
+    addResource(resource, new Date());
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream.
+   *
+   * @param resource The resource.
+   * @param lastModified timestamp when the resource was last modified (can be null)
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(Gedcomx resource, Date lastModified) throws IOException {
+    addResource(GedcomxOutputStream.defaultEntryName(this.entryCount, this.serializer), resource, lastModified);
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream.
+   *
+   * @param entryName The name by which this resource shall be known within the GEDCOM X file.
+   * @param resource The resource.
+   * @param lastModified timestamp when the resource was last modified (can be null)
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(String entryName, Gedcomx resource, Date lastModified) throws IOException {
+    addResource(GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE, entryName, resource, lastModified, null);
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream.
+   *
+   * @param contentType The content type of the resource.
+   * @param entryName The name by which this resource shall be known within the GEDCOM X file.
+   * @param resource The resource.
+   * @param lastModified timestamp when the resource was last modified (can be null)
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(String contentType, String entryName, Object resource, Date lastModified) throws IOException {
+    addResource(contentType, entryName, resource, lastModified, null);
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream.
+   *
+   * @param contentType The content type of the resource.
+   * @param entryName The name by which this resource shall be known within the GEDCOM X file.
+   * @param resource The resource.
+   * @param lastModified timestamp when the resource was last modified (can be null)
+   * @param attributes The attributes of the resource.
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(String contentType, String entryName, final Object resource, Date lastModified, Map<String, String> attributes) throws IOException {
+    final String name = GedcomxOutputStream.addManifestEntry(this.mf, contentType, entryName, lastModified, attributes);
+    submit(new Callable<DeflatedZipWriter.DeflatedEntry>() {
+      @Override
+      public DeflatedZipWriter.DeflatedEntry call() throws Exception {
+        DeflatedZipWriter.EntryOutputStream entry = new DeflatedZipWriter.EntryOutputStream(name);
+        serializer.serialize(resource, entry);
+        return entry.toEntry();
+      }
+    });
+  }
+
+  /**
+   * Add a resource to the GEDCOM X output stream. The resource is read before this method returns and compressed on
+   * the executor.
+   *
+   * @param contentType The content type of the resource.
+   * @param entryName The name by which this resource shall be known within the GEDCOM X file.
+   * @param resource The resource.
+   * @param lastModified timestamp when the resource was last modified (can be null)
+   * @param attributes The attributes of the resource.
+   * @throws IOException if an I/O error has occurred
+   */
+  public void addResource(String contentType, String entryName, InputStream resource, Date lastModified, Map<String, String> attributes) throws IOException {
+    final String name = GedcomxOutputStream.addManifestEntry(this.mf, contentType, entryName, lastModified, attributes);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int len = resource.read(buffer);
+    while (len >= 0) {
+      bytes.write(buffer, 0, len);
+      len = resource.read(buffer);
+    }
+
+    submit(new Callable<DeflatedZipWriter.DeflatedEntry>() {
+      @Override
+      public DeflatedZipWriter.DeflatedEntry call() throws Exception {
+        DeflatedZipWriter.EntryOutputStream entry = new DeflatedZipWriter.EntryOutputStream(name);
+        bytes.writeTo(entry);
+        return entry.toEntry();
+      }
+    });
+  }
+
+  private void submit(Callable<DeflatedZipWriter.DeflatedEntry> task) throws IOException {
+    FutureTask<DeflatedZipWriter.DeflatedEntry> future = new FutureTask<DeflatedZipWriter.DeflatedEntry>(task);
+    try {
+      this.executor.execute(future);
+    }
+    catch (RejectedExecutionException e) {
+      future.run();
+    }
+    this.pending.addLast(future);
+    this.entryCount++;
+
+    // write whatever is done, and wait for the oldest entries if too many are outstanding.
+    while (!this.pending.isEmpty() && (this.pending.peekFirst().isDone() || this.pending.size() > this.maxPendingEntries)) {
+      writeNext();
+    }
+  }
+
+  private void writeNext() throws IOException {
+    FutureTask<DeflatedZipWriter.DeflatedEntry> next = this.pending.removeFirst();
+    DeflatedZipWriter.DeflatedEntry entry;
+    try {
+      entry = next.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+    this.writer.write(entry);
+  }
+
+  /**
+   * Waits for the remaining entries, writes them and the manifest, and closes the GEDCOM X output stream as well as
+   * the stream being filtered.
+   *
+   * @throws IOException if an I/O error has occurred
+   */
+  public void close() throws IOException {
+    try {
+      while (!this.pending.isEmpty()) {
+        writeNext();
+      }
+
+      DeflatedZipWriter.EntryOutputStream manifest = new DeflatedZipWriter.EntryOutputStream(JarFile.MANIFEST_NAME);
+      this.mf.write(manifest);
+      this.writer.write(manifest.toEntry());
+      this.writer.finish();
+    }
+    finally {
+      for (FutureTask<DeflatedZipWriter.DeflatedEntry> task : this.pending) {
+        task.cancel(true);
+      }
+      this.pending.clear();
+      this.out.close();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.fileformat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A small least-recently-used cache for the contexts and mappers shared between serialization instances. It holds at
+ * most a fixed number of entries, so an application that keeps creating serializations for new sets of classes (or
+ * for classes from class loaders that are later discarded) doesn't keep all of them alive.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ */
+final class SerializationCache<K, V> {
+
+  private final Map<K, V> entries;
+
+  SerializationCache(final int maximumSize) {
+    this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maximumSize;
+      }
+    };
+  }
+
+  /**
+   * The value for the given key.
+   *
+   * @param key The key.
+   * @return The value, or null if there is none.
+   */
+  synchronized V get(K key) {
+    return this.entries.get(key);
+  }
+
+  /**
+   * Cache the given value unless there already is one for the key.
+   *
+   * @param key The key.
+   * @param value The value.
+   * @return The value now cached for the key.
+   */
+  synchronized V putIfAbsent(K key, V value) {
+    V existing = this.entries.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    this.entries.put(key, value);
+    return value;
+  }
+
+  synchronized int size() {
+    return this.entries.size();
+  }
+}
@@ -23,13 +23,28 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 
@@ -99,6 +114,219 @@ public class GedcomxFileWriteReadTest {
     }
   }
 
+  @Test
+  public void testParallelWriteRead() throws Exception {
+    File tempFile = File.createTempFile("FsTestTmp", ".gedx");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Gedcomx bundle = ExampleGedcomxFileData.create();
+
+      ParallelGedcomxOutputStream gedxOutputStream = new ParallelGedcomxOutputStream(new FileOutputStream(tempFile), executor);
+      gedxOutputStream.setMaxPendingEntries(8);
+      try {
+        gedxOutputStream.addAttribute("Created-By", "FamilySearch Platform API 0.1");
+        for (int i = 0; i < 100; i++) {
+          gedxOutputStream.addResource(bundle);
+        }
+        gedxOutputStream.addResource("image/png", "person1.png", getClass().getResourceAsStream("/person1.png"), new Date(), null);
+      }
+      finally {
+        gedxOutputStream.close();
+      }
+
+      GedcomxFile gedxFile = new GedcomxFile(new JarFile(tempFile));
+      try {
+        assertEquals("FamilySearch Platform API 0.1", gedxFile.getAttribute("Created-By"));
+        List<String> names = new ArrayList<String>();
+        for (GedcomxFileEntry gedxEntry : gedxFile.getEntries()) {
+          String name = gedxEntry.getJarEntry().getName();
+          names.add(name);
+          if (name.endsWith(".json")) {
+            assertEquals(GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE, gedxEntry.getContentType());
+            ExampleGedcomxFileData.assertContains((Gedcomx) gedxFile.readResource(gedxEntry), bundle);
+          }
+          else {
+            assertEquals("image/png", gedxEntry.getContentType());
+          }
+        }
+        assertEquals(101, names.size());
+        assertEquals("tree.json", names.get(0));
+        assertEquals("tree99.json", names.get(99));
+        assertEquals("person1.png", names.get(100));
+      }
+      finally {
+        gedxFile.close();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      tempFile.delete();
+    }
+  }
+
+  @Test
+  public void testMappedRead() throws Exception {
+    assertMappedRead(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testPositionalRead() throws Exception {
+    // files over 2GB can't be mapped; a limit of zero takes the same path for a small file
+    assertMappedRead(0);
+  }
+
+  private void assertMappedRead(long mapLimit) throws Exception {
+    File tempFile = File.createTempFile("FsTestTmp", ".gedx");
+    try {
+      Gedcomx bundle = ExampleGedcomxFileData.create();
+
+      GedcomxOutputStream gedxOutputStream = new GedcomxOutputStream(new FileOutputStream(tempFile));
+      try {
+        gedxOutputStream.addAttribute("Created-By", "FamilySearch Platform API 0.1");
+        for (int i = 0; i < 20; i++) {
+          gedxOutputStream.addResource(bundle);
+        }
+        gedxOutputStream.addResource("image/png", "person1.png", getClass().getResourceAsStream("/person1.png"), new Date(), null);
+      }
+      finally {
+        gedxOutputStream.close();
+      }
+
+      final MappedGedcomxFile gedxFile = new MappedGedcomxFile(tempFile, new JacksonJsonSerialization(), mapLimit);
+      try {
+        assertEquals("FamilySearch Platform API 0.1", gedxFile.getAttribute("Created-By"));
+        assertEquals(21, gedxFile.getEntries().size());
+        assertEquals("tree.json", gedxFile.getEntries().get(0).getJarEntry().getName());
+        assertEquals("image/png", gedxFile.getEntry("person1.png").getContentType());
+        assertNull(gedxFile.getEntry(JarFile.MANIFEST_NAME));
+
+        List<Gedcomx> resources = gedxFile.entries()
+          .parallel()
+          .filter(gedxEntry -> {
+            try {
+              return GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE.equals(gedxEntry.getContentType());
+            }
+            catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .map(gedxEntry -> {
+            try {
+              return (Gedcomx) gedxFile.readResource(gedxEntry);
+            }
+            catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .collect(Collectors.toList());
+        assertEquals(20, resources.size());
+        for (Gedcomx resource : resources) {
+          ExampleGedcomxFileData.assertContains(resource, bundle);
+        }
+      }
+      finally {
+        gedxFile.close();
+      }
+    }
+    finally {
+      tempFile.delete();
+    }
+  }
+
+  @Test
+  public void testZip64Read() throws Exception {
+    byte[] data = "ZIP64 entry data".getBytes(StandardCharsets.UTF_8);
+    File tempFile = File.createTempFile("FsTestTmp", ".gedx");
+    try {
+      FileOutputStream out = new FileOutputStream(tempFile);
+      try {
+        out.write(createZip64Archive("person1.txt", data));
+      }
+      finally {
+        out.close();
+      }
+
+      // the JDK's reader is the reference for what the archive holds
+      ZipFile zipFile = new ZipFile(tempFile);
+      try {
+        assertEquals(data.length, zipFile.getEntry("person1.txt").getSize());
+      }
+      finally {
+        zipFile.close();
+      }
+
+      for (long mapLimit : new long[] {Integer.MAX_VALUE, 0}) {
+        MappedGedcomxFile gedxFile = new MappedGedcomxFile(tempFile, new JacksonJsonSerialization(), mapLimit);
+        try {
+          assertEquals(1, gedxFile.getEntries().size());
+          GedcomxFileEntry gedxEntry = gedxFile.getEntry("person1.txt");
+          assertEquals(data.length, gedxEntry.getJarEntry().getSize());
+          assertEquals(data.length, gedxEntry.getJarEntry().getCompressedSize());
+          InputStream in = gedxFile.getResourceStream(gedxEntry);
+          try {
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+              read.write(buffer, 0, len);
+            }
+            assertArrayEquals(data, read.toByteArray());
+          }
+          finally {
+            in.close();
+          }
+        }
+        finally {
+          gedxFile.close();
+        }
+      }
+    }
+    finally {
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * A single stored entry whose sizes and offset are all in the ZIP64 extra field, with a ZIP64 end of central
+   * directory record, as written for archives over 4GB or with more than 65535 entries.
+   */
+  private static byte[] createZip64Archive(String name, byte[] data) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    int localLength = 30 + nameBytes.length + 20;
+    int centralLength = 46 + nameBytes.length + 28;
+    long centralOffset = localLength + data.length;
+    long zip64EndOffset = centralOffset + centralLength;
+    ByteBuffer zip = ByteBuffer.allocate((int) zip64EndOffset + 56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+
+    // local header
+    zip.putInt(0x04034b50).putShort((short) 45).putShort((short) 0).putShort((short) ZipEntry.STORED);
+    zip.putShort((short) 0).putShort((short) 0).putInt((int) crc.getValue());
+    zip.putInt(0xFFFFFFFF).putInt(0xFFFFFFFF).putShort((short) nameBytes.length).putShort((short) 20);
+    zip.put(nameBytes);
+    zip.putShort((short) 1).putShort((short) 16).putLong(data.length).putLong(data.length);
+    zip.put(data);
+
+    // central directory header
+    zip.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort((short) ZipEntry.STORED);
+    zip.putShort((short) 0).putShort((short) 0).putInt((int) crc.getValue());
+    zip.putInt(0xFFFFFFFF).putInt(0xFFFFFFFF).putShort((short) nameBytes.length).putShort((short) 28);
+    zip.putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0).putInt(0xFFFFFFFF);
+    zip.put(nameBytes);
+    zip.putShort((short) 1).putShort((short) 24).putLong(data.length).putLong(data.length).putLong(0);
+
+    // ZIP64 end of central directory record and locator
+    zip.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+    zip.putLong(1).putLong(1).putLong(centralLength).putLong(centralOffset);
+    zip.putInt(0x07064b50).putInt(0).putLong(zip64EndOffset).putInt(1);
+
+    // end of central directory record, deferring everything to the ZIP64 record
+    zip.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 0xFFFF).putShort((short) 0xFFFF);
+    zip.putInt(0xFFFFFFFF).putInt(0xFFFFFFFF).putShort((short) 0);
+    return zip.array();
+  }
+
   @Test ( expected = NullPointerException.class )
   public void testGedcomxFileEntryNullPointerException() {
     new GedcomxFileEntry(null);
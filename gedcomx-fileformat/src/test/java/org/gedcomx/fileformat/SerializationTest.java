@@ -0,0 +1,113 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.fileformat;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.GedcomxConstants;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class SerializationTest {
+
+  @Test
+  public void testJsonConcurrentRoundTrips() throws Exception {
+    JacksonJsonSerialization serialization = new JacksonJsonSerialization();
+    assertConcurrentRoundTrips(serialization, serialization, GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE);
+  }
+
+  @Test
+  public void testXmlConcurrentRoundTrips() throws Exception {
+    JaxbXmlSerialization serialization = new JaxbXmlSerialization();
+    assertConcurrentRoundTrips(serialization, serialization, GedcomxConstants.GEDCOMX_XML_MEDIA_TYPE);
+    assertTrue(serialization.marshallers.size() <= JaxbXmlSerialization.MAX_POOLED);
+    assertTrue(serialization.unmarshallers.size() <= JaxbXmlSerialization.MAX_POOLED);
+  }
+
+  @Test
+  public void testMappersAreSharedPerOptions() {
+    assertSame(JacksonJsonSerialization.getObjectMapper(true, Gedcomx.class), JacksonJsonSerialization.getObjectMapper(true, Gedcomx.class));
+    assertNotSame(JacksonJsonSerialization.getObjectMapper(true, Gedcomx.class), JacksonJsonSerialization.getObjectMapper(false, Gedcomx.class));
+  }
+
+  @Test
+  public void testSharedCacheIsBounded() {
+    SerializationCache<String, String> cache = new SerializationCache<String, String>(2);
+    assertEquals("a", cache.putIfAbsent("a", "a"));
+    assertEquals("a", cache.putIfAbsent("a", "other"));
+    cache.putIfAbsent("b", "b");
+    //"a" is the most recently used, so "b" goes.
+    cache.get("a");
+    cache.putIfAbsent("c", "c");
+    assertEquals(2, cache.size());
+    assertEquals("a", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("c", cache.get("c"));
+  }
+
+  @Test
+  public void testSerializeLeavesStreamOpen() throws Exception {
+    final List<String> closed = new ArrayList<String>();
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed.add("closed");
+      }
+    };
+    new JacksonJsonSerialization().serialize(ExampleGedcomxFileData.create(), out);
+    assertTrue(out.size() > 0);
+    assertTrue(closed.isEmpty());
+  }
+
+  private void assertConcurrentRoundTrips(final GedcomxEntrySerializer serializer, final GedcomxEntryDeserializer deserializer, final String mediaType) throws Exception {
+    final Gedcomx bundle = ExampleGedcomxFileData.create();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Gedcomx>> results = new ArrayList<Future<Gedcomx>>();
+      for (int i = 0; i < 64; i++) {
+        results.add(executor.submit(new Callable<Gedcomx>() {
+          @Override
+          public Gedcomx call() throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            serializer.serialize(bundle, out);
+            return (Gedcomx) deserializer.deserialize(new ByteArrayInputStream(out.toByteArray()), mediaType);
+          }
+        }));
+      }
+
+      for (Future<Gedcomx> result : results) {
+        ExampleGedcomxFileData.assertContains(result.get(), bundle);
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+}
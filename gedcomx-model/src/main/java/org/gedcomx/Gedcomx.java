@@ -21,6 +21,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.webcohesion.enunciate.metadata.Facet;
 import org.gedcomx.agent.Agent;
 import org.gedcomx.common.Attribution;
+import org.gedcomx.common.ExtensibleData;
 import org.gedcomx.common.ResourceReference;
 import org.gedcomx.common.URI;
 import org.gedcomx.conclusion.*;
@@ -46,8 +47,14 @@ import javax.xml.bind.annotation.*;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -104,6 +111,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
   private List<Collection> collections;
   private List<Field> fields;
   private List<RecordDescriptor> recordDescriptors;
+  private GedcomxIndex index;
 
   /**
    * The language of this genealogical data set. See <a href="http://www.w3.org/International/articles/language-tags/">http://www.w3.org/International/articles/language-tags/</a>.
@@ -217,7 +225,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
    * @return The person, or null.
    */
   public Person findPerson(URI uri) {
-    return findSubject(this.persons, uri);
+    return this.index != null ? this.index.findPerson(uri) : findSubject(this.persons, uri);
   }
 
   /**
@@ -383,7 +391,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
    * @return The relationship, or null.
    */
   public Relationship findRelationship(URI uri) {
-    return findSubject(this.relationships, uri);
+    return this.index != null ? this.index.findRelationship(uri) : findSubject(this.relationships, uri);
   }
 
   /**
@@ -490,7 +498,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
    * @return The description, or null.
    */
   public SourceDescription findDescription(URI uri) {
-    return findElement(this.sourceDescriptions, uri);
+    return this.index != null ? this.index.findDescription(uri) : findElement(this.sourceDescriptions, uri);
   }
 
   /**
@@ -555,7 +563,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
    * @return The agent, or null.
    */
   public Agent findAgent(URI uri) {
-    return findElement(this.agents, uri);
+    return this.index != null ? this.index.findAgent(uri) : findElement(this.agents, uri);
   }
 
   /**
@@ -674,7 +682,7 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
    * @return The place, or null.
    */
   public PlaceDescription findPlace(URI uri) {
-    return findSubject(this.places, uri);
+    return this.index != null ? this.index.findPlace(uri) : findSubject(this.places, uri);
   }
 
   /**
@@ -958,6 +966,25 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
     }
   }
 
+  /**
+   * Build this out with a hash index of its persons, relationships, places, source descriptions and agents, so that
+   * the find methods take constant time on large documents.  The index is built lazily and kept up to date as
+   * elements are added or removed.  Calling this again discards the index built so far, e.g. after the ids of
+   * elements already in the document have been changed.
+   *
+   * @return this.
+   * @see GedcomxIndex
+   */
+  public Gedcomx indexed() {
+    if (this.index == null) {
+      this.index = new GedcomxIndex(this);
+    }
+    else {
+      this.index.invalidate();
+    }
+    return this;
+  }
+
   /**
    * Accept a visitor.
    *
@@ -967,244 +994,147 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
     visitor.visitGedcomx(this);
   }
 
+  /**
+   * Embed another document into this one.  Elements with the same id as an element already in this document are
+   * embedded into that element; other elements are added.  Links are added unless this document already has a
+   * link with the same rel.
+   *
+   * @param gedcomx The document to embed.
+   */
   public void embed(Gedcomx gedcomx) {
-    List<Link> links = gedcomx.getLinks();
-    if (links != null) {
-      for (Link link : links) {
-        boolean found = false;
-        if (link.getRel() != null) {
-          if (getLinks() != null) {
-            for (Link target : getLinks()) {
-              if (link.getRel().equals(target.getRel())) {
-                found = true;
-                break;
-              }
-            }
-          }
-        }
+    newEmbedder().embed(gedcomx);
+  }
 
-        if (!found) {
-          addLink(link);
-        }
-      }
+  /**
+   * Embed many documents into this one, in order.  The result is the same as calling {@link #embed(Gedcomx)} for
+   * each document, but the elements of this document are only indexed once for all of them.
+   *
+   * @param documents The documents to embed.
+   */
+  public void embedAll(Iterable<Gedcomx> documents) {
+    Embedder embedder = newEmbedder();
+    for (Gedcomx gedcomx : documents) {
+      embedder.embed(gedcomx);
     }
+  }
 
-    List<Person> persons = gedcomx.getPersons();
-    if (persons != null) {
-      for (Person person : persons) {
-        boolean found = false;
-        if (person.getId() != null) {
-          if (getPersons() != null) {
-            for (Person target : getPersons()) {
-              if (person.getId().equals(target.getId())) {
-                target.embed(person);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
-
-        if (!found) {
-          addPerson(person);
-        }
-      }
-    }
+  /**
+   * Create the embedder used by {@link #embed(Gedcomx)} and {@link #embedAll(Iterable)}.  Subclasses with lists
+   * of their own return a subclass of {@link Embedder} that also merges those lists.
+   *
+   * @return A new embedder for this document.
+   */
+  protected Embedder newEmbedder() {
+    return new Embedder();
+  }
 
-    List<Relationship> relationships = gedcomx.getRelationships();
-    if (relationships != null) {
-      for (Relationship relationship : relationships) {
-        boolean found = false;
-        if (relationship.getId() != null) {
-          if (getRelationships() != null) {
-            for (Relationship target : getRelationships()) {
-              if (relationship.getId().equals(target.getId())) {
-                target.embed(relationship);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
+  /**
+   * Embeds documents into this one, finding the element (if any) that each incoming element is to be embedded
+   * into with a hash lookup by id rather than a scan of the list.
+   */
+  protected class Embedder {
 
-        if (!found) {
-          addRelationship(relationship);
-        }
-      }
-    }
+    private final Set<String> linkRels = new HashSet<String>();
+    private final IdMerger<Person> persons = new IdMerger<Person>(getPersons(), Gedcomx.this::addPerson, (target, person) -> target.embed(person));
+    private final IdMerger<Relationship> relationships = new IdMerger<Relationship>(getRelationships(), Gedcomx.this::addRelationship, (target, relationship) -> target.embed(relationship));
+    private final IdMerger<SourceDescription> sourceDescriptions = new IdMerger<SourceDescription>(getSourceDescriptions(), Gedcomx.this::addSourceDescription, (target, sourceDescription) -> target.embed(sourceDescription));
+    private final IdMerger<Agent> agents = new IdMerger<Agent>(getAgents(), Gedcomx.this::addAgent, (target, agent) -> target.embed(agent));
+    private final IdMerger<Event> events = new IdMerger<Event>(getEvents(), Gedcomx.this::addEvent, (target, event) -> target.embed(event));
+    private final IdMerger<PlaceDescription> places = new IdMerger<PlaceDescription>(getPlaces(), Gedcomx.this::addPlace, (target, place) -> target.embed(place));
+    private final IdMerger<Document> documents = new IdMerger<Document>(getDocuments(), Gedcomx.this::addDocument, (target, document) -> target.embed(document));
+    private final IdMerger<Collection> collections = new IdMerger<Collection>(getCollections(), Gedcomx.this::addCollection, (target, collection) -> target.embed(collection));
+    private final IdMerger<Field> fields = new IdMerger<Field>(getFields(), Gedcomx.this::addField, (target, field) -> { });
+    private final IdMerger<RecordDescriptor> recordDescriptors = new IdMerger<RecordDescriptor>(getRecordDescriptors(), Gedcomx.this::addRecordDescriptor, (target, recordDescriptor) -> target.embed(recordDescriptor));
 
-    List<SourceDescription> sourceDescriptions = gedcomx.getSourceDescriptions();
-    if (sourceDescriptions != null) {
-      for (SourceDescription sourceDescription : sourceDescriptions) {
-        boolean found = false;
-        if (sourceDescription.getId() != null) {
-          if (getSourceDescriptions() != null) {
-            for (SourceDescription target : getSourceDescriptions()) {
-              if (sourceDescription.getId().equals(target.getId())) {
-                target.embed(sourceDescription);
-                found = true;
-                break;
-              }
-            }
+    protected Embedder() {
+      if (getLinks() != null) {
+        for (Link link : getLinks()) {
+          if (link.getRel() != null) {
+            this.linkRels.add(link.getRel());
           }
         }
-
-        if (!found) {
-          addSourceDescription(sourceDescription);
-        }
       }
     }
 
-    List<Agent> agents = gedcomx.getAgents();
-    if (agents != null) {
-      for (Agent agent : agents) {
-        boolean found = false;
-        if (agent.getId() != null) {
-          if (getAgents() != null) {
-            for (Agent target : getAgents()) {
-              if (agent.getId().equals(target.getId())) {
-                target.embed(agent);
-                found = true;
-                break;
-              }
+    /**
+     * Embed a document into this one.
+     *
+     * @param gedcomx The document to embed.
+     */
+    protected void embed(Gedcomx gedcomx) {
+      List<Link> links = gedcomx.getLinks();
+      if (links != null) {
+        for (Link link : links) {
+          if (link.getRel() == null || !this.linkRels.contains(link.getRel())) {
+            addLink(link);
+            if (link.getRel() != null) {
+              this.linkRels.add(link.getRel());
             }
           }
         }
-
-        if (!found) {
-          addAgent(agent);
-        }
       }
-    }
-
-    List<Event> events = gedcomx.getEvents();
-    if (events != null) {
-      for (Event event : events) {
-        boolean found = false;
-        if (event.getId() != null) {
-          if (getEvents() != null) {
-            for (Event target : getEvents()) {
-              if (event.getId().equals(target.getId())) {
-                target.embed(event);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
 
-        if (!found) {
-          addEvent(event);
-        }
-      }
-    }
-
-    List<PlaceDescription> placeDescriptions = gedcomx.getPlaces();
-    if (placeDescriptions != null) {
-      for (PlaceDescription placeDescription : placeDescriptions) {
-        boolean found = false;
-        if (placeDescription.getId() != null) {
-          if (getPlaces() != null) {
-            for (PlaceDescription target : getPlaces()) {
-              if (placeDescription.getId().equals(target.getId())) {
-                target.embed(placeDescription);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
-
-        if (!found) {
-          addPlace(placeDescription);
-        }
-      }
+      this.persons.merge(gedcomx.getPersons());
+      this.relationships.merge(gedcomx.getRelationships());
+      this.sourceDescriptions.merge(gedcomx.getSourceDescriptions());
+      this.agents.merge(gedcomx.getAgents());
+      this.events.merge(gedcomx.getEvents());
+      this.places.merge(gedcomx.getPlaces());
+      this.documents.merge(gedcomx.getDocuments());
+      this.collections.merge(gedcomx.getCollections());
+      this.fields.merge(gedcomx.getFields());
+      this.recordDescriptors.merge(gedcomx.getRecordDescriptors());
     }
+  }
 
-    List<Document> documents = gedcomx.getDocuments();
-    if (documents != null) {
-      for (Document document : documents) {
-        boolean found = false;
-        if (document.getId() != null) {
-          if (getDocuments() != null) {
-            for (Document target : getDocuments()) {
-              if (document.getId().equals(target.getId())) {
-                target.embed(document);
-                found = true;
-                break;
-              }
-            }
-          }
-        }
+  /**
+   * Merges incoming elements into a list by id: an element with the same id as one already in the list is merged
+   * into the first such element; any other element is added to the list.
+   *
+   * @param <E> The type of element.
+   */
+  protected static class IdMerger<E extends ExtensibleData> {
 
-        if (!found) {
-          addDocument(document);
-        }
-      }
-    }
+    private final Map<String, E> byId = new HashMap<String, E>();
+    private final Consumer<E> add;
+    private final BiConsumer<E, E> merge;
 
-    List<Collection> collections = gedcomx.getCollections();
-    if (collections != null) {
-      for (Collection collection : collections) {
-        boolean found = false;
-        if (collection.getId() != null) {
-          if (getCollections() != null) {
-            for (Collection target : getCollections()) {
-              if (collection.getId().equals(target.getId())) {
-                target.embed(collection);
-                found = true;
-                break;
-              }
-            }
+    /**
+     * @param existing The elements already in the list, possibly null.
+     * @param add How to add an element to the list.
+     * @param merge How to merge an incoming element (the second argument) into one already in the list.
+     */
+    public IdMerger(List<E> existing, Consumer<E> add, BiConsumer<E, E> merge) {
+      this.add = add;
+      this.merge = merge;
+      if (existing != null) {
+        for (E element : existing) {
+          if (element.getId() != null) {
+            this.byId.putIfAbsent(element.getId(), element);
           }
         }
-
-        if (!found) {
-          addCollection(collection);
-        }
       }
     }
 
-    List<Field> fields = gedcomx.getFields();
-    if (fields != null) {
-      for (Field field : fields) {
-        boolean found = false;
-        if (field.getId() != null) {
-          if (getFields() != null) {
-            for (Field target : getFields()) {
-              if (field.getId().equals(target.getId())) {
-                found = true;
-                break;
-              }
-            }
+    /**
+     * Merge the incoming elements into the list.
+     *
+     * @param incoming The incoming elements, possibly null.
+     */
+    public void merge(List<E> incoming) {
+      if (incoming != null) {
+        for (E element : incoming) {
+          E target = element.getId() == null ? null : this.byId.get(element.getId());
+          if (target != null) {
+            this.merge.accept(target, element);
           }
-        }
-
-        if (!found) {
-          addField(field);
-        }
-      }
-    }
-
-    List<RecordDescriptor> recordDescriptors = gedcomx.getRecordDescriptors();
-    if (recordDescriptors != null) {
-      for (RecordDescriptor recordDescriptor : recordDescriptors) {
-        boolean found = false;
-        if (recordDescriptor.getId() != null) {
-          if (getRecordDescriptors() != null) {
-            for (RecordDescriptor target : getRecordDescriptors()) {
-              if (recordDescriptor.getId().equals(target.getId())) {
-                target.embed(recordDescriptor);
-                found = true;
-                break;
-              }
+          else {
+            this.add.accept(element);
+            if (element.getId() != null) {
+              this.byId.putIfAbsent(element.getId(), element);
             }
           }
         }
-
-        if (!found) {
-          addRecordDescriptor(recordDescriptor);
-        }
       }
     }
   }
@@ -1290,42 +1220,60 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
   public Gedcomx fixLocalReferences() {
     List<Person> locals = getPersons() == null ? Collections.emptyList() : getPersons();
     List<Relationship> relationships = getRelationships() == null ? Collections.emptyList() : getRelationships();
-    List<SourceDescription> sds = getSourceDescriptions() == null ? Collections.emptyList() : getSourceDescriptions();
     List<PlaceDescription> placeDescriptions = getPlaces() == null ? Collections.emptyList() : getPlaces();
+    Set<String> localIds = localIds(locals);
+    Set<String> sdids = localIds(getSourceDescriptions());
 
     //make the references to other persons in the relationship local if they're in the same document.
     //also make the references to the sources in each source reference local if they're in the same document.
-    for (Person local : locals) {
-      String localId = local.getId();
-      if (localId != null) {
-        for (Relationship relationship : relationships) {
-          fixId(relationship.getPerson1(), localId);
-          fixId(relationship.getPerson2(), localId);
-          fixupSourceReferences(sds, relationship);
-        }
+    if (!localIds.isEmpty()) {
+      for (Relationship relationship : relationships) {
+        fixId(relationship.getPerson1(), localIds);
+        fixId(relationship.getPerson2(), localIds);
+        fixupSourceReferences(sdids, relationship);
       }
-      fixupSourceReferences(sds, local);
+    }
+    for (Person local : locals) {
+      fixupSourceReferences(sdids, local);
     }
 
+    //make the references to places that are described more than once in the document local.
+    Map<String, Integer> placeCounts = new HashMap<String, Integer>();
+    for (PlaceDescription placeDescription : placeDescriptions) {
+      if (placeDescription.getPlace() != null && placeDescription.getPlace().getResourceId() != null) {
+        placeCounts.merge(placeDescription.getPlace().getResourceId(), 1, Integer::sum);
+      }
+    }
     for (PlaceDescription placeDescription : placeDescriptions) {
       if (placeDescription.getPlace() != null) {
         String resourceId = placeDescription.getPlace().getResourceId();
-        if (resourceId != null) {
-          for (PlaceDescription checkDescription : placeDescriptions) {
-            if (placeDescription != checkDescription) {
-              if (checkDescription.getPlace() != null && resourceId.equals(checkDescription.getPlace().getResourceId())) {
-                org.gedcomx.common.URI uri = new org.gedcomx.common.URI("#" + placeDescription.getPlace().getResourceId());
-                placeDescription.setPlace(new ResourceReference(uri, placeDescription.getPlace().getResourceId()));
-                break;
-              }
-            }
-          }
+        if (resourceId != null && placeCounts.get(resourceId) > 1) {
+          org.gedcomx.common.URI uri = new org.gedcomx.common.URI("#" + resourceId);
+          placeDescription.setPlace(new ResourceReference(uri, resourceId));
         }
       }
     }
     return this;
   }
 
+  /**
+   * Get the set of (non-null) ids of the given elements.
+   *
+   * @param elements The elements, possibly null.
+   * @return The set of ids.
+   */
+  protected static Set<String> localIds(List<? extends ExtensibleData> elements) {
+    Set<String> ids = new HashSet<String>();
+    if (elements != null) {
+      for (ExtensibleData element : elements) {
+        if (element.getId() != null) {
+          ids.add(element.getId());
+        }
+      }
+    }
+    return ids;
+  }
+
   protected static void fixupSourceReferences(List<SourceDescription> sds, Subject local) {
     if (local.getSources() != null) {
       for (SourceReference sourceReference : local.getSources()) {
@@ -1341,12 +1289,29 @@ public class Gedcomx extends HypermediaEnabledData implements HasFields {
     }
   }
 
+  protected static void fixupSourceReferences(Set<String> sdids, Subject local) {
+    if (local.getSources() != null) {
+      for (SourceReference sourceReference : local.getSources()) {
+        String sdid = sourceReference.getDescriptionId();
+        if (sdid != null && sdids.contains(sdid)) {
+          sourceReference.setDescriptionRef(org.gedcomx.common.URI.create("#" + sdid));
+        }
+      }
+    }
+  }
+
   protected static void fixId(ResourceReference ref, String localId) {
     if (ref != null && localId.equals(ref.getResourceId())) {
       ref.setResource(org.gedcomx.common.URI.create("#" + localId));
     }
   }
 
+  protected static void fixId(ResourceReference ref, Set<String> localIds) {
+    if (ref != null && ref.getResourceId() != null && localIds.contains(ref.getResourceId())) {
+      ref.setResource(org.gedcomx.common.URI.create("#" + ref.getResourceId()));
+    }
+  }
+
   /**
    * Create a stream of all the subjects of this record.
    *
@@ -0,0 +1,225 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx;
+
+import org.gedcomx.agent.Agent;
+import org.gedcomx.common.URI;
+import org.gedcomx.conclusion.Identifier;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.Subject;
+import org.gedcomx.links.HypermediaEnabledData;
+import org.gedcomx.source.SourceDescription;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hash index of the persons, relationships, places, source descriptions and agents of a {@link Gedcomx} document
+ * by local id and (for subjects) by identifier, so that the document's find methods take constant time instead of
+ * scanning the lists.  Each list is indexed the first time it is searched, and is indexed again whenever it is
+ * replaced or its size changes.  The results are the same as those of {@link Gedcomx#findSubject(List, URI)} and
+ * {@link Gedcomx#findElement(List, URI)}.
+ *
+ * Changing the id or identifiers of an element that is already in the document without adding or removing any
+ * elements is not detected (although an entry found to be stale is dropped); call {@link #invalidate()} or
+ * {@link Gedcomx#indexed()} after doing so.
+ *
+ * @see Gedcomx#indexed()
+ */
+public class GedcomxIndex {
+
+  private final Gedcomx gedcomx;
+  private final ListIndex<Person> persons = new ListIndex<Person>(true);
+  private final ListIndex<Relationship> relationships = new ListIndex<Relationship>(true);
+  private final ListIndex<PlaceDescription> places = new ListIndex<PlaceDescription>(true);
+  private final ListIndex<SourceDescription> sourceDescriptions = new ListIndex<SourceDescription>(false);
+  private final ListIndex<Agent> agents = new ListIndex<Agent>(false);
+
+  public GedcomxIndex(Gedcomx gedcomx) {
+    this.gedcomx = gedcomx;
+  }
+
+  /**
+   * Find a person in the document by URI.
+   *
+   * @param uri the uri
+   * @return The person, or null.
+   */
+  public Person findPerson(URI uri) {
+    return persons.find(this.gedcomx.getPersons(), uri);
+  }
+
+  /**
+   * Find a relationship in the document by URI.
+   *
+   * @param uri the uri
+   * @return The relationship, or null.
+   */
+  public Relationship findRelationship(URI uri) {
+    return relationships.find(this.gedcomx.getRelationships(), uri);
+  }
+
+  /**
+   * Find a place in the document by URI.
+   *
+   * @param uri the uri
+   * @return The place, or null.
+   */
+  public PlaceDescription findPlace(URI uri) {
+    return places.find(this.gedcomx.getPlaces(), uri);
+  }
+
+  /**
+   * Find a description in the document by URI.
+   *
+   * @param uri the uri
+   * @return The description, or null.
+   */
+  public SourceDescription findDescription(URI uri) {
+    return sourceDescriptions.find(this.gedcomx.getSourceDescriptions(), uri);
+  }
+
+  /**
+   * Find an agent in the document by URI.
+   *
+   * @param uri the uri
+   * @return The agent, or null.
+   */
+  public Agent findAgent(URI uri) {
+    return agents.find(this.gedcomx.getAgents(), uri);
+  }
+
+  /**
+   * Discard the index so it is built again on the next search.
+   */
+  public void invalidate() {
+    persons.invalidate();
+    relationships.invalidate();
+    places.invalidate();
+    sourceDescriptions.invalidate();
+    agents.invalidate();
+  }
+
+  /**
+   * The index of a single list of the document.
+   *
+   * @param <E> The type of element in the list.
+   */
+  private static class ListIndex<E extends HypermediaEnabledData> {
+
+    private final boolean subjects;
+    private List<E> source;
+    private int size;
+    private Map<String, Position<E>> byId;
+    private Map<URI, Position<E>> byIdentifier;
+
+    ListIndex(boolean subjects) {
+      this.subjects = subjects;
+    }
+
+    synchronized E find(List<E> items, URI ref) {
+      if (items == null || ref == null) {
+        return null;
+      }
+
+      if (items != this.source || items.size() != this.size) {
+        build(items);
+      }
+
+      String value = ref.toString();
+      String id = value.startsWith("#") ? value.substring(1) : null;
+      Position<E> found = lookup(id, ref);
+      if (found != null && !matches(found.element, id, ref)) {
+        // an element was changed in place; index again and look once more.
+        build(items);
+        found = lookup(id, ref);
+      }
+      return found == null ? null : found.element;
+    }
+
+    private Position<E> lookup(String id, URI ref) {
+      Position<E> byId = id == null ? null : this.byId.get(id);
+      Position<E> byIdentifier = this.byIdentifier == null ? null : this.byIdentifier.get(ref);
+      if (byId == null) {
+        return byIdentifier;
+      }
+      else if (byIdentifier == null) {
+        return byId;
+      }
+
+      //the first element in the list that matches wins, as with a linear search.
+      return byId.index <= byIdentifier.index ? byId : byIdentifier;
+    }
+
+    private boolean matches(E element, String id, URI ref) {
+      if (id != null && id.equals(element.getId())) {
+        return true;
+      }
+
+      List<Identifier> identifiers = this.subjects ? ((Subject) element).getIdentifiers() : null;
+      if (identifiers != null) {
+        for (Identifier identifier : identifiers) {
+          if (ref.equals(identifier.getValue())) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private void build(List<E> items) {
+      this.byId = new HashMap<String, Position<E>>(items.size() * 2);
+      this.byIdentifier = this.subjects ? new HashMap<URI, Position<E>>(items.size() * 2) : null;
+      int index = 0;
+      for (E element : items) {
+        Position<E> position = new Position<E>(element, index++);
+        if (element.getId() != null) {
+          this.byId.putIfAbsent(element.getId(), position);
+        }
+
+        List<Identifier> identifiers = this.subjects ? ((Subject) element).getIdentifiers() : null;
+        if (identifiers != null) {
+          for (Identifier identifier : identifiers) {
+            if (identifier.getValue() != null) {
+              this.byIdentifier.putIfAbsent(identifier.getValue(), position);
+            }
+          }
+        }
+      }
+      this.source = items;
+      this.size = items.size();
+    }
+
+    synchronized void invalidate() {
+      this.source = null;
+      this.byId = null;
+      this.byIdentifier = null;
+    }
+  }
+
+  private static class Position<E> {
+    private final E element;
+    private final int index;
+
+    Position(E element, int index) {
+      this.element = element;
+      this.index = index;
+    }
+  }
+}
@@ -32,7 +32,7 @@ public abstract class ExtensibleData implements SupportsExtensionElements, HasTr
 
   private String id;
   protected List<Object> extensionElements;
-  protected final Map<String, Object> transientProperties = new TreeMap<String, Object>();
+  protected Map<String, Object> transientProperties;
 
   /**
    * A local, context-specific id for the data.
@@ -230,7 +230,7 @@ public abstract class ExtensibleData implements SupportsExtensionElements, HasTr
   @XmlTransient
   @Override
   public Map<String, Object> getTransientProperties() {
-    return Collections.unmodifiableMap(transientProperties);
+    return this.transientProperties == null ? Collections.<String, Object>emptyMap() : Collections.unmodifiableMap(this.transientProperties);
   }
 
   /**
@@ -241,7 +241,7 @@ public abstract class ExtensibleData implements SupportsExtensionElements, HasTr
    */
   @Override
   public Object getTransientProperty(String name) {
-    return this.transientProperties.get(name);
+    return this.transientProperties == null ? null : this.transientProperties.get(name);
   }
 
   /**
@@ -252,6 +252,10 @@ public abstract class ExtensibleData implements SupportsExtensionElements, HasTr
    */
   @Override
   public void setTransientProperty(String name, Object value) {
+    if (this.transientProperties == null) {
+      //allocated on first use, since almost no instances have any transient properties.
+      this.transientProperties = new TransientPropertyMap();
+    }
     this.transientProperties.put(name, value);
   }
 
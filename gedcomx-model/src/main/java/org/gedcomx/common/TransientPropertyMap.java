@@ -0,0 +1,181 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.common;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map for transient properties, which are few when there are any at all. The names and values are kept
+ * in two arrays sorted by name (so the map iterates in the same order as a <code>TreeMap</code>), starting with
+ * room for two properties. Null names are not permitted; null values are.
+ *
+ * @see HasTransientProperties
+ */
+public class TransientPropertyMap extends AbstractMap<String, Object> {
+
+  private String[] names = new String[2];
+  private Object[] values = new Object[2];
+  private int size = 0;
+  private int modCount = 0;
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int index = key instanceof String ? indexOf((String) key) : -1;
+    return index >= 0 ? this.values[index] : null;
+  }
+
+  @Override
+  public Object put(String name, Object value) {
+    int index = indexOf(name);
+    if (index >= 0) {
+      Object previous = this.values[index];
+      this.values[index] = value;
+      return previous;
+    }
+
+    index = -(index + 1);
+    if (this.size == this.names.length) {
+      this.names = Arrays.copyOf(this.names, this.size * 2);
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+    }
+    System.arraycopy(this.names, index, this.names, index + 1, this.size - index);
+    System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+    this.names[index] = name;
+    this.values[index] = value;
+    this.size++;
+    this.modCount++;
+    return null;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int index = key instanceof String ? indexOf((String) key) : -1;
+    if (index < 0) {
+      return null;
+    }
+
+    Object previous = this.values[index];
+    removeAt(index);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.names, 0, this.size, null);
+    Arrays.fill(this.values, 0, this.size, null);
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return TransientPropertyMap.this.size;
+      }
+    };
+  }
+
+  private void removeAt(int index) {
+    System.arraycopy(this.names, index + 1, this.names, index, this.size - index - 1);
+    System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+    this.size--;
+    this.names[this.size] = null;
+    this.values[this.size] = null;
+    this.modCount++;
+  }
+
+  /**
+   * Binary search for a name.
+   *
+   * @param name The name.
+   * @return The index of the name, or <code>-(insertion point + 1)</code> if it isn't in the map.
+   */
+  private int indexOf(String name) {
+    if (name == null) {
+      throw new NullPointerException("Transient property names must not be null.");
+    }
+    return Arrays.binarySearch(this.names, 0, this.size, name);
+  }
+
+  private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    private int next = 0;
+    private int last = -1;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return this.next < size;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (this.expectedModCount != modCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (this.next >= size) {
+        throw new NoSuchElementException();
+      }
+
+      this.last = this.next++;
+      final int index = this.last;
+      return new SimpleEntry<String, Object>(names[index], values[index]) {
+        @Override
+        public Object setValue(Object value) {
+          values[index] = value;
+          return super.setValue(value);
+        }
+      };
+    }
+
+    @Override
+    public void remove() {
+      if (this.last < 0) {
+        throw new IllegalStateException();
+      }
+      if (this.expectedModCount != modCount) {
+        throw new ConcurrentModificationException();
+      }
+      removeAt(this.last);
+      this.next = this.last;
+      this.last = -1;
+      this.expectedModCount = modCount;
+    }
+  }
+}
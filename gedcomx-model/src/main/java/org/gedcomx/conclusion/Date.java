@@ -24,6 +24,7 @@ import org.gedcomx.common.ExtensibleData;
 import org.gedcomx.common.Qualifier;
 import org.gedcomx.common.TextValue;
 import org.gedcomx.date.GedcomxDate;
+import org.gedcomx.date.GedcomxDateUtil;
 import org.gedcomx.records.Field;
 import org.gedcomx.records.HasFields;
 import org.gedcomx.rt.GedcomxConstants;
@@ -106,6 +107,18 @@ public class Date extends ExtensibleData implements HasFields {
     this.formal = formal;
   }
 
+  /**
+   * The formal value, parsed. Parsing goes through {@link GedcomxDateUtil#parse(String)}, so dates are shared
+   * when a parse cache has been set with {@link GedcomxDateUtil#setParseCache(org.gedcomx.date.GedcomxDateCache)}.
+   *
+   * @return The parsed formal value, or null if there is no formal value.
+   * @throws org.gedcomx.date.GedcomxDateException If the formal value is not a valid formal date.
+   */
+  @JsonIgnore
+  public GedcomxDate getFormalDate() {
+    return this.formal == null ? null : GedcomxDateUtil.parse(this.formal);
+  }
+
   /**
    * The standardized and/or normalized formal value.
    *
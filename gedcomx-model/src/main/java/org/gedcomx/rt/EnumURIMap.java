@@ -21,18 +21,39 @@ import com.webcohesion.enunciate.metadata.qname.XmlUnknownQNameEnumValue;
 import org.gedcomx.common.URI;
 
 import java.lang.reflect.Field;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Map for maintaining enum URIs that avoids the use of Enunciate's XmlQNameEnumUtil, which
  * relies on JAXB annotations that Android can't handle.
  *
+ * Lookups from URI to constant go through a reverse hash map of the URI values, and the result for any
+ * URI that isn't one of the values (relative URIs, URIs with fragments and unknown URIs) is cached.
+ * Both are discarded whenever the map is changed, whether directly or through its key, value or entry views.
+ *
  * @author Ryan Heaton
  */
 public class EnumURIMap<K extends Enum<K>> extends EnumMap<K, String> {
 
+  /**
+   * The maximum number of URIs that aren't values of the map whose lookups are cached; the cache
+   * is cleared when it fills up so a stream of distinct unknown URIs can't grow it without bound.
+   */
+  static final int MAX_CACHED_URIS = 1024;
+
   private K unknownValue;
   private java.net.URI defaultNamespace;
+  private volatile Map<String, K> constantsByValue;
+  private final Map<String, Optional<K>> resolvedTokens = new ConcurrentHashMap<String, Optional<K>>();
 
   public EnumURIMap(Class<K> keyType) {
     this(keyType, GedcomxConstants.GEDCOMX_TYPES_NAMESPACE);
@@ -112,20 +133,35 @@ public class EnumURIMap<K extends Enum<K>> extends EnumMap<K, String> {
 
   public K fromURIValue(URI uri) {
     String token = uri.toString();
-    for (Entry<K, String> entry : entrySet()) {
-      if (token.equals(entry.getValue())) {
-        return entry.getKey();
+    K constant = constantsByValue().get(token);
+    if (constant != null) {
+      return constant;
+    }
+
+    Optional<K> resolved = this.resolvedTokens.get(token);
+    if (resolved == null) {
+      resolved = Optional.ofNullable(resolve(token));
+      if (this.resolvedTokens.size() >= MAX_CACHED_URIS) {
+        this.resolvedTokens.clear();
       }
+      this.resolvedTokens.put(token, resolved);
     }
+    return resolved.orElse(null);
+  }
 
+  /**
+   * Resolve a token that isn't one of the URI values of this map.
+   *
+   * @param token The token.
+   * @return The constant, or the unknown value.
+   */
+  private K resolve(String token) {
     //not found; maybe it's a relative uri.
     if (this.defaultNamespace != null) {
       try {
-        String resolved = this.defaultNamespace.resolve(token).toString();
-        for (Entry<K, String> entry : entrySet()) {
-          if (resolved.equals(entry.getValue())) {
-            return entry.getKey();
-          }
+        K constant = constantsByValue().get(this.defaultNamespace.resolve(token).toString());
+        if (constant != null) {
+          return constant;
         }
       }
       catch (Exception e) {
@@ -141,6 +177,218 @@ public class EnumURIMap<K extends Enum<K>> extends EnumMap<K, String> {
     return unknownValue;
   }
 
+  /**
+   * The reverse of this map, built on first use. If more than one constant has the same URI value, the first
+   * constant wins.
+   *
+   * @return The constants by URI value.
+   */
+  private Map<String, K> constantsByValue() {
+    Map<String, K> constantsByValue = this.constantsByValue;
+    if (constantsByValue == null) {
+      constantsByValue = new HashMap<String, K>(size() * 2);
+      for (Entry<K, String> entry : entrySet()) {
+        if (entry.getValue() != null) {
+          constantsByValue.putIfAbsent(entry.getValue(), entry.getKey());
+        }
+      }
+      this.constantsByValue = constantsByValue;
+    }
+    return constantsByValue;
+  }
+
+  /**
+   * Discard the reverse map and the cached lookups after the map has been changed.
+   */
+  private void invalidate() {
+    this.constantsByValue = null;
+    if (this.resolvedTokens != null) {
+      //null while the EnumMap is still being constructed.
+      this.resolvedTokens.clear();
+    }
+  }
+
+  @Override
+  public String put(K key, String value) {
+    String previous = super.put(key, value);
+    invalidate();
+    return previous;
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends String> m) {
+    super.putAll(m);
+    invalidate();
+  }
+
+  @Override
+  public String remove(Object key) {
+    String previous = super.remove(key);
+    invalidate();
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    invalidate();
+  }
+
+  @Override
+  public Set<Entry<K, String>> entrySet() {
+    return new AbstractSet<Entry<K, String>>() {
+      @Override
+      public Iterator<Entry<K, String>> iterator() {
+        return new ViewIterator<Entry<K, String>>() {
+          @Override
+          public Entry<K, String> next() {
+            return new ViewEntry(nextEntry());
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return EnumURIMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return EnumURIMap.super.entrySet().contains(o);
+      }
+
+      @Override
+      public void clear() {
+        EnumURIMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return new ViewIterator<K>() {
+          @Override
+          public K next() {
+            return nextEntry().getKey();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return EnumURIMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public void clear() {
+        EnumURIMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Collection<String> values() {
+    return new AbstractCollection<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new ViewIterator<String>() {
+          @Override
+          public String next() {
+            return nextEntry().getValue();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return EnumURIMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsValue(o);
+      }
+
+      @Override
+      public void clear() {
+        EnumURIMap.this.clear();
+      }
+    };
+  }
+
+  /**
+   * An iterator over one of the views of this map that invalidates the lookups when an entry is removed through it.
+   */
+  private abstract class ViewIterator<T> implements Iterator<T> {
+    private final Iterator<Entry<K, String>> entries = EnumURIMap.super.entrySet().iterator();
+
+    protected Entry<K, String> nextEntry() {
+      return this.entries.next();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.entries.hasNext();
+    }
+
+    @Override
+    public void remove() {
+      this.entries.remove();
+      invalidate();
+    }
+  }
+
+  /**
+   * An entry of the entry view of this map that invalidates the lookups when its value is set.
+   */
+  private class ViewEntry implements Entry<K, String> {
+    private final Entry<K, String> entry;
+
+    ViewEntry(Entry<K, String> entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public K getKey() {
+      return this.entry.getKey();
+    }
+
+    @Override
+    public String getValue() {
+      return this.entry.getValue();
+    }
+
+    @Override
+    public String setValue(String value) {
+      String previous = this.entry.setValue(value);
+      invalidate();
+      return previous;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this.entry.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.entry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return this.entry.toString();
+    }
+  }
+
   public URI toURIValue(K constant) {
     String value = this.get(constant);
     if (value == null) {
@@ -0,0 +1,95 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.agent.Agent;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rt.GedcomxModelVisitor;
+import org.gedcomx.source.SourceDescription;
+
+import java.util.Iterator;
+
+/**
+ * Class for iterating through the persons, relationships, source descriptions, places and agents of a single GEDCOM X
+ *   document one at a time from a stream, without having to inflate the whole document at once. Memory use is bounded
+ *   by the largest element rather than by the size of the document.
+ */
+public interface GedcomxElementIterator extends Iterator<Object> {
+
+  /**
+   * Tell whether the iterator has another element to return.
+   *
+   * @return true if there is another element to read; false otherwise.
+   */
+  @Override
+  boolean hasNext();
+
+  /**
+   * Get the next element of the document, in document order.
+   *
+   * @return the next {@link Person}, {@link Relationship}, {@link SourceDescription}, {@link PlaceDescription} or
+   * {@link Agent}, or null if there are no more.
+   */
+  @Override
+  Object next();
+
+  /**
+   * Retrieve the rest of the document: its attributes, attribution and any other data that isn't returned as an
+   * element. This should be read last, as the rest of the document may appear after the elements.
+   *
+   * @return A Gedcomx document without persons, relationships, source descriptions, places or agents, or null if
+   * the end of the document hasn't been reached.
+   */
+  Gedcomx getMetadata();
+
+  @Override
+  void remove();
+
+  /**
+   * Close the input stream and/or accompanying reader if they are still open.
+   */
+  void close();
+
+  /**
+   * Push each of the remaining elements to the given visitor, in document order. Each element is handed to the
+   * visitor method for its type, e.g. {@link GedcomxModelVisitor#visitPerson(Person)}.
+   *
+   * @param visitor The visitor.
+   */
+  default void accept(GedcomxModelVisitor visitor) {
+    while (hasNext()) {
+      Object element = next();
+      if (element instanceof Person) {
+        visitor.visitPerson((Person) element);
+      }
+      else if (element instanceof Relationship) {
+        visitor.visitRelationship((Relationship) element);
+      }
+      else if (element instanceof SourceDescription) {
+        visitor.visitSourceDescription((SourceDescription) element);
+      }
+      else if (element instanceof PlaceDescription) {
+        visitor.visitPlaceDescription((PlaceDescription) element);
+      }
+      else if (element instanceof Agent) {
+        visitor.visitAgent((Agent) element);
+      }
+    }
+  }
+}
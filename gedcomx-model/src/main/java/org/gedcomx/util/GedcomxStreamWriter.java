@@ -0,0 +1,256 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.agent.Agent;
+import org.gedcomx.conclusion.Document;
+import org.gedcomx.conclusion.Event;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.records.Collection;
+import org.gedcomx.records.Field;
+import org.gedcomx.records.RecordDescriptor;
+import org.gedcomx.source.SourceDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class for streaming a single GEDCOM X document to an OutputStream as its elements are being added, so that the
+ *   document never needs to be fully instantiated in memory.
+ *
+ * The document-level data (id, attribution, links, etc.) is given up front as a "header" document. The elements must
+ *   then be written grouped by type in document order: persons, relationships, source descriptions, agents, events,
+ *   places, documents, collections, fields and then record descriptors. Types may be skipped, but a type can't be
+ *   returned to once a later type has been written.
+ */
+public abstract class GedcomxStreamWriter implements Closeable {
+
+  /**
+   * The default number of elements written between flushes of the output stream.
+   */
+  public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+  /**
+   * The top-level lists of a GEDCOM X document, in document order.
+   */
+  protected enum Section {
+    PERSONS("persons", "person", Person.class),
+    RELATIONSHIPS("relationships", "relationship", Relationship.class),
+    SOURCE_DESCRIPTIONS("sourceDescriptions", "sourceDescription", SourceDescription.class),
+    AGENTS("agents", "agent", Agent.class),
+    EVENTS("events", "event", Event.class),
+    PLACES("places", "place", PlaceDescription.class),
+    DOCUMENTS("documents", "document", Document.class),
+    COLLECTIONS("collections", "collection", Collection.class),
+    FIELDS("fields", "field", Field.class),
+    RECORD_DESCRIPTORS("recordDescriptors", "recordDescriptor", RecordDescriptor.class);
+
+    private final String jsonName;
+    private final String xmlName;
+    private final Class<?> type;
+
+    Section(String jsonName, String xmlName, Class<?> type) {
+      this.jsonName = jsonName;
+      this.xmlName = xmlName;
+      this.type = type;
+    }
+
+    public String getJsonName() {
+      return jsonName;
+    }
+
+    public String getXmlName() {
+      return xmlName;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    static Section forJsonName(String jsonName) {
+      for (Section section : values()) {
+        if (section.jsonName.equals(jsonName)) {
+          return section;
+        }
+      }
+      return null;
+    }
+  }
+
+  private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private Section section;
+  private long count = 0;
+  private boolean closed = false;
+
+  /**
+   * Make sure the header document doesn't have any of the elements that are to be streamed.
+   *
+   * @param header The header document.
+   * @return The header document.
+   */
+  protected static Gedcomx checkHeader(Gedcomx header) {
+    if (header == null) {
+      return new Gedcomx();
+    }
+    List<?>[] lists = {header.getPersons(), header.getRelationships(), header.getSourceDescriptions(), header.getAgents(), header.getEvents(),
+                       header.getPlaces(), header.getDocuments(), header.getCollections(), header.getFields(), header.getRecordDescriptors()};
+    for (List<?> list : lists) {
+      if (list != null && !list.isEmpty()) {
+        throw new IllegalArgumentException("The header document can't have persons, relationships, sources, agents, events, places, documents, collections, fields or record descriptors. Write them to the stream instead.");
+      }
+    }
+    return header;
+  }
+
+  /**
+   * Set how many elements are written between flushes of the output stream.
+   *
+   * @param flushInterval The number of elements; zero or less to flush only on close.
+   */
+  public synchronized void setFlushInterval(int flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  /**
+   * The number of elements written so far.
+   *
+   * @return The number of elements written so far.
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public void writePerson(Person person) throws IOException {
+    write(Section.PERSONS, person);
+  }
+
+  public void writeRelationship(Relationship relationship) throws IOException {
+    write(Section.RELATIONSHIPS, relationship);
+  }
+
+  public void writeSourceDescription(SourceDescription sourceDescription) throws IOException {
+    write(Section.SOURCE_DESCRIPTIONS, sourceDescription);
+  }
+
+  public void writeAgent(Agent agent) throws IOException {
+    write(Section.AGENTS, agent);
+  }
+
+  public void writeEvent(Event event) throws IOException {
+    write(Section.EVENTS, event);
+  }
+
+  public void writePlace(PlaceDescription place) throws IOException {
+    write(Section.PLACES, place);
+  }
+
+  public void writeDocument(Document document) throws IOException {
+    write(Section.DOCUMENTS, document);
+  }
+
+  public void writeCollection(Collection collection) throws IOException {
+    write(Section.COLLECTIONS, collection);
+  }
+
+  public void writeField(Field field) throws IOException {
+    write(Section.FIELDS, field);
+  }
+
+  public void writeRecordDescriptor(RecordDescriptor recordDescriptor) throws IOException {
+    write(Section.RECORD_DESCRIPTORS, recordDescriptor);
+  }
+
+  private synchronized void write(Section section, Object element) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Already closed the stream.");
+    }
+    if (element == null) {
+      throw new NullPointerException("element");
+    }
+    if (section != this.section) {
+      if (this.section != null) {
+        if (section.ordinal() < this.section.ordinal()) {
+          throw new IllegalStateException("Can't write " + section.getJsonName() + " after " + this.section.getJsonName() + ".");
+        }
+        endSection(this.section);
+      }
+      startSection(section);
+      this.section = section;
+    }
+    writeElement(section, element);
+    count++;
+    if (flushInterval > 0 && count % flushInterval == 0) {
+      flushOutput();
+    }
+  }
+
+  /**
+   * Flush everything written so far to the output stream.
+   *
+   * @throws IOException If there's an I/O problem.
+   */
+  public synchronized void flush() throws IOException {
+    if (!closed) {
+      flushOutput();
+    }
+  }
+
+  /**
+   * Finish writing the document, including the rest of the header document and the closing tags. Closes the
+   *   output stream.
+   *
+   * @throws IOException If there's an I/O problem.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      if (section != null) {
+        endSection(section);
+      }
+      finish();
+    }
+  }
+
+  /**
+   * Start writing the elements of the given section.
+   */
+  protected abstract void startSection(Section section) throws IOException;
+
+  /**
+   * Write an element of the given section.
+   */
+  protected abstract void writeElement(Section section, Object element) throws IOException;
+
+  /**
+   * Finish writing the elements of the given section.
+   */
+  protected abstract void endSection(Section section) throws IOException;
+
+  /**
+   * Write whatever follows the last section and close the output stream.
+   */
+  protected abstract void finish() throws IOException;
+
+  /**
+   * Flush the output stream.
+   */
+  protected abstract void flushOutput() throws IOException;
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.agent.Agent;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+import org.gedcomx.source.SourceDescription;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class for iterating through the persons, relationships, source descriptions, places and agents of a single GEDCOM X
+ *   document one at a time from a stream, without having to inflate the whole document at once.
+ *   This reads a JSON-formatted document with Jackson's streaming parser.
+ */
+public class JsonGedcomxElementIterator implements GedcomxElementIterator {
+  private static final Map<String, Class<?>> elementTypes = new HashMap<String, Class<?>>();
+  private final ObjectMapper objectMapper;
+  private final ObjectNode metadataNode;
+  private JsonParser parser;
+  private Class<?> arrayType;
+  private Object nextElement;
+  private Gedcomx metadata;
+
+  static {
+    elementTypes.put("persons", Person.class);
+    elementTypes.put("relationships", Relationship.class);
+    elementTypes.put("sourceDescriptions", SourceDescription.class);
+    elementTypes.put("places", PlaceDescription.class);
+    elementTypes.put("agents", Agent.class);
+  }
+
+  /**
+   * Constructor for an element iterator that takes a filename of a GEDCOM X document and iterates through its elements.
+   * @param filename - Filename to read a GEDCOM X document from.
+   * @throws IOException If there's an I/O problem.
+   */
+  public JsonGedcomxElementIterator(String filename) throws IOException {
+    this(new FileInputStream(filename), filename.toLowerCase().endsWith(".gz"));
+  }
+
+  public JsonGedcomxElementIterator(InputStream inputStream, boolean isGzipped) throws IOException {
+    this(isGzipped ? new GZIPInputStream(inputStream) : inputStream);
+  }
+
+  /**
+   * Constructor for an element iterator that takes an InputStream of a GEDCOM X document and iterates through its elements.
+   * @param inputStream - InputStream to read a GEDCOM X document from.
+   * @throws IOException If there's an I/O problem.
+   */
+  public JsonGedcomxElementIterator(InputStream inputStream) throws IOException {
+    this(inputStream, GedcomJacksonModule.createObjectMapper());
+  }
+
+  /**
+   * Constructor for an element iterator that reads the elements with the given object mapper.
+   * @param inputStream - InputStream to read a GEDCOM X document from.
+   * @param objectMapper - The object mapper to read the elements with.
+   * @throws IOException If there's an I/O problem.
+   */
+  public JsonGedcomxElementIterator(InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+    this.objectMapper = objectMapper;
+    this.metadataNode = objectMapper.createObjectNode();
+    this.parser = objectMapper.getFactory().createParser(inputStream);
+    if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+      this.parser.close();
+      throw new IOException("Expected a GEDCOM X document, found " + this.parser.getCurrentToken() + ".");
+    }
+    prepareNext();
+  }
+
+  @Override
+  synchronized public boolean hasNext() {
+    return nextElement != null;
+  }
+
+  /**
+   * Prepare the next element to be retrieved.  Sets 'nextElement' to the parsed element, if any, or null
+   *   if there are no more.  Anything else at the top level of the document is kept for the metadata.
+   * If there are no more elements, then builds the metadata and closes the parser.
+   * @throws IOException If there's an I/O problem, or the document ends before its closing brace.
+   */
+  synchronized private void prepareNext() throws IOException {
+    nextElement = null;
+    while (nextElement == null && parser != null) {
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        close();
+        throw new IOException("Unexpected end of GEDCOM X document.");
+      }
+      else if (arrayType != null) {
+        if (token == JsonToken.END_ARRAY) {
+          arrayType = null;
+        }
+        else {
+          nextElement = objectMapper.readValue(parser, arrayType);
+        }
+      }
+      else if (token == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        Class<?> type = elementTypes.get(name);
+        if (parser.nextToken() == JsonToken.START_ARRAY && type != null) {
+          arrayType = type;
+        }
+        else {
+          metadataNode.set(name, objectMapper.readTree(parser));
+        }
+      }
+      else if (token == JsonToken.END_OBJECT) {
+        // the end of the document.
+        metadata = objectMapper.treeToValue(metadataNode, Gedcomx.class);
+        close();
+      }
+      else {
+        close();
+        throw new IOException("Expected a field of the GEDCOM X document, found " + token + ".");
+      }
+    }
+  }
+
+  @Override
+  synchronized public Object next() {
+    try {
+      if (nextElement == null) {
+        return null;
+      }
+      Object element = nextElement;
+      prepareNext();
+      return element;
+    }
+    catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  synchronized public Gedcomx getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Close the input stream and accompanying parser if they are still open.
+   * If an exception occurs trying to close things, it is caught here.
+   */
+  @Override
+  synchronized public void close() {
+    try {
+      if (parser != null) {
+        parser.close();
+        parser = null;
+      }
+    } catch (IOException e) {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.json.ExtensibleObjectSerializer;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class for streaming a single GEDCOM X document to an OutputStream in JSON as its elements are being added.
+ *   The header document is written with the same bean serializer as a whole document, property by property, so the
+ *   output is the same as serializing the complete document with {@link org.gedcomx.rt.SerializationUtil#writeJson}.
+ */
+public class JsonGedcomxStreamWriter extends GedcomxStreamWriter {
+  private final Gedcomx header;
+  private final JsonGenerator generator;
+  private final SerializerProvider provider;
+  private final JsonSerializer<Object> headerSerializer;
+  private final List<PropertyWriter> headerProperties = new ArrayList<PropertyWriter>();
+  // Index of the next header property to be written.
+  private int nextProperty = 0;
+
+  /**
+   * Constructor. Prepares to write the elements of a GEDCOM X document to the given output stream (which may well be
+   *   a GZIPOutputStream), so that only one element needs to be fully instantiated in memory at once.
+   * @param outputStream - OutputStream to write JSON to.
+   * @param header - The document-level data, without any of the elements that are to be streamed. May be null.
+   * @throws IOException If there's an I/O problem.
+   */
+  public JsonGedcomxStreamWriter(OutputStream outputStream, Gedcomx header) throws IOException {
+    this(outputStream, header, GedcomJacksonModule.createObjectMapper(Gedcomx.class));
+  }
+
+  /**
+   * Constructor. Prepares to write the elements of a GEDCOM X document to the given output stream with the given
+   *   object mapper.
+   * @param outputStream - OutputStream to write JSON to.
+   * @param header - The document-level data, without any of the elements that are to be streamed. May be null.
+   * @param objectMapper - The object mapper to write with.
+   * @throws IOException If there's an I/O problem.
+   */
+  public JsonGedcomxStreamWriter(OutputStream outputStream, Gedcomx header, ObjectMapper objectMapper) throws IOException {
+    this.header = checkHeader(header);
+    this.provider = objectMapper.getSerializerProviderInstance();
+    this.headerSerializer = this.provider.findTypedValueSerializer(Gedcomx.class, true, null);
+    for (Iterator<PropertyWriter> properties = this.headerSerializer.properties(); properties.hasNext(); ) {
+      this.headerProperties.add(properties.next());
+    }
+
+    this.generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+    if (objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+      this.generator.setPrettyPrinter(objectMapper.getSerializationConfig().constructDefaultPrettyPrinter());
+    }
+    this.generator.writeStartObject();
+  }
+
+  /**
+   * Write the header properties up to the given section, or all of the remaining ones if the section is null.
+   */
+  private void writeHeaderProperties(Section section) throws IOException {
+    while (nextProperty < headerProperties.size()) {
+      PropertyWriter property = headerProperties.get(nextProperty++);
+      if (section != null && section.getJsonName().equals(property.getName())) {
+        return;
+      }
+      else if (Section.forJsonName(property.getName()) == null) {
+        try {
+          property.serializeAsField(header, generator, provider);
+        }
+        catch (IOException e) {
+          throw e;
+        }
+        catch (Exception e) {
+          throw new IOException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void startSection(Section section) throws IOException {
+    writeHeaderProperties(section);
+    generator.writeArrayFieldStart(section.getJsonName());
+  }
+
+  @Override
+  protected void writeElement(Section section, Object element) throws IOException {
+    provider.findTypedValueSerializer(element.getClass(), true, null).serialize(element, generator, provider);
+  }
+
+  @Override
+  protected void endSection(Section section) throws IOException {
+    generator.writeEndArray();
+  }
+
+  @Override
+  protected void finish() throws IOException {
+    writeHeaderProperties(null);
+    if (headerSerializer instanceof ExtensibleObjectSerializer) {
+      ((ExtensibleObjectSerializer) headerSerializer).serializeExtensionElements(header, generator, provider);
+    }
+    generator.writeEndObject();
+    generator.close();
+  }
+
+  @Override
+  protected void flushOutput() throws IOException {
+    generator.flush();
+  }
+}
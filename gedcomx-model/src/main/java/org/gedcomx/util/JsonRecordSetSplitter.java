@@ -0,0 +1,411 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a JSON-formatted RecordSet stream into the raw bytes of each of its 'records' (and of its 'metadata'),
+ *   without deserializing them.  The caller decides when (and on which thread) the bytes are handed to Jackson.
+ *
+ * The stream is read in large blocks into a single buffer, and each record is found by scanning for its closing
+ *   brace, skipping over braces that appear inside string literals.  {@link #nextRecordSlice()} leaves the record
+ *   in place in the buffer so it can be parsed without being copied; {@link #nextRecord()} returns a copy that may
+ *   be handed to another thread.
+ *
+ * This is not thread-safe; one thread must do all the reading.
+ */
+class JsonRecordSetSplitter {
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private InputStream inputStream;
+  private byte[] buffer;
+  private int pos = 0;
+  private int limit = 0;
+  /** Offset in the stream of buffer[0]. */
+  private long bufferOffset = 0;
+  /** Start (in the buffer) of the bytes that must survive the next fill, or -1 if there are none. */
+  private int mark = -1;
+  private int sliceLength = 0;
+  private long recordCount = 0;
+  private boolean inRecords = false;
+  private boolean noMoreRecords = false;
+  private byte[] metadataBytes;
+  private String id;
+
+  /**
+   * Constructor.  Reads the stream until the opening bracket of the "records" array, capturing the
+   * "metadata" and "id" if they appear before it.
+   *
+   * @param inputStream - InputStream to read a GedcomX RecordSet file from.
+   * @throws IOException If there's an I/O problem.
+   */
+  JsonRecordSetSplitter(InputStream inputStream) throws IOException {
+    this(inputStream, DEFAULT_BUFFER_SIZE);
+  }
+
+  JsonRecordSetSplitter(InputStream inputStream, int bufferSize) throws IOException {
+    this.inputStream = inputStream;
+    this.buffer = new byte[bufferSize];
+    if (readUntil(JsonRecordSetWriter.RECORDS_STR)) {
+      inRecords = true;
+    }
+    else {
+      noMoreRecords = true;
+    }
+  }
+
+  /**
+   * Find the next record in the "records" array, leaving its bytes in place in the buffer.  The slice is
+   * available from {@link #getBuffer()}, {@link #getSliceOffset()} and {@link #getSliceLength()} until the
+   * next call to any method of this splitter.
+   *
+   * @return true if a record was found; false if there are no more records.
+   * @throws IOException If there's an I/O problem.
+   */
+  boolean nextRecordSlice() throws IOException {
+    mark = -1;
+    sliceLength = 0;
+    if (noMoreRecords) {
+      return false;
+    }
+
+    int character = skipWhitespace();
+    if (character == ',') {
+      character = skipWhitespace();
+    }
+    if (character != '{') {
+      // ']' (end of the records) or end of file.
+      inRecords = false;
+      noMoreRecords = true;
+      return false;
+    }
+
+    mark = pos - 1;
+    skipContainer();
+    sliceLength = pos - mark;
+    recordCount++;
+    return true;
+  }
+
+  /**
+   * Read a copy of the bytes of the next record in the "records" array.
+   *
+   * @return the bytes of the next record, or null if there are no more records.
+   * @throws IOException If there's an I/O problem.
+   */
+  byte[] nextRecord() throws IOException {
+    return nextRecordSlice() ? Arrays.copyOfRange(buffer, mark, mark + sliceLength) : null;
+  }
+
+  /**
+   * @return the buffer holding the current record slice.
+   */
+  byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the offset in the buffer of the current record slice.
+   */
+  int getSliceOffset() {
+    return mark;
+  }
+
+  /**
+   * @return the length of the current record slice.
+   */
+  int getSliceLength() {
+    return sliceLength;
+  }
+
+  /**
+   * @return the offset in the (uncompressed) stream of the current record slice.
+   */
+  long getRecordOffset() {
+    return bufferOffset + mark;
+  }
+
+  /**
+   * @return the number of records found so far.
+   */
+  long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Get the bytes of the metadata of the RecordSet if they have already been read, without reading any further.
+   *
+   * @return the bytes of the metadata, or null if they have not been read.
+   */
+  byte[] getMetadataBytesIfRead() {
+    return metadataBytes;
+  }
+
+  /**
+   * Read the bytes of the metadata of the RecordSet, reading past any remaining records if necessary.
+   *
+   * @return the bytes of the metadata, or null if there is no metadata in the stream.
+   * @throws IOException If there's an I/O problem.
+   */
+  byte[] getMetadataBytes() throws IOException {
+    if (metadataBytes == null) {
+      readUntil(JsonRecordSetWriter.METADATA_STR);
+    }
+    return metadataBytes;
+  }
+
+  /**
+   * Read the id of the RecordSet, reading past any remaining records if necessary.
+   *
+   * @return the id of the RecordSet, or null if there is no id in the stream.
+   * @throws IOException If there's an I/O problem.
+   */
+  String getId() throws IOException {
+    if (id == null) {
+      readUntil(JsonRecordSetWriter.ID_STR);
+    }
+    return id;
+  }
+
+  /**
+   * Read the top-level object until the given label has been read, capturing the "metadata" and "id" if they are
+   * seen on the way and skipping over the values of any other labels.  For the "records" label, the stream is left
+   * positioned just inside the array.
+   *
+   * @param untilLabel - The label to stop at.
+   * @return true if the label was found; false if the end of the stream was reached first.
+   * @throws IOException If there's an I/O problem.
+   */
+  private boolean readUntil(String untilLabel) throws IOException {
+    while (inRecords) {
+      nextRecordSlice();
+    }
+    mark = -1;
+
+    int character;
+    while ((character = skipWhitespace()) >= 0) {
+      if (character != '"') {
+        if (character == '}') {
+          break;    // End of the RecordSet.
+        }
+        continue;   // The opening brace of the RecordSet, or a comma between its members.
+      }
+
+      String name = readString();
+      if (skipWhitespace() != ':') {
+        break;
+      }
+
+      if (name.equals(JsonRecordSetWriter.METADATA_STR)) {
+        if (skipWhitespace() != '{') {
+          break;
+        }
+        mark = pos - 1;
+        skipContainer();
+        metadataBytes = Arrays.copyOfRange(buffer, mark, pos);
+        mark = -1;
+      }
+      else if (name.equals(JsonRecordSetWriter.ID_STR)) {
+        if (skipWhitespace() == '"') {
+          id = readString();
+        }
+      }
+      else if (name.equals(JsonRecordSetWriter.RECORDS_STR) && untilLabel.equals(JsonRecordSetWriter.RECORDS_STR)) {
+        return skipWhitespace() == '[';
+      }
+      else {
+        skipValue();
+      }
+
+      if (name.equals(untilLabel)) {
+        return true;
+      }
+    }
+
+    close();
+    return false;
+  }
+
+  /**
+   * Read bytes until a non-whitespace one is found.
+   *
+   * @return the first non-whitespace byte, or -1 at the end of the stream.
+   */
+  private int skipWhitespace() throws IOException {
+    int character;
+    do {
+      character = read();
+    } while (character == ' ' || character == '\n' || character == '\r' || character == '\t');
+    return character;
+  }
+
+  /**
+   * Skip the rest of an object or array whose opening brace or bracket has just been read, ignoring any braces
+   * and brackets inside string literals.
+   */
+  private void skipContainer() throws IOException {
+    int depth = 1;
+    int character;
+    while (depth > 0 && (character = read()) >= 0) {
+      if (character == '"') {
+        skipString();
+      }
+      else if (character == '{' || character == '[') {
+        depth++;
+      }
+      else if (character == '}' || character == ']') {
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Skip the rest of a string literal whose opening quote has just been read.
+   */
+  private void skipString() throws IOException {
+    int character;
+    while ((character = read()) >= 0 && character != '"') {
+      if (character == '\\') {
+        read();
+      }
+    }
+  }
+
+  /**
+   * Skip a value of any kind, leaving the stream positioned at the character that follows it.
+   */
+  private void skipValue() throws IOException {
+    int character = skipWhitespace();
+    if (character == '{' || character == '[') {
+      skipContainer();
+    }
+    else if (character == '"') {
+      skipString();
+    }
+    else {
+      while (character >= 0 && character != ',' && character != '}' && character != ']') {
+        character = read();
+      }
+      if (character >= 0) {
+        pos--;    // Leave the separator for the caller.
+      }
+    }
+  }
+
+  /**
+   * Read the rest of a string literal whose opening quote has just been read.
+   */
+  private String readString() throws IOException {
+    mark = pos;
+    boolean escaped = false;
+    int character;
+    while ((character = read()) >= 0 && character != '"') {
+      if (character == '\\') {
+        escaped = true;
+        read();
+      }
+    }
+    int end = character < 0 ? pos : pos - 1;
+    String value = new String(buffer, mark, end - mark, StandardCharsets.UTF_8);
+    mark = -1;
+    return escaped ? unescape(value) : value;
+  }
+
+  private static String unescape(String value) {
+    StringBuilder unescaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        c = value.charAt(++i);
+        switch (c) {
+          case 'n': c = '\n'; break;
+          case 'r': c = '\r'; break;
+          case 't': c = '\t'; break;
+          case 'b': c = '\b'; break;
+          case 'f': c = '\f'; break;
+          case 'u':
+            if (i + 4 < value.length()) {
+              c = (char) Integer.parseInt(value.substring(i + 1, i + 5), 16);
+              i += 4;
+            }
+            break;
+          default: break;
+        }
+      }
+      unescaped.append(c);
+    }
+    return unescaped.toString();
+  }
+
+  private int read() throws IOException {
+    if (pos >= limit && !fill()) {
+      return -1;
+    }
+    return buffer[pos++] & 0xff;
+  }
+
+  /**
+   * Read more of the stream into the buffer, keeping any bytes from the mark onward.  The buffer is compacted
+   * (and grown if a single record fills it) so records can be scanned without ever copying them byte by byte.
+   *
+   * @return false at the end of the stream.
+   */
+  private boolean fill() throws IOException {
+    if (inputStream == null) {
+      return false;
+    }
+
+    int keep = mark >= 0 ? mark : pos;
+    if (keep > 0) {
+      System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+      bufferOffset += keep;
+      limit -= keep;
+      pos -= keep;
+      if (mark >= 0) {
+        mark = 0;
+      }
+    }
+    if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    int count = inputStream.read(buffer, limit, buffer.length - limit);
+    if (count < 0) {
+      return false;
+    }
+    limit += count;
+    return true;
+  }
+
+  /**
+   * Close the input stream if it is still open.
+   */
+  void close() {
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        // Do nothing.
+      } finally {
+        inputStream = null;
+      }
+    }
+  }
+}
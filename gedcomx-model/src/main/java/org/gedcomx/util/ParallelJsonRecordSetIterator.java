@@ -0,0 +1,327 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class for iterating through the 'record' elements (GedcomX documents) in a JSON-formatted RecordSet using
+ *   more than one core.  A single reader thread splits the raw bytes of each record out of the stream, and a
+ *   pool of worker threads deserializes them.  At most 'readAhead' records are split or deserialized ahead of
+ *   the caller, so memory stays bounded no matter how large the RecordSet is.
+ *
+ * If order is preserved (the default), records are returned in the order they appear in the stream.  Otherwise
+ *   they are returned in the order they finish deserializing, which keeps the workers busier when record sizes vary.
+ */
+public class ParallelJsonRecordSetIterator implements RecordSetIterator {
+  private static final Future<Gedcomx> END = CompletableFuture.completedFuture(null);
+  private static final ThreadFactory WORKER_THREADS = new ThreadFactory() {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "gedcomx-recordset-worker-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+
+  private final JsonRecordSetSplitter splitter;
+  private final ObjectReader reader;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final boolean preserveOrder;
+  private final int readAhead;
+  private final Semaphore permits;
+  private final BlockingQueue<Future<Gedcomx>> results = new LinkedBlockingQueue<Future<Gedcomx>>();
+  private final Thread readerThread;
+  private Gedcomx nextRecord;
+  private volatile byte[] metadataBytes;
+  private Gedcomx metadata;
+  private volatile boolean closed = false;
+
+  /**
+   * Constructor for a record iterator that takes a filename of a RecordSet file and iterates through its record
+   * elements using one worker per available processor.
+   * @param filename - Filename to read a GedcomX RecordSet file from.
+   * @throws IOException If there's an I/O problem.
+   */
+  public ParallelJsonRecordSetIterator(String filename) throws IOException {
+    this(new FileInputStream(filename), filename.toLowerCase().endsWith(".gz"));
+  }
+
+  public ParallelJsonRecordSetIterator(InputStream inputStream, boolean isGzipped) throws IOException {
+    this(isGzipped ? new GZIPInputStream(inputStream) : inputStream, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor for a record iterator that deserializes records on its own pool of daemon worker threads, preserving
+   * order. The pool is shut down once the last record has been returned, or when the iterator is closed.
+   *
+   * @param inputStream - InputStream to read a GedcomX RecordSet file from.
+   * @param threads - Number of worker threads to deserialize records with.
+   * @throws IOException If there's an I/O problem.
+   */
+  public ParallelJsonRecordSetIterator(InputStream inputStream, int threads) throws IOException {
+    this(inputStream, Executors.newFixedThreadPool(threads, WORKER_THREADS), true, threads * 4, true);
+  }
+
+  /**
+   * Constructor for a record iterator that deserializes records on the given executor.  The executor is not shut
+   * down when the iterator is closed.
+   *
+   * @param inputStream - InputStream to read a GedcomX RecordSet file from.
+   * @param executor - Executor to deserialize records on.
+   * @param preserveOrder - Whether to return records in the order they appear in the stream.
+   * @param readAhead - Maximum number of records split or deserialized but not yet returned by next().
+   * @throws IOException If there's an I/O problem.
+   */
+  public ParallelJsonRecordSetIterator(InputStream inputStream, ExecutorService executor, boolean preserveOrder, int readAhead) throws IOException {
+    this(inputStream, executor, false, readAhead, preserveOrder);
+  }
+
+  private ParallelJsonRecordSetIterator(InputStream inputStream, ExecutorService executor, boolean ownsExecutor, int readAhead, boolean preserveOrder) throws IOException {
+    if (readAhead < 1) {
+      throw new IllegalArgumentException("readAhead must be at least 1");
+    }
+    this.reader = GedcomJacksonModule.createObjectMapper().readerFor(Gedcomx.class);
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.preserveOrder = preserveOrder;
+    this.readAhead = readAhead;
+    this.permits = new Semaphore(readAhead);
+    this.readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        readRecords();
+      }
+    }, "gedcomx-recordset-reader");
+    this.readerThread.setDaemon(true);
+
+    try {
+      this.splitter = new JsonRecordSetSplitter(inputStream);
+      this.metadataBytes = this.splitter.getMetadataBytesIfRead();
+      this.readerThread.start();
+      prepareNext();
+    }
+    catch (IOException e) {
+      abandon(inputStream);
+      throw e;
+    }
+    catch (RuntimeException e) {
+      abandon(inputStream);
+      throw e;
+    }
+  }
+
+  /**
+   * Clean up after a constructor failure. Once started, the reader thread closes the stream itself.
+   */
+  private void abandon(InputStream inputStream) {
+    boolean started = readerThread.getState() != Thread.State.NEW;
+    close();
+    if (!started) {
+      try {
+        inputStream.close();
+      }
+      catch (IOException e) {
+        // Do nothing.
+      }
+    }
+  }
+
+  /**
+   * Runs on the reader thread: split each record out of the stream and hand it to the executor.
+   */
+  private void readRecords() {
+    try {
+      byte[] object;
+      while (!closed && (object = splitter.nextRecord()) != null) {
+        permits.acquire();
+        submit(object);
+      }
+      if (!closed) {
+        metadataBytes = splitter.getMetadataBytes();
+      }
+      if (!preserveOrder) {
+        // Wait for every in-flight record to be queued before marking the end.
+        permits.acquire(readAhead);
+        permits.release(readAhead);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (Exception e) {
+      ReadFailure failed = new ReadFailure();
+      failed.completeExceptionally(e);
+      results.add(failed);
+    }
+    finally {
+      splitter.close();
+      results.add(END);
+    }
+  }
+
+  private void submit(final byte[] object) {
+    Callable<Gedcomx> task = new Callable<Gedcomx>() {
+      @Override
+      public Gedcomx call() throws Exception {
+        return reader.readValue(object);
+      }
+    };
+
+    if (preserveOrder) {
+      results.add(executor.submit(task));
+    }
+    else {
+      final CompletableFuture<Gedcomx> result = new CompletableFuture<Gedcomx>();
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            result.complete(reader.<Gedcomx>readValue(object));
+          }
+          catch (Throwable e) {
+            result.completeExceptionally(e);
+          }
+          results.add(result);
+        }
+      });
+    }
+  }
+
+  /**
+   * Tell whether the RecordIterator has another GedcomX record to return.
+   * @return true if there is another record to read; false otherwise.
+   */
+  @Override
+  synchronized public boolean hasNext() {
+    return nextRecord != null;
+  }
+
+  /**
+   * Prepare the next record to be retrieved.  Sets 'nextRecord' to the deserialized record, if any, or null
+   *   if there are no more.  Blocks until the next record has been deserialized.
+   */
+  synchronized private void prepareNext() throws IOException {
+    nextRecord = null;
+    if (closed) {
+      return;
+    }
+
+    try {
+      Future<Gedcomx> result = results.take();
+      if (result == END) {
+        results.add(END);
+        if (ownsExecutor) {
+          // Every record has been deserialized by now.
+          executor.shutdown();
+        }
+        return;
+      }
+      if (!(result instanceof ReadFailure)) {
+        // Only records hold a permit; a read failure comes from the reader thread.
+        permits.release();
+      }
+      nextRecord = result.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+    }
+  }
+
+  @Override
+  synchronized public Gedcomx next() {
+    try {
+      if (nextRecord == null) {
+        return null;
+      }
+      Gedcomx record = nextRecord;
+      prepareNext();
+      return record;
+    }
+    catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * This should be read last as you cannot be sure of when the metadata will appear in the data stream.  If the
+   * metadata follows the records, it is only available once all the records have been read.
+   *
+   * @return The Metadata document, or null if it has not been read (yet).
+   */
+  @Override
+  synchronized public Gedcomx getMetadata() {
+    byte[] object = metadataBytes;
+    if (metadata == null && object != null) {
+      try {
+        metadata = reader.readValue(object);
+      } catch (IOException e) {
+        // Do nothing.
+      }
+    }
+    return metadata;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * A failure of the reader thread itself, as opposed to a record that failed to deserialize.
+   */
+  private static class ReadFailure extends CompletableFuture<Gedcomx> {
+  }
+
+  /**
+   * Stop reading and shut down the worker pool if it was created by this iterator.  The reader thread closes the
+   * input stream once it stops.
+   * If you want to get the metadata of the RecordSet, then get it before you close().
+   */
+  @Override
+  public void close() {
+    closed = true;
+    readerThread.interrupt();
+    if (ownsExecutor) {
+      executor.shutdownNow();
+    }
+  }
+}
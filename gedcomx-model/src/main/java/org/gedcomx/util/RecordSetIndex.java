@@ -0,0 +1,370 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An index of the records in a JSON-formatted RecordSet: the id of each record, and the offset and length of its
+ *   bytes in the (uncompressed) RecordSet stream.  The index is built by scanning the RecordSet once without
+ *   deserializing the records, and can be saved to and loaded from a sidecar file next to the RecordSet, so that
+ *   a {@link RecordSetReader} can later read any single record without reading the ones before it.
+ *   Only JSON-formatted RecordSets can be indexed; XML RecordSets are not supported.
+ *
+ * <p>The sidecar records the size and modification time of the RecordSet file it was built from, and is rejected
+ *   when they no longer match, so a RecordSet that was rewritten is never read through an old index.</p>
+ */
+public class RecordSetIndex {
+  /**
+   * Suffix added to the filename of a RecordSet to get the filename of its sidecar index.
+   */
+  public static final String SIDECAR_SUFFIX = ".idx";
+  private static final String HEADER = "gedcomx-recordset-index 2";
+  private static final String NULL_ID = "\\N";
+
+  private String[] ids = new String[16];
+  private long[] offsets = new long[16];
+  private int[] lengths = new int[16];
+  private int size = 0;
+  private Map<String, Integer> positions;
+  private long sourceLength = -1;
+  private long sourceLastModified = -1;
+
+  /**
+   * Build an index of a RecordSet file, gunzipping it if the filename ends with ".gz".
+   *
+   * @param filename - Filename of a GedcomX RecordSet file.
+   * @return The index.
+   * @throws IOException If there's an I/O problem.
+   */
+  public static RecordSetIndex build(String filename) throws IOException {
+    File file = new File(filename);
+    long length = file.length();
+    long lastModified = file.lastModified();
+    InputStream inputStream = new FileInputStream(file);
+    RecordSetIndex index = build(filename.toLowerCase().endsWith(".gz") ? new GZIPInputStream(inputStream) : inputStream);
+    index.sourceLength = length;
+    index.sourceLastModified = lastModified;
+    return index;
+  }
+
+  /**
+   * Build an index of a RecordSet stream.  The stream is closed once it has been read.
+   *
+   * @param inputStream - InputStream to read a GedcomX RecordSet file from.
+   * @return The index.
+   * @throws IOException If there's an I/O problem.
+   */
+  public static RecordSetIndex build(InputStream inputStream) throws IOException {
+    RecordSetIndex index = new RecordSetIndex();
+    JsonFactory jsonFactory = new JsonFactory();
+    JsonRecordSetSplitter splitter = new JsonRecordSetSplitter(inputStream);
+    try {
+      while (splitter.nextRecordSlice()) {
+        String id = readId(jsonFactory, splitter.getBuffer(), splitter.getSliceOffset(), splitter.getSliceLength());
+        index.add(id, splitter.getRecordOffset(), splitter.getSliceLength());
+      }
+    }
+    finally {
+      splitter.close();
+    }
+    return index;
+  }
+
+  /**
+   * Read the "id" member of a record without deserializing the rest of it.
+   */
+  private static String readId(JsonFactory jsonFactory, byte[] buffer, int offset, int length) throws IOException {
+    JsonParser parser = jsonFactory.createParser(buffer, offset, length);
+    try {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if (JsonRecordSetWriter.ID_STR.equals(name)) {
+          return parser.getValueAsString();
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+    finally {
+      parser.close();
+    }
+  }
+
+  /**
+   * Load the sidecar index of a RecordSet file.
+   *
+   * @param recordSetFilename - Filename of the GedcomX RecordSet file (not of the index).
+   * @return The index.
+   * @throws IOException If there's an I/O problem, or the size or modification time of the RecordSet file is not
+   *   the one recorded in the index (i.e., the index is stale).
+   */
+  public static RecordSetIndex readSidecar(String recordSetFilename) throws IOException {
+    RecordSetIndex index;
+    InputStream inputStream = new FileInputStream(recordSetFilename + SIDECAR_SUFFIX);
+    try {
+      index = read(inputStream);
+    }
+    finally {
+      inputStream.close();
+    }
+
+    File file = new File(recordSetFilename);
+    if (index.sourceLength != file.length() || index.sourceLastModified != file.lastModified()) {
+      throw new IOException("Stale GedcomX RecordSet index: " + recordSetFilename + " has changed since " + recordSetFilename + SIDECAR_SUFFIX + " was written.");
+    }
+    return index;
+  }
+
+  /**
+   * Read an index written by {@link #write(OutputStream)}.
+   *
+   * @param inputStream - InputStream to read the index from.
+   * @return The index.
+   * @throws IOException If there's an I/O problem or the stream is not an index.
+   */
+  public static RecordSetIndex read(InputStream inputStream) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    if (!HEADER.equals(reader.readLine())) {
+      throw new IOException("Not a GedcomX RecordSet index.");
+    }
+
+    RecordSetIndex index = new RecordSetIndex();
+    String line = reader.readLine();
+    int tab = line == null ? -1 : line.indexOf('\t');
+    if (tab < 0) {
+      throw new IOException("Malformed GedcomX RecordSet index source: " + line);
+    }
+    try {
+      index.sourceLength = Long.parseLong(line.substring(0, tab));
+      index.sourceLastModified = Long.parseLong(line.substring(tab + 1));
+
+      while ((line = reader.readLine()) != null) {
+        int firstTab = line.indexOf('\t');
+        int secondTab = line.indexOf('\t', firstTab + 1);
+        if (firstTab < 0 || secondTab < 0) {
+          throw new IOException("Malformed GedcomX RecordSet index entry: " + line);
+        }
+        index.add(unescape(line.substring(secondTab + 1)), Long.parseLong(line.substring(0, firstTab)), Integer.parseInt(line.substring(firstTab + 1, secondTab)));
+      }
+    }
+    catch (NumberFormatException e) {
+      throw new IOException("Malformed GedcomX RecordSet index entry: " + line, e);
+    }
+    return index;
+  }
+
+  /**
+   * Save this index as the sidecar index of a RecordSet file.
+   *
+   * @param recordSetFilename - Filename of the GedcomX RecordSet file (not of the index).
+   * @throws IOException If there's an I/O problem.
+   */
+  public void writeSidecar(String recordSetFilename) throws IOException {
+    if (sourceLength < 0) {
+      File file = new File(recordSetFilename);
+      sourceLength = file.length();
+      sourceLastModified = file.lastModified();
+    }
+    OutputStream outputStream = new FileOutputStream(recordSetFilename + SIDECAR_SUFFIX);
+    try {
+      write(outputStream);
+    }
+    finally {
+      outputStream.close();
+    }
+  }
+
+  /**
+   * Write this index: a line of "size TAB modification time" of the RecordSet file it was built from (-1 if it was
+   *   built from a stream), then one line per record of "offset TAB length TAB id".  Backslashes, tabs and line breaks
+   *   in an id are escaped with a backslash, and a record without an id is written as "\N".
+   *
+   * @param outputStream - OutputStream to write the index to.  It is flushed but not closed.
+   * @throws IOException If there's an I/O problem.
+   */
+  public void write(OutputStream outputStream) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writer.write(HEADER);
+    writer.write('\n');
+    writer.write(Long.toString(sourceLength));
+    writer.write('\t');
+    writer.write(Long.toString(sourceLastModified));
+    writer.write('\n');
+    for (int i = 0; i < size; i++) {
+      writer.write(Long.toString(offsets[i]));
+      writer.write('\t');
+      writer.write(Integer.toString(lengths[i]));
+      writer.write('\t');
+      writer.write(escape(ids[i]));
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+  private static String escape(String id) {
+    if (id == null) {
+      return NULL_ID;
+    }
+    StringBuilder escaped = new StringBuilder(id.length());
+    for (int i = 0; i < id.length(); i++) {
+      char c = id.charAt(i);
+      switch (c) {
+        case '\\':
+          escaped.append("\\\\");
+          break;
+        case '\t':
+          escaped.append("\\t");
+          break;
+        case '\n':
+          escaped.append("\\n");
+          break;
+        case '\r':
+          escaped.append("\\r");
+          break;
+        default:
+          escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  private static String unescape(String escaped) throws IOException {
+    if (NULL_ID.equals(escaped)) {
+      return null;
+    }
+    StringBuilder id = new StringBuilder(escaped.length());
+    for (int i = 0; i < escaped.length(); i++) {
+      char c = escaped.charAt(i);
+      if (c == '\\') {
+        char next = ++i < escaped.length() ? escaped.charAt(i) : 0;
+        switch (next) {
+          case '\\':
+            c = '\\';
+            break;
+          case 't':
+            c = '\t';
+            break;
+          case 'n':
+            c = '\n';
+            break;
+          case 'r':
+            c = '\r';
+            break;
+          default:
+            throw new IOException("Malformed GedcomX RecordSet index id: " + escaped);
+        }
+      }
+      id.append(c);
+    }
+    return id.toString();
+  }
+
+  private void add(String id, long offset, int length) {
+    if (size == offsets.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+      offsets = Arrays.copyOf(offsets, size * 2);
+      lengths = Arrays.copyOf(lengths, size * 2);
+    }
+    ids[size] = id;
+    offsets[size] = offset;
+    lengths[size] = length;
+    size++;
+    positions = null;
+  }
+
+  /**
+   * @return the number of records in the RecordSet.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param position - Position of the record in the RecordSet.
+   * @return the id of the record, or null if it has none.
+   */
+  public String getId(int position) {
+    checkPosition(position);
+    return ids[position];
+  }
+
+  /**
+   * @param position - Position of the record in the RecordSet.
+   * @return the offset of the record in the (uncompressed) RecordSet stream.
+   */
+  public long getOffset(int position) {
+    checkPosition(position);
+    return offsets[position];
+  }
+
+  /**
+   * @param position - Position of the record in the RecordSet.
+   * @return the length in bytes of the record.
+   */
+  public int getLength(int position) {
+    checkPosition(position);
+    return lengths[position];
+  }
+
+  /**
+   * Find the position of a record by its id.  If more than one record has the id, the first is found.
+   *
+   * @param id - The id of the record.
+   * @return the position of the record in the RecordSet, or -1 if there is no record with the id.
+   */
+  public synchronized int indexOf(String id) {
+    if (positions == null) {
+      positions = new HashMap<String, Integer>(size * 2);
+      for (int i = size - 1; i >= 0; i--) {
+        if (ids[i] != null) {
+          positions.put(ids[i], i);
+        }
+      }
+    }
+    Integer position = positions.get(id);
+    return position == null ? -1 : position;
+  }
+
+  private void checkPosition(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("Record " + position + " of " + size);
+    }
+  }
+}
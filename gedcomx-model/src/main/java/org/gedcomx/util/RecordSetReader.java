@@ -0,0 +1,183 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class for reading individual 'record' elements (GedcomX documents) out of a JSON-formatted RecordSet file
+ *   by id or by position, using a {@link RecordSetIndex} to go straight to the bytes of the record instead of
+ *   reading every record before it.
+ *
+ * Uncompressed files are read with random access.  A gzipped file cannot be entered part way through, so it is
+ *   inflated from the beginning up to the record, but the records before it are skipped without being parsed.
+ */
+public class RecordSetReader {
+  private final String filename;
+  private final boolean isGzipped;
+  private final RecordSetIndex index;
+  private final ObjectMapper objectMapper;
+  private RandomAccessFile file;
+
+  /**
+   * Constructor for a reader of a RecordSet file.  Uses the sidecar index of the file if there is one; otherwise
+   * the file is scanned to build an index (which is not saved).
+   *
+   * @param filename - Filename of a GedcomX RecordSet file.
+   * @throws IOException If there's an I/O problem, or the sidecar index is stale.
+   */
+  public RecordSetReader(String filename) throws IOException {
+    this(filename, new File(filename + RecordSetIndex.SIDECAR_SUFFIX).exists() ? RecordSetIndex.readSidecar(filename) : RecordSetIndex.build(filename));
+  }
+
+  /**
+   * Constructor for a reader of a RecordSet file using the given index.
+   *
+   * @param filename - Filename of a GedcomX RecordSet file.
+   * @param index - Index of the RecordSet file.
+   */
+  public RecordSetReader(String filename, RecordSetIndex index) {
+    this.filename = filename;
+    this.isGzipped = filename.toLowerCase().endsWith(".gz");
+    this.index = index;
+    this.objectMapper = GedcomJacksonModule.createObjectMapper();
+  }
+
+  /**
+   * @return the index of the RecordSet.
+   */
+  public RecordSetIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Read the record with the given id.
+   *
+   * @param id - The id of the record.
+   * @return the record, or null if there is no record with the id.
+   * @throws IOException If there's an I/O problem.
+   */
+  public Gedcomx readRecord(String id) throws IOException {
+    int position = index.indexOf(id);
+    return position < 0 ? null : readRecord(position);
+  }
+
+  /**
+   * Read the record at the given position in the RecordSet.
+   *
+   * @param position - The position of the record.
+   * @return the record.
+   * @throws IOException If there's an I/O problem.
+   */
+  public Gedcomx readRecord(int position) throws IOException {
+    return readRecords(position, position + 1).get(0);
+  }
+
+  /**
+   * Read the records from one position in the RecordSet up to (but not including) another, with a single read.
+   *
+   * @param from - The position of the first record.
+   * @param to - The position after the last record.
+   * @return the records.
+   * @throws IOException If there's an I/O problem.
+   */
+  public List<Gedcomx> readRecords(int from, int to) throws IOException {
+    if (from < 0 || to > index.size() || from > to) {
+      throw new IndexOutOfBoundsException("Records " + from + " to " + to + " of " + index.size());
+    }
+
+    List<Gedcomx> records = new ArrayList<Gedcomx>(to - from);
+    if (from == to) {
+      return records;
+    }
+
+    long start = index.getOffset(from);
+    long end = index.getOffset(to - 1) + index.getLength(to - 1);
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Records " + from + " to " + to + " are too large to read at once.");
+    }
+    byte[] bytes = readBytes(start, (int) (end - start));
+
+    for (int i = from; i < to; i++) {
+      records.add(objectMapper.readValue(bytes, (int) (index.getOffset(i) - start), index.getLength(i), Gedcomx.class));
+    }
+    return records;
+  }
+
+  private synchronized byte[] readBytes(long offset, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    if (isGzipped) {
+      InputStream inputStream = new GZIPInputStream(new BufferedInputStream(new FileInputStream(filename)));
+      try {
+        long remaining = offset;
+        while (remaining > 0) {
+          long skipped = inputStream.skip(remaining);
+          if (skipped <= 0) {
+            throw new EOFException("RecordSet " + filename + " is shorter than its index.");
+          }
+          remaining -= skipped;
+        }
+        int read = 0;
+        while (read < length) {
+          int count = inputStream.read(bytes, read, length - read);
+          if (count < 0) {
+            throw new EOFException("RecordSet " + filename + " is shorter than its index.");
+          }
+          read += count;
+        }
+      }
+      finally {
+        inputStream.close();
+      }
+    }
+    else {
+      if (file == null) {
+        file = new RandomAccessFile(filename, "r");
+      }
+      file.seek(offset);
+      file.readFully(bytes);
+    }
+    return bytes;
+  }
+
+  /**
+   * Close the RecordSet file if it is open.
+   */
+  public synchronized void close() {
+    if (file != null) {
+      try {
+        file.close();
+      } catch (IOException e) {
+        // Do nothing.
+      } finally {
+        file = null;
+      }
+    }
+  }
+}
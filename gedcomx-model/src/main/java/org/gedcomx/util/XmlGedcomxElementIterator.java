@@ -0,0 +1,254 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.agent.Agent;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rt.GedcomxConstants;
+import org.gedcomx.source.SourceDescription;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class for iterating through the persons, relationships, source descriptions, places and agents of a single GEDCOM X
+ *   document one at a time from a stream, without having to inflate the whole document at once.
+ *   This reads an XML-formatted document with StAX, unmarshalling one element at a time.
+ */
+public class XmlGedcomxElementIterator implements GedcomxElementIterator {
+  private static final Map<String, Class<?>> elementTypes = new HashMap<String, Class<?>>();
+  private static JAXBContext jaxbContext = null;
+  private InputStream inputStream;
+  private XMLStreamReader xmlStreamReader;
+  private Unmarshaller unmarshaller;
+  private Document metadataDocument;
+  private Object nextElement;
+  private Gedcomx metadata;
+
+  static {
+    elementTypes.put("person", Person.class);
+    elementTypes.put("relationship", Relationship.class);
+    elementTypes.put("sourceDescription", SourceDescription.class);
+    elementTypes.put("place", PlaceDescription.class);
+    elementTypes.put("agent", Agent.class);
+    try {
+      jaxbContext = JAXBContext.newInstance(Gedcomx.class);
+    }
+    catch (Exception ex) {
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Constructor for an element iterator that takes a filename of a GEDCOM X document and iterates through its elements.
+   * @param filename - Filename to read a GEDCOM X document from.
+   * @throws IOException If there's an I/O problem.
+   */
+  public XmlGedcomxElementIterator(String filename) throws IOException {
+    this(new FileInputStream(filename), filename.toLowerCase().endsWith(".gz"));
+  }
+
+  public XmlGedcomxElementIterator(InputStream inputStream, boolean isGzipped) throws IOException {
+    this(isGzipped ? new GZIPInputStream(inputStream) : inputStream);
+  }
+
+  /**
+   * Constructor for an element iterator that takes an InputStream of a GEDCOM X document and iterates through its elements.
+   * The encoding is taken from the XML declaration.
+   * @param inputStream - InputStream to read a GEDCOM X document from.
+   * @throws IOException If there's an I/O problem.
+   */
+  public XmlGedcomxElementIterator(InputStream inputStream) throws IOException {
+    try {
+      this.inputStream = inputStream;
+      // See XmlRecordSetIterator for why woodstox should be on the classpath.
+      xmlStreamReader = XMLInputFactory.newFactory().createXMLStreamReader(inputStream);
+      unmarshaller = jaxbContext.createUnmarshaller();
+      DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+      documentBuilderFactory.setNamespaceAware(true);
+      metadataDocument = documentBuilderFactory.newDocumentBuilder().newDocument();
+      prepareNext();
+    } catch (JAXBException e) {
+      throw new RuntimeException(e);
+    } catch (XMLStreamException e) {
+      throw new RuntimeException(e);
+    } catch (ParserConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  synchronized public boolean hasNext() {
+    return nextElement != null;
+  }
+
+  /**
+   * Prepare the next element to be retrieved.  Sets 'nextElement' to the unmarshalled element, if any, or null
+   *   if there are no more.  Consumes events from the xmlStreamReader.  Any other child of the root element is
+   *   copied to a DOM document, which becomes the metadata once the end of the document is reached.
+   * If there are no more elements, then closes the reader and input stream and sets them both to null.
+   */
+  synchronized private void prepareNext() throws XMLStreamException, JAXBException, IOException {
+    nextElement = null;
+    while (nextElement == null && xmlStreamReader != null) {
+      if (xmlStreamReader.isStartElement()) {
+        Element root = metadataDocument.getDocumentElement();
+        if (root == null) {
+          metadataDocument.appendChild(copyStartElement());
+          xmlStreamReader.next();
+        }
+        else {
+          Class<?> type = GedcomxConstants.GEDCOMX_NAMESPACE.equals(xmlStreamReader.getNamespaceURI()) ? elementTypes.get(xmlStreamReader.getLocalName()) : null;
+          if (type != null) {
+            // leaves the reader just past the end of the element.
+            nextElement = unmarshaller.unmarshal(xmlStreamReader, type).getValue();
+          }
+          else {
+            copyElement(root);
+          }
+        }
+      }
+      else if (xmlStreamReader.isEndElement() || !xmlStreamReader.hasNext()) {
+        // the end of the root element, since everything under it has been consumed.
+        if (metadataDocument.getDocumentElement() != null) {
+          metadata = unmarshaller.unmarshal(metadataDocument, Gedcomx.class).getValue();
+        }
+        close();
+      }
+      else {
+        xmlStreamReader.next();
+      }
+    }
+  }
+
+  /**
+   * Copy the element at the reader's position into the DOM under the given parent, leaving the reader just past
+   *   the end of the element.
+   */
+  private void copyElement(Node parent) throws XMLStreamException {
+    Node current = parent;
+    int depth = 0;
+    do {
+      switch (xmlStreamReader.getEventType()) {
+        case XMLStreamReader.START_ELEMENT:
+          current = current.appendChild(copyStartElement());
+          depth++;
+          break;
+        case XMLStreamReader.END_ELEMENT:
+          current = current.getParentNode();
+          depth--;
+          break;
+        case XMLStreamReader.CHARACTERS:
+        case XMLStreamReader.SPACE:
+          current.appendChild(metadataDocument.createTextNode(xmlStreamReader.getText()));
+          break;
+        case XMLStreamReader.CDATA:
+          current.appendChild(metadataDocument.createCDATASection(xmlStreamReader.getText()));
+          break;
+        default:
+          break;
+      }
+      xmlStreamReader.next();
+    } while (depth > 0);
+  }
+
+  private Element copyStartElement() {
+    String prefix = xmlStreamReader.getPrefix();
+    String localName = xmlStreamReader.getLocalName();
+    Element element = metadataDocument.createElementNS(xmlStreamReader.getNamespaceURI(), prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName);
+    for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+      String namespacePrefix = xmlStreamReader.getNamespacePrefix(i);
+      String namespaceUri = xmlStreamReader.getNamespaceURI(i);
+      element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, namespacePrefix == null || namespacePrefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + namespacePrefix, namespaceUri == null ? "" : namespaceUri);
+    }
+    for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+      String attributePrefix = xmlStreamReader.getAttributePrefix(i);
+      String attributeName = xmlStreamReader.getAttributeLocalName(i);
+      String attributeNamespace = xmlStreamReader.getAttributeNamespace(i);
+      element.setAttributeNS(attributeNamespace == null || attributeNamespace.isEmpty() ? null : attributeNamespace, attributePrefix == null || attributePrefix.isEmpty() ? attributeName : attributePrefix + ":" + attributeName, xmlStreamReader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  @Override
+  synchronized public Object next() {
+    try {
+      if (nextElement == null) {
+        return null;
+      }
+      Object element = nextElement;
+      prepareNext();
+      return element;
+    }
+    catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  synchronized public Gedcomx getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Close the input stream and accompanying reader if they are still open.
+   * If an exception occurs trying to close things, it is caught here.
+   */
+  @Override
+  synchronized public void close() {
+    try {
+      if (xmlStreamReader != null) {
+        xmlStreamReader.close();
+        xmlStreamReader = null;
+      }
+    } catch (XMLStreamException e) {
+      // Do nothing.
+    }
+
+    try {
+      if (inputStream != null) {
+        inputStream.close();
+        inputStream = null;
+      }
+    } catch (IOException e) {
+      // Do nothing
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rt.GedcomNamespaceManager;
+import org.gedcomx.rt.GedcomxConstants;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Class for streaming a single GEDCOM X document to an OutputStream in XML as its elements are being added.
+ *   Like the {@link RecordSetWriter}, each element is marshalled as a fragment, so the output has the same content as
+ *   marshalling the complete document, but namespace declarations and whitespace may be placed differently.
+ */
+public class XmlGedcomxStreamWriter extends GedcomxStreamWriter {
+  private final Marshaller marshaller;
+  private final OpenRootXMLStreamWriter xmlWriter;
+  // Stream to write data to
+  private final OutputStream outputStream;
+
+  /**
+   * Constructor. Prepares to write the elements of a GEDCOM X document to the given output stream (which may well be
+   *   a GZIPOutputStream), so that only one element needs to be fully instantiated in memory at once.
+   * @param outputStream - OutputStream to write XML to.
+   * @param header - The document-level data, without any of the elements that are to be streamed. May be null.
+   * @throws IOException If there's an I/O problem.
+   */
+  public XmlGedcomxStreamWriter(OutputStream outputStream, Gedcomx header) throws IOException {
+    this(outputStream, header, Gedcomx.class);
+  }
+
+  /**
+   * Constructor. Prepares to write the elements of a GEDCOM X document to the given output stream.
+   *   Only the supplied list of Classes will be included in the JAXBContext marshaller.
+   * @param outputStream      - OutputStream to write XML to.
+   * @param header            - The document-level data, without any of the elements that are to be streamed. May be null.
+   * @param marshallerClasses - A list of Classes to include in the underlying JAXBContext marshaller.
+   * @throws IOException If there's an I/O problem.
+   */
+  public XmlGedcomxStreamWriter(OutputStream outputStream, Gedcomx header, Class<?>... marshallerClasses) throws IOException {
+    header = checkHeader(header);
+    try {
+      this.outputStream = outputStream;
+      marshaller = JAXBContext.newInstance(marshallerClasses).createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+      marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", new GedcomNamespaceManager(Gedcomx.class));
+
+      // Use a CleanXMLStreamWriter to avoid illegal XML characters in the marshalled output, such as a vertical tab character.
+      xmlWriter = new OpenRootXMLStreamWriter(XMLOutputFactory.newFactory().createXMLStreamWriter(outputStream, "UTF-8"));
+      xmlWriter.writeStartDocument("UTF-8", "1.0");
+      // The root element is left open so the elements can be written into it.
+      marshaller.marshal(header, xmlWriter);
+    }
+    catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+    catch (JAXBException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected void startSection(Section section) {
+    // XML lists aren't wrapped.
+  }
+
+  @Override
+  @SuppressWarnings ( {"unchecked"} )
+  protected void writeElement(Section section, Object element) throws IOException {
+    try {
+      marshaller.marshal(new JAXBElement(new QName(GedcomxConstants.GEDCOMX_NAMESPACE, section.getXmlName()), section.getType(), element), xmlWriter);
+    }
+    catch (JAXBException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected void endSection(Section section) {
+    // XML lists aren't wrapped.
+  }
+
+  @Override
+  protected void finish() throws IOException {
+    try {
+      xmlWriter.closeRoot();
+      xmlWriter.writeEndDocument();
+      xmlWriter.close();
+      outputStream.close();
+    }
+    catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected void flushOutput() throws IOException {
+    try {
+      xmlWriter.flush();
+    }
+    catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * A CleanXMLStreamWriter that leaves the root element open until it is told to close it.
+   */
+  private static class OpenRootXMLStreamWriter extends CleanXMLStreamWriter {
+    private int depth = 0;
+
+    private OpenRootXMLStreamWriter(XMLStreamWriter writer) {
+      super(writer);
+    }
+
+    @Override
+    public void writeStartElement(String s) throws XMLStreamException {
+      super.writeStartElement(s);
+      depth++;
+    }
+
+    @Override
+    public void writeStartElement(String s, String s1) throws XMLStreamException {
+      super.writeStartElement(s, s1);
+      depth++;
+    }
+
+    @Override
+    public void writeStartElement(String s, String s1, String s2) throws XMLStreamException {
+      super.writeStartElement(s, s1, s2);
+      depth++;
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+      if (depth == 1) {
+        // the end of the root element; see closeRoot().
+        return;
+      }
+      super.writeEndElement();
+      depth--;
+    }
+
+    private void closeRoot() throws XMLStreamException {
+      super.writeEndElement();
+      depth = 0;
+    }
+  }
+}
@@ -3,11 +3,14 @@ package org.gedcomx.common;
 import org.gedcomx.Gedcomx;
 import org.gedcomx.agent.Agent;
 import org.gedcomx.conclusion.*;
+import org.gedcomx.source.SourceDescription;
+import org.gedcomx.source.SourceReference;
 import org.gedcomx.types.FactType;
 import org.gedcomx.types.RelationshipType;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.gedcomx.rt.SerializationUtil.processThroughJson;
 import static org.gedcomx.rt.SerializationUtil.processThroughXml;
@@ -113,6 +116,128 @@ public class GedcomxTest {
     assertNull(pcRel.getFacts());
   }
 
+  @Test
+  public void testIndexedFind() {
+    Gedcomx g = new Gedcomx().indexed();
+    assertNull(g.findPerson(new URI("#p1")));
+
+    g.addPerson(new Person().id("p1").identifier(new Identifier(new URI("https://example.org/persons/P1"))));
+    g.addPerson(new Person().id("p2"));
+    g.addAgent(new Agent().id("a1"));
+    assertEquals("p1", g.findPerson(new URI("#p1")).getId());
+    assertEquals("p1", g.findPerson(new URI("https://example.org/persons/P1")).getId());
+    assertEquals("p2", g.findPerson(new URI("#p2")).getId());
+    assertNull(g.findPerson(new URI("#p3")));
+    assertEquals("a1", g.findAgent(new URI("#a1")).getId());
+    assertNull(g.findAgent(new URI("https://example.org/persons/P1")));
+
+    // the index follows additions to the document...
+    g.addPerson(new Person().id("p3"));
+    assertEquals("p3", g.findPerson(new URI("#p3")).getId());
+
+    // ...drops entries whose ids were changed in place...
+    g.getPersons().get(1).setId("p4");
+    assertNull(g.findPerson(new URI("#p2")));
+
+    // ...and is built again on request.
+    g.getPersons().get(1).setId("p5");
+    g.indexed();
+    assertEquals("p5", g.findPerson(new URI("#p5")).getId());
+  }
+
+  @Test
+  public void testEmbedAll() {
+    // embedding merges into the persons of the first page, so each document gets its own copies.
+    Gedcomx embedded = new Gedcomx();
+    embedded.embed(makePage1());
+    embedded.embed(makePage2());
+
+    Gedcomx embeddedAll = new Gedcomx();
+    embeddedAll.embedAll(Arrays.asList(makePage1(), makePage2()));
+
+    for (Gedcomx g : new Gedcomx[] {embedded, embeddedAll}) {
+      assertEquals(2, g.getLinks().size());
+      assertEquals("https://example.org/page2", g.getLink("next").getHref().toString());
+      assertEquals(4, g.getPersons().size());
+      assertEquals("p2", g.getPersons().get(1).getId());
+      assertEquals(1, g.getPersons().get(1).getFacts().size());
+      assertEquals("p3", g.getPersons().get(2).getId());
+      assertNull(g.getPersons().get(3).getId());
+      assertEquals(1, g.getRelationships().size());
+    }
+  }
+
+  @Test
+  public void testFixLocalReferences() {
+    Gedcomx g = makeReferencingDoc(3);
+    Relationship remote = new Relationship();
+    remote.setPerson1(remoteRef("elsewhere1"));
+    g.addRelationship(remote);
+    g.fixLocalReferences();
+
+    Relationship relationship = g.getRelationships().get(0);
+    assertEquals("#p0", relationship.getPerson1().getResource().toString());
+    assertEquals("#p1", relationship.getPerson2().getResource().toString());
+    assertEquals("#s1", relationship.getSources().get(0).getDescriptionRef().toString());
+    assertEquals("https://example.org/persons/elsewhere1", g.getRelationships().get(3).getPerson1().getResource().toString());
+    assertEquals("#s0", g.getPersons().get(0).getSources().get(0).getDescriptionRef().toString());
+    assertEquals("https://example.org/sources/missing", g.getPersons().get(1).getSources().get(0).getDescriptionRef().toString());
+    assertEquals("#place0", g.getPlaces().get(0).getPlace().getResource().toString());
+    assertEquals("https://example.org/places/unique", g.getPlaces().get(g.getPlaces().size() - 1).getPlace().getResource().toString());
+  }
+
+  /**
+   * Checks the references fixed on a document large enough that the old nested loops took many minutes.  This is a
+   * correctness test only; nothing here measures the running time.
+   */
+  @Test
+  public void testFixLocalReferencesOnLargeDocument() {
+    Gedcomx g = makeReferencingDoc(50000);
+    g.fixLocalReferences();
+    assertEquals("#p49999", g.getRelationships().get(49998).getPerson2().getResource().toString());
+    assertEquals("#place24999", g.getPlaces().get(49999).getPlace().getResource().toString());
+  }
+
+  private Gedcomx makeReferencingDoc(int size) {
+    Gedcomx g = new Gedcomx();
+    for (int i = 0; i < size; i++) {
+      String sdid = i % 2 == 0 ? "s" + i : "missing";
+      g.addPerson(new Person().id("p" + i).source(new SourceReference().descriptionRef(new URI("https://example.org/sources/" + sdid)).descriptionId(sdid)));
+      g.addSourceDescription(new SourceDescription().id("s" + i));
+      Relationship relationship = new Relationship();
+      relationship.setPerson1(remoteRef("p" + i));
+      relationship.setPerson2(remoteRef("p" + ((i + 1) % size)));
+      relationship.addSource(new SourceReference().descriptionRef(new URI("https://example.org/sources/s" + ((i + 1) % size))).descriptionId("s" + ((i + 1) % size)));
+      g.addRelationship(relationship);
+      g.addPlace(new PlaceDescription().place(new ResourceReference(new URI("https://example.org/places/" + (i / 2)), "place" + (i / 2))));
+    }
+    g.addPlace(new PlaceDescription().place(new ResourceReference(new URI("https://example.org/places/unique"), "unique")));
+    return g;
+  }
+
+  private static ResourceReference remoteRef(String id) {
+    return new ResourceReference(new URI("https://example.org/persons/" + id), id);
+  }
+
+  private Gedcomx makePage1() {
+    Gedcomx page = new Gedcomx();
+    page.addLink("next", new URI("https://example.org/page2"));
+    page.addPerson(new Person().id("p1"));
+    page.addPerson(new Person().id("p2"));
+    page.addRelationship(makeRel("p1", "p2", RelationshipType.Couple));
+    return page;
+  }
+
+  private Gedcomx makePage2() {
+    Gedcomx page = new Gedcomx();
+    page.addLink("next", new URI("https://example.org/page3"));
+    page.addLink("prev", new URI("https://example.org/page1"));
+    page.addPerson(new Person().id("p2").fact(new Fact(FactType.Birth, "1850")));
+    page.addPerson(new Person().id("p3"));
+    page.addPerson(new Person());
+    return page;
+  }
+
   private Gedcomx makeDoc() {
     Gedcomx g = new Gedcomx();
 
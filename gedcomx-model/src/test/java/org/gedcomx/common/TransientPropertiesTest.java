@@ -0,0 +1,122 @@
+package org.gedcomx.common;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.util.XmlRecordSetIterator;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class TransientPropertiesTest {
+
+  @Test
+  public void testTransientPropertyMap() throws Exception {
+    TransientPropertyMap map = new TransientPropertyMap();
+    map.put("c", 3);
+    map.put("a", 1);
+    map.put("b", null);
+    map.put("d", 4);
+    assertEquals(4, map.size());
+    assertEquals(1, map.put("a", 10));
+    assertEquals(Arrays.asList("a", "b", "c", "d"), Arrays.asList(map.keySet().toArray()));
+    assertTrue(map.containsKey("b"));
+    assertNull(map.get("b"));
+    assertEquals(3, map.remove("c"));
+    assertNull(map.remove("c"));
+
+    Iterator<Map.Entry<String, Object>> entries = map.entrySet().iterator();
+    entries.next().setValue(11);
+    entries.next();
+    entries.remove();
+    assertEquals("d", entries.next().getKey());
+    assertFalse(entries.hasNext());
+    assertEquals(11, map.get("a"));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  public void testTransientPropertiesAllocatedOnFirstWrite() throws Exception {
+    Person person = new Person();
+    assertNull(person.transientProperties);
+    assertNull(person.getTransientProperty("name"));
+    assertTrue(person.getTransientProperties().isEmpty());
+    assertNull(person.transientProperties);
+
+    person.setTransientProperty("name", "value");
+    assertEquals("value", person.getTransientProperty("name"));
+    assertEquals(Collections.singletonMap("name", "value"), person.getTransientProperties());
+  }
+
+  /**
+   * Every object of a loaded document used to carry its own empty TreeMap (48 bytes each on a 64-bit JVM with
+   * compressed oops, not counting its headers' share of the heap); none of them do now.
+   */
+  @Test
+  public void testLoadedDocumentAllocatesNoTransientProperties() throws Exception {
+    InputStream inputStream = getClass().getClassLoader().getResourceAsStream("gedcomx-recordset.xml");
+    XmlRecordSetIterator iterator = new XmlRecordSetIterator(inputStream, false);
+    Gedcomx document = new Gedcomx();
+    while (iterator.hasNext()) {
+      document.embed(iterator.next());
+    }
+    iterator.close();
+
+    int instances = 0;
+    for (ExtensibleData data : findExtensibleData(document)) {
+      assertNull(data.getClass().getName(), data.transientProperties);
+      instances++;
+    }
+    assertTrue("expected a large document, found " + instances + " objects", instances > 100);
+  }
+
+  private static Set<ExtensibleData> findExtensibleData(Object root) throws IllegalAccessException {
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    Set<ExtensibleData> found = Collections.newSetFromMap(new IdentityHashMap<ExtensibleData, Boolean>());
+    Deque<Object> pending = new ArrayDeque<Object>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Object next = pending.pop();
+      if (!visited.add(next)) {
+        continue;
+      }
+
+      if (next instanceof Iterable) {
+        for (Object item : (Iterable<?>) next) {
+          if (item != null) {
+            pending.push(item);
+          }
+        }
+      }
+      else if (next.getClass().getName().startsWith("org.gedcomx.")) {
+        if (next instanceof ExtensibleData) {
+          found.add((ExtensibleData) next);
+        }
+        for (Class<?> clazz = next.getClass(); clazz != null && clazz.getName().startsWith("org.gedcomx."); clazz = clazz.getSuperclass()) {
+          for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive() && !field.getName().equals("transientProperties")) {
+              field.setAccessible(true);
+              Object value = field.get(next);
+              if (value != null) {
+                pending.push(value);
+              }
+            }
+          }
+        }
+      }
+    }
+    return found;
+  }
+}
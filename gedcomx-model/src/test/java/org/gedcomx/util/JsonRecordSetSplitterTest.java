@@ -0,0 +1,60 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonRecordSetSplitterTest {
+
+  private static final String RECORD_SET = "{ \"other\": {\"records\": [1, 2]}, \"count\": 5,\n"
+    + "  \"records\": [ {\"name\":\"}{\\\"}\", \"parts\":[{}]} ,\n {\"id\":\"x\"}\n],\n"
+    + "  \"metadata\": {\"note\":\"}\"}, \"id\":\"r\\\"1\" }";
+
+  @Test
+  public void testBracesInStringsAreIgnored() throws IOException {
+    // Tiny buffers force the record to be compacted and grown across many reads.
+    for (int bufferSize : new int[] {1, 2, 7, 1024}) {
+      JsonRecordSetSplitter splitter = new JsonRecordSetSplitter(new ByteArrayInputStream(RECORD_SET.getBytes(StandardCharsets.UTF_8)), bufferSize);
+      assertEquals("{\"name\":\"}{\\\"}\", \"parts\":[{}]}", new String(splitter.nextRecord(), StandardCharsets.UTF_8));
+
+      assertTrue(splitter.nextRecordSlice());
+      assertEquals(RECORD_SET.indexOf("{\"id\":\"x\"}"), splitter.getRecordOffset());
+      assertEquals("{\"id\":\"x\"}", new String(splitter.getBuffer(), splitter.getSliceOffset(), splitter.getSliceLength(), StandardCharsets.UTF_8));
+
+      assertFalse(splitter.nextRecordSlice());
+      assertEquals(2, splitter.getRecordCount());
+      assertEquals("{\"note\":\"}\"}", new String(splitter.getMetadataBytes(), StandardCharsets.UTF_8));
+      assertEquals("r\"1", splitter.getId());
+    }
+  }
+
+  @Test
+  public void testEmptyRecords() throws IOException {
+    JsonRecordSetSplitter splitter = new JsonRecordSetSplitter(new ByteArrayInputStream("{\"records\":[]}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(splitter.nextRecord());
+    assertNull(splitter.getMetadataBytes());
+    assertNull(splitter.getId());
+  }
+}
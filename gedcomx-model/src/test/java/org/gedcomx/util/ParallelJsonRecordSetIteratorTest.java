@@ -0,0 +1,150 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.records.RecordSet;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelJsonRecordSetIteratorTest {
+
+  @Test
+  public void testRecordsReturnedInOrder() throws Exception {
+    List<Gedcomx> records = manyRecords(50);
+    byte[] bytes = writeRecordSet(records);
+
+    ParallelJsonRecordSetIterator iterator = new ParallelJsonRecordSetIterator(new ByteArrayInputStream(bytes), 4);
+    int i = 0;
+    while (iterator.hasNext()) {
+      assertEquals(records.get(i++).getId(), iterator.next().getId());
+    }
+    assertEquals(records.size(), i);
+    assertNull(iterator.next());
+    assertNotNull(iterator.getMetadata());
+    iterator.close();
+  }
+
+  @Test
+  public void testUnorderedReturnsEveryRecord() throws Exception {
+    List<Gedcomx> records = manyRecords(50);
+    byte[] bytes = writeRecordSet(records);
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      ParallelJsonRecordSetIterator iterator = new ParallelJsonRecordSetIterator(new ByteArrayInputStream(bytes), executor, false, 2);
+      Set<String> ids = new HashSet<String>();
+      while (iterator.hasNext()) {
+        ids.add(iterator.next().getId());
+      }
+      iterator.close();
+
+      assertEquals(records.size(), ids.size());
+      for (Gedcomx record : records) {
+        assertFalse(ids.add(record.getId()));
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testOwnedPoolStopsAtEnd() throws Exception {
+    byte[] bytes = writeRecordSet(manyRecords(20));
+
+    ParallelJsonRecordSetIterator iterator = new ParallelJsonRecordSetIterator(new ByteArrayInputStream(bytes), 4);
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertEquals(20, count);
+    //not closed, but every record has been returned, so the workers and the reader go away on their own.
+    assertTrue(noThreadsNamed("gedcomx-recordset-"));
+  }
+
+  @Test
+  public void testConstructorFailureStopsThreads() throws Exception {
+    byte[] bytes = "{\"records\":[{\"id\":\"r_0\",\"persons\":{}}]}".getBytes("UTF-8");
+    try {
+      new ParallelJsonRecordSetIterator(new ByteArrayInputStream(bytes), 2);
+      fail();
+    }
+    catch (IOException e) {
+      //expected
+    }
+    assertTrue(noThreadsNamed("gedcomx-recordset-"));
+  }
+
+  private static boolean noThreadsNamed(String prefix) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      boolean found = false;
+      for (Thread thread : Thread.getAllStackTraces().keySet()) {
+        if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+          found = true;
+        }
+      }
+      if (!found) {
+        return true;
+      }
+      Thread.sleep(50);
+    }
+    return false;
+  }
+
+  private static List<Gedcomx> manyRecords(int count) throws IOException {
+    List<Gedcomx> source = JsonRecordSetIteratorTest.getRecordsFromRecordSetFile();
+    List<Gedcomx> records = new ArrayList<Gedcomx>();
+    for (int i = 0; i < count; i++) {
+      Gedcomx record = source.get(i % source.size());
+      Gedcomx copy = new Gedcomx();
+      copy.setId("r_" + i);
+      copy.setPersons(record.getPersons());
+      copy.setRelationships(record.getRelationships());
+      records.add(copy);
+    }
+    return records;
+  }
+
+  private static byte[] writeRecordSet(List<Gedcomx> records) throws Exception {
+    RecordSet recordSet = new RecordSet();
+    recordSet.setMetadata(TestRecordSetWriter.getMetadataFromFile());
+    recordSet.setRecords(records);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectMapper objectMapper = GedcomJacksonModule.createObjectMapper();
+    objectMapper.writeValue(bos, recordSet);
+    return bos.toByteArray();
+  }
+}
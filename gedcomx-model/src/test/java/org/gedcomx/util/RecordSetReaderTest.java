@@ -0,0 +1,134 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.records.RecordSet;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RecordSetReaderTest {
+
+  @Test
+  public void testReadRecordsThroughSidecarIndex() throws Exception {
+    List<Gedcomx> records = JsonRecordSetIteratorTest.getRecordsFromRecordSetFile();
+    RecordSet recordSet = new RecordSet();
+    recordSet.setMetadata(TestRecordSetWriter.getMetadataFromFile());
+    recordSet.setRecords(records);
+    ObjectMapper objectMapper = GedcomJacksonModule.createObjectMapper();
+
+    for (boolean isGzipped : new boolean[]{false, true}) {
+      File file = File.createTempFile("recordset", isGzipped ? ".json.gz" : ".json");
+      File sidecar = new File(file.getPath() + RecordSetIndex.SIDECAR_SUFFIX);
+      file.deleteOnExit();
+      sidecar.deleteOnExit();
+      OutputStream outputStream = new FileOutputStream(file);
+      objectMapper.writeValue(isGzipped ? new GZIPOutputStream(outputStream) : outputStream, recordSet);
+
+      RecordSetIndex.build(file.getPath()).writeSidecar(file.getPath());
+      assertTrue(sidecar.exists());
+
+      RecordSetReader reader = new RecordSetReader(file.getPath());
+      assertEquals(records.size(), reader.getIndex().size());
+      for (int i = records.size() - 1; i >= 0; i--) {
+        String id = records.get(i).getId();
+        assertEquals(id, reader.getIndex().getId(i));
+        assertEquals(id, reader.readRecord(id).getId());
+        assertEquals(records.get(i).getPersons().size(), reader.readRecord(i).getPersons().size());
+      }
+      List<Gedcomx> range = reader.readRecords(1, records.size());
+      assertEquals(records.size() - 1, range.size());
+      assertEquals(records.get(1).getId(), range.get(0).getId());
+      assertNull(reader.readRecord("no-such-record"));
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testStaleSidecarIsRejected() throws Exception {
+    File file = File.createTempFile("recordset", ".json");
+    File sidecar = new File(file.getPath() + RecordSetIndex.SIDECAR_SUFFIX);
+    file.deleteOnExit();
+    sidecar.deleteOnExit();
+    writeRecordSet(file, "{\"records\":[{\"id\":\"r1\"},{\"id\":\"r2\"}]}");
+    RecordSetIndex.build(file.getPath()).writeSidecar(file.getPath());
+    assertEquals(2, RecordSetIndex.readSidecar(file.getPath()).size());
+
+    writeRecordSet(file, "{\"records\":[{\"id\":\"r1\"},{\"id\":\"r2\"},{\"id\":\"r3\"}]}");
+    try {
+      new RecordSetReader(file.getPath());
+      fail("A sidecar for a rewritten RecordSet should be rejected.");
+    }
+    catch (IOException e) {
+      assertTrue(e.getMessage().contains("Stale"));
+    }
+
+    RecordSetIndex.build(file.getPath()).writeSidecar(file.getPath());
+    assertEquals(3, new RecordSetReader(file.getPath()).getIndex().size());
+  }
+
+  @Test
+  public void testIdsAreEscaped() throws Exception {
+    String json = "{\"records\":[{\"id\":\"a\\tb\\nc\\\\N\"},{\"id\":\"\"},{\"lang\":\"en\"},{\"id\":\"\\\\N\"}]}";
+    RecordSetIndex index = RecordSetIndex.build(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.write(out);
+    RecordSetIndex copy = RecordSetIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+    assertEquals(4, copy.size());
+    assertEquals("a\tb\nc\\N", copy.getId(0));
+    assertEquals("", copy.getId(1));
+    assertNull(copy.getId(2));
+    assertEquals("\\N", copy.getId(3));
+    for (int i = 0; i < index.size(); i++) {
+      assertEquals(index.getOffset(i), copy.getOffset(i));
+      assertEquals(index.getLength(i), copy.getLength(i));
+    }
+    assertEquals(0, copy.indexOf("a\tb\nc\\N"));
+    assertEquals(3, copy.indexOf("\\N"));
+  }
+
+  private static void writeRecordSet(File file, String json) throws IOException {
+    long lastModified = file.lastModified();
+    OutputStream outputStream = new FileOutputStream(file);
+    try {
+      outputStream.write(json.getBytes(StandardCharsets.UTF_8));
+    }
+    finally {
+      outputStream.close();
+    }
+    // make sure a rewrite is visible even on file systems with a coarse modification time
+    if (lastModified != 0 && file.lastModified() <= lastModified) {
+      assertTrue(file.setLastModified(lastModified + 2000));
+    }
+  }
+}
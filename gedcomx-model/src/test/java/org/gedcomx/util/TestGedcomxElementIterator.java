@@ -0,0 +1,156 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.agent.Agent;
+import org.gedcomx.common.Attribution;
+import org.gedcomx.conclusion.Event;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.PlaceDescription;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rt.GedcomxModelVisitorBase;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+import org.gedcomx.source.SourceDescription;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Class for testing the GedcomxElementIterator implementations.
+ */
+public class TestGedcomxElementIterator {
+
+  @Test
+  public void testJson() throws Exception {
+    byte[] json = GedcomJacksonModule.createObjectMapper().writeValueAsBytes(createDocument());
+    GedcomxElementIterator iterator = new JsonGedcomxElementIterator(new ByteArrayInputStream(json));
+    checkIterator(iterator);
+  }
+
+  @Test
+  public void testXml() throws Exception {
+    ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    MarshalUtil.output(xml, createDocument(), true);
+    GedcomxElementIterator iterator = new XmlGedcomxElementIterator(new ByteArrayInputStream(xml.toByteArray()));
+    checkIterator(iterator);
+  }
+
+  @Test
+  public void testVisitor() throws Exception {
+    byte[] json = GedcomJacksonModule.createObjectMapper().writeValueAsBytes(createDocument());
+    GedcomxElementIterator iterator = new JsonGedcomxElementIterator(new ByteArrayInputStream(json));
+    final List<String> visited = new ArrayList<String>();
+    iterator.accept(new GedcomxModelVisitorBase() {
+      @Override
+      public void visitPerson(Person person) {
+        visited.add(person.getId());
+      }
+
+      @Override
+      public void visitAgent(Agent agent) {
+        visited.add(agent.getId());
+      }
+    });
+    Collections.sort(visited);
+    assertEquals("[a1, p1, p2]", visited.toString());
+    assertFalse(iterator.hasNext());
+    assertEquals("g1", iterator.getMetadata().getId());
+  }
+
+  @Test
+  public void testTruncatedJson() throws Exception {
+    byte[] json = GedcomJacksonModule.createObjectMapper().writeValueAsBytes(createDocument());
+    String document = new String(json, StandardCharsets.UTF_8);
+    // cut off after the persons, and just before the closing brace.
+    for (int end : new int[] {document.indexOf("\"relationships\""), document.lastIndexOf('}')}) {
+      GedcomxElementIterator iterator = new JsonGedcomxElementIterator(new ByteArrayInputStream(Arrays.copyOf(json, end)));
+      try {
+        while (iterator.hasNext()) {
+          iterator.next();
+        }
+        fail("A truncated document should not be read as a complete one.");
+      }
+      catch (RuntimeException e) {
+        assertTrue(e.getCause() instanceof IOException);
+      }
+      assertFalse(iterator.hasNext());
+      assertNull(iterator.getMetadata());
+    }
+  }
+
+  private static void checkIterator(GedcomxElementIterator iterator) {
+    List<String> ids = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      Object element = iterator.next();
+      if (element instanceof Person) {
+        ids.add(((Person) element).getId());
+      }
+      else if (element instanceof Relationship) {
+        ids.add(((Relationship) element).getId());
+      }
+      else if (element instanceof SourceDescription) {
+        ids.add(((SourceDescription) element).getId());
+      }
+      else if (element instanceof Agent) {
+        ids.add(((Agent) element).getId());
+      }
+      else if (element instanceof PlaceDescription) {
+        ids.add(((PlaceDescription) element).getId());
+      }
+    }
+    Collections.sort(ids);
+    assertEquals("[a1, p1, p2, pl1, r1, s1]", ids.toString());
+    assertNull(iterator.next());
+
+    Gedcomx metadata = iterator.getMetadata();
+    assertEquals("g1", metadata.getId());
+    assertEquals("imported", metadata.getAttribution().getChangeMessage());
+    assertEquals(1, metadata.getEvents().size());
+    assertTrue(metadata.getPersons() == null || metadata.getPersons().isEmpty());
+    assertTrue(metadata.getAgents() == null || metadata.getAgents().isEmpty());
+    iterator.close();
+  }
+
+  private static Gedcomx createDocument() {
+    Agent agent = new Agent();
+    agent.setId("a1");
+    Gedcomx doc = new Gedcomx()
+      .attribution(new Attribution().changeMessage("imported"))
+      .person(new Person().id("p1"))
+      .person(new Person().id("p2"))
+      .relationship(new Relationship().id("r1"))
+      .sourceDescription(new SourceDescription().id("s1"))
+      .agent(agent)
+      .event(new Event().id("e1"))
+      .place(new PlaceDescription().id("pl1"));
+    doc.setId("g1");
+    return doc;
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.util;
+
+import org.gedcomx.Gedcomx;
+import org.gedcomx.common.Attribution;
+import org.gedcomx.conclusion.Event;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rt.SerializationUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Class for testing the GedcomxStreamWriter implementations.
+ */
+public class TestGedcomxStreamWriter {
+
+  @Test
+  public void testJsonMatchesSerializer() throws Exception {
+    Gedcomx doc = createHeader();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GedcomxStreamWriter writer = new JsonGedcomxStreamWriter(out, createHeader());
+    writer.setFlushInterval(2);
+    for (int i = 0; i < 5; i++) {
+      Person person = new Person().id("p" + i);
+      doc.person(person);
+      writer.writePerson(person);
+    }
+    Relationship relationship = new Relationship().id("r1");
+    doc.relationship(relationship);
+    writer.writeRelationship(relationship);
+    Event event = new Event().id("e1");
+    doc.event(event);
+    writer.writeEvent(event);
+    writer.close();
+
+    assertEquals(7, writer.getCount());
+    assertTrue(Arrays.equals(SerializationUtil.toJsonStream(doc, Gedcomx.class), out.toByteArray()));
+  }
+
+  @Test
+  public void testXmlRoundTrip() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GedcomxStreamWriter writer = new XmlGedcomxStreamWriter(out, createHeader());
+    for (int i = 0; i < 5; i++) {
+      writer.writePerson(new Person().id("p" + i));
+    }
+    writer.writeRelationship(new Relationship().id("r1"));
+    writer.close();
+
+    Gedcomx doc = MarshalUtil.unmarshal(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals("g1", doc.getId());
+    assertEquals("exported", doc.getAttribution().getChangeMessage());
+    assertEquals(5, doc.getPersons().size());
+    assertEquals("p4", doc.getPersons().get(4).getId());
+    assertEquals("r1", doc.getRelationships().get(0).getId());
+
+    GedcomxElementIterator iterator = new XmlGedcomxElementIterator(new ByteArrayInputStream(out.toByteArray()));
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertEquals(6, count);
+  }
+
+  @Test
+  public void testOrder() throws Exception {
+    GedcomxStreamWriter writer = new JsonGedcomxStreamWriter(new ByteArrayOutputStream(), null);
+    writer.writeRelationship(new Relationship().id("r1"));
+    try {
+      writer.writePerson(new Person().id("p1"));
+      fail();
+    }
+    catch (IllegalStateException e) {
+      // persons come before relationships.
+    }
+    writer.close();
+  }
+
+  @Test ( expected = IllegalArgumentException.class )
+  public void testHeaderWithElements() throws Exception {
+    new JsonGedcomxStreamWriter(new ByteArrayOutputStream(), new Gedcomx().person(new Person().id("p1")));
+  }
+
+  private static Gedcomx createHeader() {
+    Gedcomx header = new Gedcomx().attribution(new Attribution().changeMessage("exported"));
+    header.setId("g1");
+    header.setLang("en");
+    return header;
+  }
+}
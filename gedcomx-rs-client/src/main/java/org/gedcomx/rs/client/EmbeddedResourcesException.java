@@ -0,0 +1,118 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client;
+
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import org.gedcomx.links.Link;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when one or more embedded links could not be loaded. Resources from the links that did load have
+ * already been merged into the entity by the time this is thrown.
+ */
+public class EmbeddedResourcesException extends GedcomxApplicationException {
+
+  private final List<Failure> failures;
+
+  public EmbeddedResourcesException(List<Failure> failures) {
+    super(buildMessage(failures), failures.isEmpty() ? null : failures.get(0).getResponse());
+    this.failures = Collections.unmodifiableList(failures);
+    for (Failure failure : failures) {
+      if (failure.getCause() != null) {
+        addSuppressed(failure.getCause());
+      }
+    }
+  }
+
+  private static String buildMessage(List<Failure> failures) {
+    if (failures.size() == 1) {
+      return failures.get(0).getMessage();
+    }
+
+    StringBuilder message = new StringBuilder("Unable to load ").append(failures.size()).append(" embedded resources:");
+    for (Failure failure : failures) {
+      message.append("\n  ").append(failure.getMessage());
+    }
+    return message.toString();
+  }
+
+  /**
+   * The failed links, in the order they were requested.
+   *
+   * @return The failed links.
+   */
+  public List<Failure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * A single embedded link that could not be loaded.
+   */
+  public static class Failure {
+
+    private final Link link;
+    private final ClientRequest request;
+    private final ClientResponse response;
+    private final Throwable cause;
+
+    public Failure(Link link, ClientRequest request, ClientResponse response, Throwable cause) {
+      this.link = link;
+      this.request = request;
+      this.response = response;
+      this.cause = cause;
+    }
+
+    /**
+     * @return The link that could not be loaded.
+     */
+    public Link getLink() {
+      return link;
+    }
+
+    /**
+     * @return The request that was made for the link.
+     */
+    public ClientRequest getRequest() {
+      return request;
+    }
+
+    /**
+     * @return The response from the server, or null if no response was received.
+     */
+    public ClientResponse getResponse() {
+      return response;
+    }
+
+    /**
+     * @return The error that prevented the request from completing, or null if the server responded with an error.
+     */
+    public Throwable getCause() {
+      return cause;
+    }
+
+    public String getMessage() {
+      if (this.response != null) {
+        return String.format("Unable to load embedded resources: server says \"%s\" at %s.", this.response.getStatus(), this.request.getURI());
+      }
+      else {
+        return String.format("Unable to load embedded resources at %s: %s", this.request.getURI(), this.cause);
+      }
+    }
+  }
+}
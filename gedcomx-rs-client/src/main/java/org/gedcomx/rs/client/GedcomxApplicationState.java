@@ -46,6 +46,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * @author Ryan Heaton
@@ -60,8 +75,11 @@ public abstract class GedcomxApplicationState<E> {
     final String propertiesFile = "/META-INF/maven/org.gedcomx/gedcomx-rs-client/pom.properties";
     try (final InputStream propertiesInputStream = ClassLoader.class.getResourceAsStream(propertiesFile)) {
       final Properties properties = new Properties();
-      properties.load(propertiesInputStream);
-      localSdkVersion = properties.getProperty("version");
+      //the properties are only there when running from the packaged jar.
+      if (propertiesInputStream != null) {
+        properties.load(propertiesInputStream);
+        localSdkVersion = properties.getProperty("version");
+      }
     }
     catch (IOException ioe) {
       // Intentionally do nothing
@@ -76,9 +94,9 @@ public abstract class GedcomxApplicationState<E> {
   protected final ClientResponse response;
   protected final E entity;
   protected String accessToken;
-  private ClientRequest lastEmbeddedRequest;
-  private ClientResponse lastEmbeddedResponse;
-  private final Set<String> embeddedLinksLoaded = new TreeSet<String>();
+  private volatile ClientRequest lastEmbeddedRequest;
+  private volatile ClientResponse lastEmbeddedResponse;
+  private final Set<String> embeddedLinksLoaded = new ConcurrentSkipListSet<String>();
 
   protected GedcomxApplicationState(ClientRequest request, ClientResponse response, String accessToken, StateFactory stateFactory) {
     this.request = request;
@@ -544,9 +562,169 @@ public abstract class GedcomxApplicationState<E> {
     embed(getEmbeddedLinkLoader().loadEmbeddedLinks(entity), entity, options);
   }
 
+  /**
+   * Load the given links and merge the resources into the entity, concurrently if there's an
+   * {@link #getEmbeddedResourceExecutor() embedded resource executor}, otherwise one at a time on the calling thread.
+   * Either way, only the first link of each rel is loaded and failures are reported together once all the links
+   * have been processed.
+   *
+   * @param links The links to load.
+   * @param entity The entity into which the resources are to be merged.
+   * @param options The options to apply to each request.
+   * @throws EmbeddedResourcesException If any of the links failed to load.
+   */
   protected void embed(List<Link> links, Gedcomx entity, StateTransitionOption... options) {
+    Executor executor = getEmbeddedResourceExecutor();
+    embedConcurrently(links, entity, executor == null || links.size() < 2 ? CALLING_THREAD : executor, options);
+  }
+
+  /**
+   * The executor used to fetch embedded links concurrently, or null to fetch them one at a time.
+   *
+   * @return The executor used to fetch embedded links.
+   */
+  protected Executor getEmbeddedResourceExecutor() {
+    return this.stateFactory == null ? null : this.stateFactory.getEmbeddedResourceExecutor();
+  }
+
+  /**
+   * Run a state transition asynchronously, e.g. {@code person.async(person::readAncestry)} or
+   * {@code person.async(() -> person.readSpouses(options))}. The transition runs on the state factory's
+   * {@link StateFactory#getAsyncExecutor() async executor}; the future completes with the resulting state, or
+   * exceptionally with whatever the transition threw.
+   *
+   * <p>Transitions that only read this state may run concurrently. Transitions that change it, like loading embedded
+   * resources, shouldn't overlap with others on the same state.</p>
+   *
+   * @param transition The transition.
+   * @param <S> The type of the resulting state.
+   * @return The future result of the transition.
+   */
+  public <S> CompletableFuture<S> async(Supplier<S> transition) {
+    return CompletableFuture.supplyAsync(transition, getAsyncExecutor());
+  }
+
+  /**
+   * {@link #head(StateTransitionOption...) head} this state asynchronously.
+   *
+   * @param options The options to apply before handling the transition.
+   * @return The future resulting state.
+   */
+  public CompletableFuture<? extends GedcomxApplicationState> headAsync(StateTransitionOption... options) {
+    return async(() -> head(options));
+  }
+
+  /**
+   * {@link #get(StateTransitionOption...) get} this state asynchronously.
+   *
+   * @param options The options to apply before handling the transition.
+   * @return The future resulting state.
+   */
+  public CompletableFuture<? extends GedcomxApplicationState> getAsync(StateTransitionOption... options) {
+    return async(() -> get(options));
+  }
+
+  /**
+   * {@link #put(Object, StateTransitionOption...) put} an entity to this state asynchronously.
+   *
+   * @param entity The entity to put.
+   * @param options The options to apply before handling the transition.
+   * @return The future resulting state.
+   */
+  public CompletableFuture<? extends GedcomxApplicationState> putAsync(E entity, StateTransitionOption... options) {
+    return async(() -> put(entity, options));
+  }
+
+  /**
+   * {@link #post(Object, StateTransitionOption...) post} an entity to this state asynchronously.
+   *
+   * @param entity The entity to post.
+   * @param options The options to apply before handling the transition.
+   * @return The future resulting state.
+   */
+  public CompletableFuture<? extends GedcomxApplicationState> postAsync(E entity, StateTransitionOption... options) {
+    return async(() -> post(entity, options));
+  }
+
+  /**
+   * The executor on which async transitions run.
+   *
+   * @return The executor on which async transitions run.
+   */
+  protected Executor getAsyncExecutor() {
+    Executor executor = this.stateFactory == null ? null : this.stateFactory.getAsyncExecutor();
+    return executor == null ? DefaultAsyncExecutor.INSTANCE : executor;
+  }
+
+  /**
+   * Fetch the given links on the executor and merge the results into the entity. The fetches run in parallel,
+   * but the results are merged on the calling thread in the order of the links, so the entity ends up the same
+   * as if the links had been loaded one at a time. Links that fail don't keep the others from being merged;
+   * the failures are reported together once all the links have been processed.
+   *
+   * @param links The links to load.
+   * @param entity The entity into which the resources are to be merged.
+   * @param executor The executor on which to fetch the links.
+   * @param options The options to apply to each request.
+   * @throws EmbeddedResourcesException If any of the links failed to load.
+   */
+  protected void embedConcurrently(List<Link> links, Gedcomx entity, Executor executor, StateTransitionOption... options) {
+    List<FutureTask<EmbeddedResource>> fetches = new ArrayList<FutureTask<EmbeddedResource>>(links.size());
+    Set<String> rels = new HashSet<String>();
     for (Link link : links) {
-      embed(link, entity, options);
+      String rel = link.getRel();
+      if (link.getHref() == null || (rel != null && (isEmbeddedLinkLoaded(rel) || !rels.add(rel)))) {
+        continue;
+      }
+
+      ClientRequest request = createRequestForEmbeddedResource(rel).build(link.getHref().toURI(), HttpMethod.GET);
+      FutureTask<EmbeddedResource> fetch = new FutureTask<EmbeddedResource>(new EmbeddedResourceFetch(link, request, options));
+      fetches.add(fetch);
+      try {
+        executor.execute(fetch);
+      }
+      catch (RejectedExecutionException e) {
+        fetch.run();
+      }
+    }
+
+    List<EmbeddedResourcesException.Failure> failures = new ArrayList<EmbeddedResourcesException.Failure>();
+    for (int i = 0; i < fetches.size(); i++) {
+      EmbeddedResource resource;
+      try {
+        resource = fetches.get(i).get();
+      }
+      catch (InterruptedException e) {
+        for (int j = i; j < fetches.size(); j++) {
+          fetches.get(j).cancel(true);
+        }
+        Thread.currentThread().interrupt();
+        throw new GedcomxApplicationException(e);
+      }
+      catch (ExecutionException e) {
+        //the fetch itself catches everything it can; this is just in case.
+        throw new GedcomxApplicationException(e.getCause());
+      }
+
+      String rel = resource.link.getRel();
+      lastEmbeddedRequest = resource.request;
+      lastEmbeddedResponse = resource.response;
+      if (resource.error != null) {
+        failures.add(new EmbeddedResourcesException.Failure(resource.link, resource.request, resource.response, resource.error));
+      }
+      else if (resource.entity != null) {
+        entity.embed(resource.entity);
+        if (rel != null) {
+          this.embeddedLinksLoaded.add(rel);
+        }
+      }
+      else if (resource.response.getStatus() >= 500) {
+        failures.add(new EmbeddedResourcesException.Failure(resource.link, resource.request, resource.response, null));
+      }
+    }
+
+    if (!failures.isEmpty()) {
+      throw new EmbeddedResourcesException(failures);
     }
   }
 
@@ -554,32 +732,99 @@ public abstract class GedcomxApplicationState<E> {
     return DEFAULT_EMBEDDED_LINK_LOADER;
   }
 
+  /**
+   * Load a single embedded link on the calling thread and merge it into the entity, the same way
+   * {@link #embedConcurrently(List, Gedcomx, Executor, StateTransitionOption...)} loads each of its links.
+   *
+   * @param link The link to load.
+   * @param entity The entity into which the resource is to be merged.
+   * @param options The options to apply to the request.
+   * @throws EmbeddedResourcesException If the link failed to load.
+   */
   protected void embed(Link link, Gedcomx entity, StateTransitionOption... options) {
-    String rel = link.getRel();
-    if (rel != null && isEmbeddedLinkLoaded(rel)) {
-      return;
+    embedConcurrently(Collections.singletonList(link), entity, CALLING_THREAD, options);
+  }
+
+  protected ClientRequest.Builder createRequestForEmbeddedResource(String rel) {
+    return createAuthenticatedGedcomxRequest();
+  }
+
+  /**
+   * Runs each fetch as it's submitted, for loading embedded links one at a time.
+   */
+  private static final Executor CALLING_THREAD = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
     }
+  };
 
-    if (link.getHref() != null) {
-      lastEmbeddedRequest = createRequestForEmbeddedResource(rel).build(link.getHref().toURI(), HttpMethod.GET);
-      lastEmbeddedResponse = invoke(lastEmbeddedRequest, options);
-      if (lastEmbeddedResponse.getClientResponseStatus() == ClientResponse.Status.OK) {
-        entity.embed(lastEmbeddedResponse.getEntity(Gedcomx.class));
-        if (rel != null) {
-          this.embeddedLinksLoaded.add(rel);
+  /**
+   * Transitions block while their requests are in flight, so they get their own threads rather than the common pool.
+   * The pool is bounded; transitions beyond {@link #THREADS} wait in the queue, and idle threads go away.
+   */
+  private static class DefaultAsyncExecutor {
+
+    private static final int THREADS = 8;
+
+    private static final ExecutorService INSTANCE;
+    static {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "gedcomx-async-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
         }
-      }
-      else if (lastEmbeddedResponse.getStatus() >= 500) {
-        throw new GedcomxApplicationException(String.format("Unable to load embedded resources: server says \"%s\" at %s.", lastEmbeddedResponse.getStatus(), lastEmbeddedRequest.getURI()), lastEmbeddedResponse);
-      }
-      else {
-        //todo: log a warning? throw an error?
-      }
+      });
+      executor.allowCoreThreadTimeOut(true);
+      INSTANCE = executor;
     }
   }
 
-  protected ClientRequest.Builder createRequestForEmbeddedResource(String rel) {
-    return createAuthenticatedGedcomxRequest();
+  private static class EmbeddedResource {
+
+    private final Link link;
+    private final ClientRequest request;
+    private ClientResponse response;
+    private Gedcomx entity;
+    private RuntimeException error;
+
+    private EmbeddedResource(Link link, ClientRequest request) {
+      this.link = link;
+      this.request = request;
+    }
+  }
+
+  private class EmbeddedResourceFetch implements Callable<EmbeddedResource> {
+
+    private final Link link;
+    private final ClientRequest request;
+    private final StateTransitionOption[] options;
+
+    private EmbeddedResourceFetch(Link link, ClientRequest request, StateTransitionOption[] options) {
+      this.link = link;
+      this.request = request;
+      this.options = options;
+    }
+
+    @Override
+    public EmbeddedResource call() {
+      EmbeddedResource resource = new EmbeddedResource(this.link, this.request);
+      try {
+        resource.response = invoke(this.request, this.options);
+        if (resource.response.getClientResponseStatus() == ClientResponse.Status.OK) {
+          //read the entity here so the parsing happens in parallel too.
+          resource.entity = resource.response.getEntity(Gedcomx.class);
+        }
+      }
+      catch (RuntimeException e) {
+        resource.error = e;
+      }
+      return resource;
+    }
   }
 
   public AgentState readContributor(StateTransitionOption... options) {
@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Ryan Heaton
@@ -105,6 +106,26 @@ public class PersonState extends GedcomxApplicationState<Gedcomx> {
     return (PersonState) super.post(entity, options);
   }
 
+  @Override
+  public CompletableFuture<PersonState> headAsync(StateTransitionOption... options) {
+    return async(() -> head(options));
+  }
+
+  @Override
+  public CompletableFuture<PersonState> getAsync(StateTransitionOption... options) {
+    return async(() -> get(options));
+  }
+
+  @Override
+  public CompletableFuture<PersonState> putAsync(Gedcomx e, StateTransitionOption... options) {
+    return async(() -> put(e, options));
+  }
+
+  @Override
+  public CompletableFuture<PersonState> postAsync(Gedcomx entity, StateTransitionOption... options) {
+    return async(() -> post(entity, options));
+  }
+
   @Override
   public PersonState options(StateTransitionOption... options) {
     return (PersonState) super.options(options);
@@ -279,6 +300,10 @@ public class PersonState extends GedcomxApplicationState<Gedcomx> {
     return this.stateFactory.newAncestryResultsState(request, invoke(request, options), this.accessToken);
   }
 
+  public CompletableFuture<AncestryResultsState> readAncestryAsync(StateTransitionOption... options) {
+    return async(() -> readAncestry(options));
+  }
+
   public DescendancyResultsState readDescendancy(StateTransitionOption... options) {
     Link link = getLink(Rel.DESCENDANCY);
     if (link == null || link.getHref() == null) {
@@ -289,6 +314,10 @@ public class PersonState extends GedcomxApplicationState<Gedcomx> {
     return this.stateFactory.newDescendancyResultsState(request, invoke(request, options), this.accessToken);
   }
 
+  public CompletableFuture<DescendancyResultsState> readDescendancyAsync(StateTransitionOption... options) {
+    return async(() -> readDescendancy(options));
+  }
+
   public SourceDescriptionsState readSourceDescriptions(StateTransitionOption... options) {
     Link link = getLink(Rel.SOURCE_DESCRIPTIONS);
     if (link == null || link.getHref() == null) {
@@ -305,11 +334,15 @@ public class PersonState extends GedcomxApplicationState<Gedcomx> {
   }
 
   public PersonState loadEmbeddedResources(String[] rels, StateTransitionOption... options) {
-    for (String rel : rels) {
-      Link link = getLink(rel);
-      if (this.entity != null && link != null && link.getHref() != null) {
-        embed(link, this.entity, options);
+    if (this.entity != null) {
+      List<Link> links = new ArrayList<Link>(rels.length);
+      for (String rel : rels) {
+        Link link = getLink(rel);
+        if (link != null && link.getHref() != null) {
+          links.add(link);
+        }
       }
+      embed(links, this.entity, options);
     }
     return this;
   }
@@ -809,6 +842,10 @@ public class PersonState extends GedcomxApplicationState<Gedcomx> {
     return this.stateFactory.newPersonSpousesState(request, invoke(request, options), this.accessToken);
   }
 
+  public CompletableFuture<PersonSpousesState> readSpousesAsync(StateTransitionOption... options) {
+    return async(() -> readSpouses(options));
+  }
+
   public RelationshipState addSpouse(PersonState person, StateTransitionOption... options) {
     CollectionState collection = readCollection();
     if (collection == null || collection.hasError()) {
@@ -31,7 +31,9 @@ import org.gedcomx.source.SourceReference;
 
 import javax.ws.rs.HttpMethod;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Ryan Heaton
@@ -181,11 +183,15 @@ public class RelationshipState extends GedcomxApplicationState<Gedcomx> {
   }
 
   public RelationshipState loadEmbeddedResources(String[] rels, StateTransitionOption... options) {
-    for (String rel : rels) {
-      Link link = getLink(rel);
-      if (this.entity != null && link != null && link.getHref() != null) {
-        embed(link, this.entity, options);
+    if (this.entity != null) {
+      List<Link> links = new ArrayList<Link>(rels.length);
+      for (String rel : rels) {
+        Link link = getLink(rel);
+        if (link != null && link.getHref() != null) {
+          links.add(link);
+        }
       }
+      embed(links, this.entity, options);
     }
     return this;
   }
@@ -17,11 +17,15 @@ package org.gedcomx.rs.client;
 
 import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandler;
 import com.sun.jersey.api.client.ClientRequest;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
+import org.gedcomx.rs.client.transport.HttpCache;
+import org.gedcomx.rs.client.transport.HttpTransport;
+import org.gedcomx.rs.client.transport.RateLimiter;
 import org.gedcomx.rs.client.util.HttpWarning;
 import org.gedcomx.rt.GedcomxConstants;
 import org.gedcomx.rt.json.GedcomJsonProvider;
@@ -31,6 +35,7 @@ import org.gedcomx.rt.xml.GedcomxXmlProvider;
 import javax.ws.rs.HttpMethod;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * @author Ryan Heaton
@@ -39,6 +44,110 @@ public class StateFactory {
   protected static final String ENABLE_JERSEY_LOGGING_ENV_NAME = "enableJerseyLogging";        // env variable/property to set
   protected static final String DONT_FOLLOW_REDIRECTS = "dontFollowRedirects";  // env variable/property that must be set for this feature
 
+  private volatile Executor embeddedResourceExecutor;
+  private volatile HttpTransport transport;
+  private volatile HttpCache httpCache;
+  private volatile RateLimiter rateLimiter;
+  private volatile Executor asyncExecutor;
+
+  /**
+   * The executor on which states created by this factory fetch their embedded links, or null (the default) if
+   * embedded links are to be fetched one at a time on the calling thread.
+   *
+   * @return The executor for embedded links.
+   */
+  public Executor getEmbeddedResourceExecutor() {
+    return embeddedResourceExecutor;
+  }
+
+  /**
+   * Fetch embedded links (conclusions, notes, relationships, etc.) concurrently on the given executor. The results
+   * are still merged into the entity in link order. The executor is not shut down by this factory.
+   *
+   * @param embeddedResourceExecutor The executor, or null to fetch embedded links one at a time.
+   */
+  public void setEmbeddedResourceExecutor(Executor embeddedResourceExecutor) {
+    this.embeddedResourceExecutor = embeddedResourceExecutor;
+  }
+
+  /**
+   * The executor on which {@link GedcomxApplicationState#async(java.util.function.Supplier) async transitions} of
+   * states created by this factory run, or null (the default) for a shared pool of eight daemon threads.
+   *
+   * @return The executor for async transitions.
+   */
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Run async transitions on the given executor. Each transition occupies a thread of the executor while its
+   * requests are in flight. The executor is not shut down by this factory.
+   *
+   * @param asyncExecutor The executor, or null for a shared pool of eight daemon threads.
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * The transport used by the clients this factory creates, or null (the default) for a plain
+   * {@link java.net.HttpURLConnection} per request.
+   *
+   * @return The transport.
+   */
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * The transport used by the clients this factory creates, e.g. a
+   * {@link org.gedcomx.rs.client.transport.PooledHttpTransport}. The factory doesn't close the transport.
+   *
+   * @param transport The transport, or null for a plain {@link java.net.HttpURLConnection} per request.
+   */
+  public void setTransport(HttpTransport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * The cache used by the clients this factory creates, or null (the default) if responses aren't cached.
+   *
+   * @return The cache.
+   */
+  public HttpCache getHttpCache() {
+    return httpCache;
+  }
+
+  /**
+   * Cache the GET responses of the clients this factory creates, revalidating them with conditional requests. The cache
+   * can be shared between factories. Clients created before the cache is set aren't affected.
+   *
+   * @param httpCache The cache, or null to stop caching responses.
+   */
+  public void setHttpCache(HttpCache httpCache) {
+    this.httpCache = httpCache;
+  }
+
+  /**
+   * The rate limiter shared by the clients this factory creates, or null (the default) if requests aren't throttled.
+   *
+   * @return The rate limiter.
+   */
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Throttle the requests of the clients this factory creates, and with them every state they lead to. The limiter
+   * can be shared between factories that share a quota. Clients created before the limiter is set aren't affected.
+   *
+   * @param rateLimiter The rate limiter, or null to stop throttling requests.
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
   public CollectionState newCollectionState(URI discoveryUri) {
     return newCollectionState(discoveryUri, loadDefaultClient());
   }
@@ -88,15 +197,39 @@ public class StateFactory {
   }
 
   protected Client loadDefaultClient() {
-    Client client = new Client(new URLConnectionClientHandler(),
+    Client client = new Client(createClientHandler(),
                                new DefaultClientConfig(GedcomJsonProvider.class, GedcomxXmlProvider.class,
                                                        GedcomxAtomJsonProvider.class, JacksonJsonProvider.class));
     if (Boolean.valueOf(System.getProperty(ENABLE_JERSEY_LOGGING_ENV_NAME))) {     // handles null
       client.addFilter(new com.sun.jersey.api.client.filter.LoggingFilter());
     }
+    addFilters(client);
     return client;
   }
 
+  /**
+   * Add the rate limiter and the cache, if any, to a client. The limiter is added first so that it sits next to the
+   * transport and only throttles the requests that the cache passes on.
+   *
+   * @param client The client.
+   */
+  protected void addFilters(Client client) {
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter != null) {
+      client.addFilter(rateLimiter.createFilter());
+    }
+
+    HttpCache httpCache = this.httpCache;
+    if (httpCache != null) {
+      client.addFilter(httpCache.createFilter());
+    }
+  }
+
+  protected ClientHandler createClientHandler() {
+    HttpTransport transport = this.transport;
+    return transport == null ? new URLConnectionClientHandler() : transport.createClientHandler();
+  }
+
   protected AgentState newAgentState(ClientRequest request, ClientResponse response, String accessToken) {
     return new AgentState(request, response, accessToken, this);
   }
@@ -0,0 +1,418 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import org.gedcomx.rs.client.options.HeaderParameter;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A client-side HTTP cache for GET responses, keyed by URI and by the request headers that select a representation
+ * ({@code Accept}, {@code Accept-Language} and {@code Authorization}).
+ *
+ * <p>Only responses that carry a validator ({@code ETag} or {@code Last-Modified}) are kept. When a cached response
+ * exists, the next GET for it is sent with {@code If-None-Match} and {@code If-Modified-Since}; if the server answers
+ * {@code 304 Not Modified}, the response is handed back as a {@code 200 OK} with the cached body, so the state reads it
+ * as if the server had sent it again. Any other answer replaces or drops the cached response. A successful PUT, POST
+ * or DELETE drops every cached response for its URI.</p>
+ *
+ * <p>Bodies are kept as the bytes the server sent, not as parsed entities, because states merge embedded resources
+ * into the entities they parse; each state parses its own copy. The cache is bounded by the total size of the cached
+ * bodies and evicts the least recently used responses first. Bodies larger than the maximum entry size aren't cached.</p>
+ *
+ * <p>The cache is safe to share between clients and threads. Requests that already carry a conditional header or a
+ * {@code Cache-Control} header are passed through untouched.</p>
+ */
+public class HttpCache {
+
+  public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+  public static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+  /**
+   * Name of the response property that is set to {@link Boolean#TRUE} on responses served from the cache.
+   */
+  public static final String CACHED_PROPERTY = HttpCache.class.getName() + ".cached";
+
+  private static final List<String> ENTITY_HEADERS = Arrays.asList(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH,
+                                                                   HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE);
+
+  private final long maxBytes;
+  private final int maxEntryBytes;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  //the keys of the cached responses for each URI, so a URI is invalidated without scanning the whole cache.
+  private final Map<URI, Set<String>> keysByUri = new HashMap<URI, Set<String>>();
+  private long size;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  public HttpCache() {
+    this(DEFAULT_MAX_BYTES, DEFAULT_MAX_ENTRY_BYTES);
+  }
+
+  public HttpCache(long maxBytes) {
+    this(maxBytes, (int) Math.min(maxBytes, DEFAULT_MAX_ENTRY_BYTES));
+  }
+
+  public HttpCache(long maxBytes, int maxEntryBytes) {
+    if (maxBytes < 0 || maxEntryBytes < 0) {
+      throw new IllegalArgumentException("Cache sizes must not be negative.");
+    }
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = maxEntryBytes;
+  }
+
+  /**
+   * Create a filter that answers requests from this cache. A filter can only be added to one client, but any number
+   * of filters can share the cache.
+   *
+   * @return A new filter backed by this cache.
+   */
+  public ClientFilter createFilter() {
+    return new CacheFilter();
+  }
+
+  /**
+   * @return The maximum total size of the cached bodies, in bytes.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @return The size of the largest body that will be cached, in bytes.
+   */
+  public int getMaxEntryBytes() {
+    return maxEntryBytes;
+  }
+
+  /**
+   * @return The total size of the cached bodies, in bytes.
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return The number of cached responses.
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return The number of responses served from the cache after a {@code 304 Not Modified}.
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return The number of GET requests that had to be answered with a full response.
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return The number of responses evicted to stay within the size bound.
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Drop every cached response for the given URI.
+   *
+   * @param uri The URI.
+   */
+  public synchronized void invalidate(URI uri) {
+    Set<String> keys = keysByUri.remove(uri);
+    if (keys != null) {
+      for (String key : keys) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+          size -= entry.body.length;
+        }
+      }
+    }
+  }
+
+  /**
+   * Drop every cached response.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    keysByUri.clear();
+    size = 0;
+  }
+
+  synchronized Entry get(String key) {
+    return entries.get(key);
+  }
+
+  synchronized void put(String key, Entry entry) {
+    Entry previous = entries.put(key, entry);
+    if (previous != null) {
+      size -= previous.body.length;
+      unindex(key, previous);
+    }
+    size += entry.body.length;
+    Set<String> keys = keysByUri.get(entry.uri);
+    if (keys == null) {
+      keys = new HashSet<String>();
+      keysByUri.put(entry.uri, keys);
+    }
+    keys.add(key);
+
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (size > maxBytes && it.hasNext()) {
+      Map.Entry<String, Entry> eldest = it.next();
+      size -= eldest.getValue().body.length;
+      unindex(eldest.getKey(), eldest.getValue());
+      it.remove();
+      evictionCount++;
+    }
+  }
+
+  synchronized void remove(String key) {
+    Entry previous = entries.remove(key);
+    if (previous != null) {
+      size -= previous.body.length;
+      unindex(key, previous);
+    }
+  }
+
+  private void unindex(String key, Entry entry) {
+    Set<String> keys = keysByUri.get(entry.uri);
+    if (keys != null) {
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        keysByUri.remove(entry.uri);
+      }
+    }
+  }
+
+  synchronized int getIndexedUriCount() {
+    return keysByUri.size();
+  }
+
+  synchronized void recordHit() {
+    hitCount++;
+  }
+
+  synchronized void recordMiss() {
+    missCount++;
+  }
+
+  static String keyOf(ClientRequest request) {
+    MultivaluedMap<String, Object> headers = request.getHeaders();
+    return request.getURI() + "\n" + headers.get(HttpHeaders.ACCEPT) + "\n" + headers.get(HeaderParameter.LANG) + "\n" + headers.get(HttpHeaders.AUTHORIZATION);
+  }
+
+  static boolean isBypassed(ClientRequest request) {
+    MultivaluedMap<String, Object> headers = request.getHeaders();
+    return headers.containsKey(HeaderParameter.IF_NONE_MATCH) || headers.containsKey(HeaderParameter.IF_MODIFIED_SINCE)
+      || headers.containsKey(HeaderParameter.IF_MATCH) || headers.containsKey(HeaderParameter.IF_UNMODIFIED_SINCE)
+      || headers.containsKey(HttpHeaders.CACHE_CONTROL);
+  }
+
+  static boolean isStorable(ClientResponse response) {
+    MultivaluedMap<String, String> headers = response.getHeaders();
+    if (headers.getFirst(HttpHeaders.ETAG) == null && headers.getFirst(HttpHeaders.LAST_MODIFIED) == null) {
+      return false;
+    }
+
+    List<String> cacheControl = headers.get(HttpHeaders.CACHE_CONTROL);
+    if (cacheControl != null) {
+      for (String directive : cacheControl) {
+        if (directive.toLowerCase().contains("no-store")) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * A cached response.
+   */
+  static final class Entry {
+
+    final URI uri;
+    final String etag;
+    final String lastModified;
+    final Map<String, List<String>> headers;
+    final byte[] body;
+
+    Entry(URI uri, MultivaluedMap<String, String> headers, byte[] body) {
+      this.uri = uri;
+      this.etag = headers.getFirst(HttpHeaders.ETAG);
+      this.lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+      this.headers = new LinkedHashMap<String, List<String>>();
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        this.headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+      }
+      this.body = body;
+    }
+
+    void applyValidators(ClientRequest request) {
+      if (this.etag != null) {
+        request.getHeaders().putSingle(HeaderParameter.IF_NONE_MATCH, this.etag);
+      }
+
+      if (this.lastModified != null) {
+        request.getHeaders().putSingle(HeaderParameter.IF_MODIFIED_SINCE, this.lastModified);
+      }
+    }
+
+    /**
+     * Turn a {@code 304 Not Modified} into the cached response. Headers sent with the 304 (e.g. a fresh {@code Date})
+     * win over the cached ones, except for the headers that describe the body.
+     */
+    ClientResponse replay(ClientResponse notModified) {
+      closeQuietly(notModified.getEntityInputStream());
+      MultivaluedMap<String, String> headers = notModified.getHeaders();
+      for (String name : ENTITY_HEADERS) {
+        headers.remove(name);
+      }
+      for (Map.Entry<String, List<String>> header : this.headers.entrySet()) {
+        if (header.getKey() != null && !headers.containsKey(header.getKey())) {
+          headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+        }
+      }
+      notModified.setStatus(ClientResponse.Status.OK);
+      notModified.setEntityInputStream(new ByteArrayInputStream(this.body));
+      notModified.getProperties().put(CACHED_PROPERTY, Boolean.TRUE);
+      return notModified;
+    }
+  }
+
+  static void closeQuietly(InputStream in) {
+    if (in != null) {
+      try {
+        in.close();
+      }
+      catch (IOException e) {
+        //fall through...
+      }
+    }
+  }
+
+  private class CacheFilter extends ClientFilter {
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+      String method = request.getMethod();
+      if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+        return getNext().handle(request);
+      }
+      else if (!HttpMethod.GET.equals(method)) {
+        ClientResponse response = getNext().handle(request);
+        if (response.getStatus() < 400) {
+          invalidate(request.getURI());
+        }
+        return response;
+      }
+      else if (isBypassed(request)) {
+        return getNext().handle(request);
+      }
+
+      String key = keyOf(request);
+      Entry entry = get(key);
+      ClientRequest sent = request;
+      if (entry != null) {
+        //validators go on a copy so the state doesn't see them on its own request.
+        sent = request.clone();
+        entry.applyValidators(sent);
+      }
+
+      ClientResponse response = getNext().handle(sent);
+      int status = response.getStatus();
+      if (entry != null && status == ClientResponse.Status.NOT_MODIFIED.getStatusCode()) {
+        recordHit();
+        return entry.replay(response);
+      }
+
+      recordMiss();
+      if (status == ClientResponse.Status.OK.getStatusCode() && isStorable(response)) {
+        store(key, request.getURI(), response);
+      }
+      else if (entry != null) {
+        remove(key);
+      }
+      return response;
+    }
+
+    private void store(String key, URI uri, ClientResponse response) {
+      int length = response.getLength();
+      if (length > maxEntryBytes) {
+        remove(key);
+        return;
+      }
+
+      InputStream in = response.getEntityInputStream();
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(length > 0 ? length : 8192);
+      byte[] chunk = new byte[8192];
+      try {
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+          buffer.write(chunk, 0, read);
+          if (buffer.size() > maxEntryBytes) {
+            //too big to cache; hand back what's been read followed by the rest of the stream.
+            remove(key);
+            response.setEntityInputStream(new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), in));
+            return;
+          }
+        }
+      }
+      catch (IOException e) {
+        throw new ClientHandlerException(e);
+      }
+      finally {
+        if (buffer.size() <= maxEntryBytes) {
+          closeQuietly(in);
+        }
+      }
+
+      byte[] body = buffer.toByteArray();
+      response.setEntityInputStream(new ByteArrayInputStream(body));
+      put(key, new Entry(uri, response.getHeaders(), body));
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.ClientHandler;
+
+/**
+ * The HTTP transport used by the clients that a {@link org.gedcomx.rs.client.StateFactory} creates. Implementations
+ * decide how connections are opened, pooled and kept alive.
+ *
+ * @see PooledHttpTransport
+ */
+public interface HttpTransport {
+
+  /**
+   * Create the terminating handler for a new client. Handlers created by the same transport may share
+   * connections.
+   *
+   * @return The client handler.
+   */
+  ClientHandler createClientHandler();
+
+}
@@ -0,0 +1,438 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.core.header.InBoundHeaders;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP transport that keeps connections alive in a pool shared by every client it creates, so that requests to
+ * the same host reuse connections instead of paying for a new TCP (and TLS) handshake each time.
+ *
+ * <p>The pool is bounded in total and per route (scheme, host and port). Connections that sit idle longer than the
+ * idle timeout are closed by a background thread. Timeouts set on the transport apply to every request unless the
+ * client sets {@link ClientConfig#PROPERTY_CONNECT_TIMEOUT} or {@link ClientConfig#PROPERTY_READ_TIMEOUT}.</p>
+ *
+ * <p>A connection goes back to the pool when the response entity has been read or the response has been closed,
+ * so responses that aren't read should be closed.</p>
+ *
+ * <p>The transport should be closed when it's no longer needed.</p>
+ */
+public class PooledHttpTransport implements HttpTransport, Closeable {
+
+  public static final int DEFAULT_MAX_CONNECTIONS = 100;
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpClient;
+  private volatile int connectTimeout = -1;
+  private volatile int readTimeout = -1;
+  private volatile int connectionRequestTimeout = -1;
+  private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+  private ScheduledExecutorService evictor;
+  private boolean closed;
+
+  public PooledHttpTransport() {
+    this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+  }
+
+  public PooledHttpTransport(int maxConnections, int maxConnectionsPerRoute) {
+    this.connectionManager = new PoolingHttpClientConnectionManager();
+    this.connectionManager.setMaxTotal(maxConnections);
+    this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    this.httpClient = HttpClients.custom()
+      .setConnectionManager(this.connectionManager)
+      .disableCookieManagement()
+      .build();
+  }
+
+  @Override
+  public synchronized ClientHandler createClientHandler() {
+    if (this.closed) {
+      throw new IllegalStateException("Transport has been closed.");
+    }
+    startEvictor();
+    return new PooledClientHandler();
+  }
+
+  /**
+   * The maximum number of connections in the pool.
+   *
+   * @return The maximum number of connections in the pool.
+   */
+  public int getMaxConnections() {
+    return this.connectionManager.getMaxTotal();
+  }
+
+  /**
+   * The maximum number of connections in the pool.
+   *
+   * @param maxConnections The maximum number of connections in the pool.
+   */
+  public void setMaxConnections(int maxConnections) {
+    this.connectionManager.setMaxTotal(maxConnections);
+  }
+
+  /**
+   * The maximum number of connections to any one route (scheme, host and port).
+   *
+   * @return The maximum number of connections per route.
+   */
+  public int getMaxConnectionsPerRoute() {
+    return this.connectionManager.getDefaultMaxPerRoute();
+  }
+
+  /**
+   * The maximum number of connections to any one route (scheme, host and port).
+   *
+   * @param maxConnectionsPerRoute The maximum number of connections per route.
+   */
+  public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+  }
+
+  /**
+   * Override the maximum number of connections for the route to the given URI.
+   *
+   * @param uri A URI on the route.
+   * @param maxConnections The maximum number of connections to the route.
+   */
+  public void setMaxConnections(URI uri, int maxConnections) {
+    this.connectionManager.setMaxPerRoute(toRoute(uri), maxConnections);
+  }
+
+  /**
+   * The time, in milliseconds, to wait for a connection to be established, or -1 for the system default.
+   *
+   * @return The connect timeout.
+   */
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, to wait for a connection to be established, or -1 for the system default.
+   *
+   * @param connectTimeout The connect timeout.
+   */
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, to wait for data from the server, or -1 for the system default.
+   *
+   * @return The read timeout.
+   */
+  public int getReadTimeout() {
+    return readTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, to wait for data from the server, or -1 for the system default.
+   *
+   * @param readTimeout The read timeout.
+   */
+  public void setReadTimeout(int readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, to wait for a connection from the pool when the route is at its limit, or -1 to
+   * wait indefinitely.
+   *
+   * @return The connection request timeout.
+   */
+  public int getConnectionRequestTimeout() {
+    return connectionRequestTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, to wait for a connection from the pool when the route is at its limit, or -1 to
+   * wait indefinitely.
+   *
+   * @param connectionRequestTimeout The connection request timeout.
+   */
+  public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+    this.connectionRequestTimeout = connectionRequestTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, after which an idle connection is closed, or 0 to keep idle connections until the
+   * server closes them.
+   *
+   * @return The idle timeout.
+   */
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  /**
+   * The time, in milliseconds, after which an idle connection is closed, or 0 to keep idle connections until the
+   * server closes them. Takes effect for clients created after it's set.
+   *
+   * @param idleTimeout The idle timeout.
+   */
+  public synchronized void setIdleTimeout(long idleTimeout) {
+    this.idleTimeout = idleTimeout;
+    if (this.evictor != null) {
+      this.evictor.shutdownNow();
+      this.evictor = null;
+    }
+  }
+
+  /**
+   * Statistics for the whole pool: connections leased, available (idle), pending a lease, and the maximum.
+   *
+   * @return The pool statistics.
+   */
+  public PoolStats getTotalStats() {
+    return this.connectionManager.getTotalStats();
+  }
+
+  /**
+   * Statistics for the route to the given URI.
+   *
+   * @param uri A URI on the route.
+   * @return The route statistics.
+   */
+  public PoolStats getStats(URI uri) {
+    return this.connectionManager.getStats(toRoute(uri));
+  }
+
+  /**
+   * Close connections that have expired or have been idle longer than the idle timeout. This is done periodically
+   * in the background, but may be called at any time.
+   */
+  public void evictIdleConnections() {
+    this.connectionManager.closeExpiredConnections();
+    long idleTimeout = this.idleTimeout;
+    if (idleTimeout > 0) {
+      this.connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Close the pool and all of its connections. Clients created by this transport can't be used afterwards.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+
+    this.closed = true;
+    if (this.evictor != null) {
+      this.evictor.shutdownNow();
+      this.evictor = null;
+    }
+    this.httpClient.close();
+  }
+
+  private void startEvictor() {
+    if (this.evictor != null || this.idleTimeout <= 0) {
+      return;
+    }
+
+    this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "gedcomx-http-idle-evictor");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    long period = Math.max(this.idleTimeout / 2, 10);
+    this.evictor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        evictIdleConnections();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * The route that the connection manager uses for the given URI. This has to match the route the client plans,
+   * including the resolved default port, or the statistics and limits won't line up.
+   */
+  private static HttpRoute toRoute(URI uri) {
+    String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase();
+    boolean secure = "https".equals(scheme);
+    int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+    return new HttpRoute(new HttpHost(uri.getHost(), port, scheme), null, secure);
+  }
+
+  private class PooledClientHandler extends TerminatingClientHandler {
+
+    @Override
+    public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+      HttpRequestBase request = createRequest(cr);
+      try {
+        CloseableHttpResponse response = httpClient.execute(request);
+        InBoundHeaders headers = new InBoundHeaders();
+        for (Header header : response.getAllHeaders()) {
+          headers.add(header.getName(), header.getValue());
+        }
+
+        HttpEntity entity = response.getEntity();
+        InputStream in;
+        if (entity == null) {
+          response.close();
+          in = new ByteArrayInputStream(new byte[0]);
+        }
+        else {
+          //closing the content returns the connection to the pool.
+          in = entity.getContent();
+        }
+
+        ClientResponse clientResponse = new ClientResponse(response.getStatusLine().getStatusCode(), headers, in, getMessageBodyWorkers());
+        if (!clientResponse.hasEntity()) {
+          clientResponse.bufferEntity();
+          clientResponse.close();
+        }
+        return clientResponse;
+      }
+      catch (IOException e) {
+        request.abort();
+        throw new ClientHandlerException(e);
+      }
+    }
+
+    private HttpRequestBase createRequest(ClientRequest cr) {
+      final String method = cr.getMethod();
+      HttpRequestBase request;
+      if (cr.getEntity() != null) {
+        //get the writer first: it sets the content type header if it's missing.
+        RequestEntityWriter writer = getRequestEntityWriter(cr);
+        HttpEntityEnclosingRequestBase entityRequest = new HttpEntityEnclosingRequestBase() {
+          @Override
+          public String getMethod() {
+            return method;
+          }
+        };
+        entityRequest.setEntity(new RequestWriterEntity(writer));
+        request = entityRequest;
+      }
+      else {
+        request = new HttpRequestBase() {
+          @Override
+          public String getMethod() {
+            return method;
+          }
+        };
+      }
+      request.setURI(cr.getURI());
+
+      for (Map.Entry<String, List<Object>> header : cr.getHeaders().entrySet()) {
+        String name = header.getKey();
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+          //set by the client from the entity.
+          continue;
+        }
+        for (Object value : header.getValue()) {
+          request.addHeader(name, ClientRequest.getHeaderValue(value));
+        }
+      }
+
+      request.setConfig(RequestConfig.custom()
+        .setConnectTimeout(intProperty(cr, ClientConfig.PROPERTY_CONNECT_TIMEOUT, connectTimeout))
+        .setSocketTimeout(intProperty(cr, ClientConfig.PROPERTY_READ_TIMEOUT, readTimeout))
+        .setConnectionRequestTimeout(connectionRequestTimeout)
+        .setRedirectsEnabled(cr.getPropertyAsFeature(ClientConfig.PROPERTY_FOLLOW_REDIRECTS, true))
+        .build());
+      return request;
+    }
+
+    private int intProperty(ClientRequest cr, String name, int defaultValue) {
+      Object value = cr.getProperties().get(name);
+      return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    /**
+     * Writes the request entity through the client's message body writers as the request is sent.
+     */
+    private class RequestWriterEntity extends AbstractHttpEntity {
+
+      private final RequestEntityWriter writer;
+
+      private RequestWriterEntity(RequestEntityWriter writer) {
+        this.writer = writer;
+        setChunked(writer.getSize() < 0);
+      }
+
+      @Override
+      public boolean isRepeatable() {
+        return true;
+      }
+
+      @Override
+      public long getContentLength() {
+        return this.writer.getSize();
+      }
+
+      @Override
+      public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+      }
+
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        this.writer.writeRequestEntity(out);
+      }
+
+      @Override
+      public boolean isStreaming() {
+        return false;
+      }
+    }
+  }
+}
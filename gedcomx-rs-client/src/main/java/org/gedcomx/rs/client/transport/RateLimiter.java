@@ -0,0 +1,369 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+import javax.ws.rs.HttpMethod;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles the requests of every client it's added to, so that clients sharing a quota stay within it.
+ *
+ * <ul>
+ *   <li>A token bucket limits the request rate, allowing bursts up to the bucket size.</li>
+ *   <li>The number of requests in flight is limited adaptively: each successful response raises the limit a little
+ *   (up to the maximum concurrency) and each {@code 429 Too Many Requests} or {@code 503 Service Unavailable} halves
+ *   it.</li>
+ *   <li>A throttled response pauses every request for the time given by its {@code Retry-After} header, or for an
+ *   exponential backoff if there isn't one. Idempotent requests are then retried, up to the maximum number of
+ *   retries, unless their entity is used up by sending it (an {@code InputStream} or a {@code Reader}); a POST, or a
+ *   request with such an entity, is handed back as is.</li>
+ *   <li>A request that fails without a response doesn't change the concurrency limit.</li>
+ * </ul>
+ *
+ * <p>The time requests spend waiting for the limiter and the time they spend with the server are counted separately,
+ * so it can be told whether the limiter or the server is the bottleneck.</p>
+ *
+ * <p>The limiter is safe to share between clients and threads.</p>
+ */
+public class RateLimiter {
+
+  public static final int DEFAULT_MAX_CONCURRENCY = 16;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final long DEFAULT_BACKOFF = 1000;
+  public static final long DEFAULT_MAX_RETRY_DELAY = 60000;
+  public static final int TOO_MANY_REQUESTS = 429;
+
+  private final double permitsPerNano;
+  private final double burst;
+  private final int maxConcurrency;
+  private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+  private volatile long backoff = DEFAULT_BACKOFF;
+  private volatile long maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+
+  //token bucket; guarded by this.
+  private double tokens;
+  private long refilledAt = System.nanoTime();
+  private long pausedUntil = refilledAt;
+
+  //adaptive concurrency; guarded by concurrencyLock.
+  private final Object concurrencyLock = new Object();
+  private double concurrencyLimit;
+  private int inFlight;
+
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder throttledCount = new LongAdder();
+  private final LongAdder retryCount = new LongAdder();
+  private final LongAdder queueTime = new LongAdder();
+  private final LongAdder requestTime = new LongAdder();
+
+  /**
+   * @param requestsPerSecond The sustained request rate.
+   */
+  public RateLimiter(double requestsPerSecond) {
+    this(requestsPerSecond, Math.max(1, (int) requestsPerSecond), DEFAULT_MAX_CONCURRENCY);
+  }
+
+  /**
+   * @param requestsPerSecond The sustained request rate, or {@link Double#POSITIVE_INFINITY} to limit only concurrency.
+   * @param burst The number of requests that can be made at once after the limiter has been idle.
+   * @param maxConcurrency The maximum number of requests in flight.
+   */
+  public RateLimiter(double requestsPerSecond, int burst, int maxConcurrency) {
+    if (!(requestsPerSecond > 0) || burst < 1 || maxConcurrency < 1) {
+      throw new IllegalArgumentException("Rate, burst and concurrency must be positive.");
+    }
+    this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.burst = burst;
+    this.tokens = burst;
+    this.maxConcurrency = maxConcurrency;
+    this.concurrencyLimit = maxConcurrency;
+  }
+
+  /**
+   * Create a filter that throttles requests with this limiter. A filter can only be added to one client, but any
+   * number of filters can share the limiter.
+   *
+   * @return A new filter backed by this limiter.
+   */
+  public ClientFilter createFilter() {
+    return new RateLimitFilter();
+  }
+
+  /**
+   * @return The maximum number of times a throttled idempotent request is retried.
+   */
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * @param maxRetries The maximum number of times a throttled idempotent request is retried, or 0 to never retry.
+   */
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * @return The pause, in milliseconds, after the first throttled response without a {@code Retry-After}. It doubles
+   * with each retry.
+   */
+  public long getBackoff() {
+    return backoff;
+  }
+
+  /**
+   * @param backoff The pause, in milliseconds, after the first throttled response without a {@code Retry-After}.
+   */
+  public void setBackoff(long backoff) {
+    this.backoff = backoff;
+  }
+
+  /**
+   * @return The longest pause, in milliseconds. A request the server asks to delay for longer isn't retried.
+   */
+  public long getMaxRetryDelay() {
+    return maxRetryDelay;
+  }
+
+  /**
+   * @param maxRetryDelay The longest pause, in milliseconds.
+   */
+  public void setMaxRetryDelay(long maxRetryDelay) {
+    this.maxRetryDelay = maxRetryDelay;
+  }
+
+  /**
+   * @return The current limit on the number of requests in flight.
+   */
+  public int getConcurrencyLimit() {
+    synchronized (concurrencyLock) {
+      return (int) concurrencyLimit;
+    }
+  }
+
+  /**
+   * @return The number of requests in flight.
+   */
+  public int getInFlight() {
+    synchronized (concurrencyLock) {
+      return inFlight;
+    }
+  }
+
+  /**
+   * @return The number of requests sent, including retries.
+   */
+  public long getRequestCount() {
+    return requestCount.sum();
+  }
+
+  /**
+   * @return The number of {@code 429} and {@code 503} responses.
+   */
+  public long getThrottledCount() {
+    return throttledCount.sum();
+  }
+
+  /**
+   * @return The number of retries.
+   */
+  public long getRetryCount() {
+    return retryCount.sum();
+  }
+
+  /**
+   * The total time requests have waited for the limiter, including pauses.
+   *
+   * @param unit The unit of the result.
+   * @return The total time requests have waited for the limiter.
+   */
+  public long getQueueTime(TimeUnit unit) {
+    return unit.convert(queueTime.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * The total time between sending requests and receiving their responses.
+   *
+   * @param unit The unit of the result.
+   * @return The total time requests have spent with the server.
+   */
+  public long getRequestTime(TimeUnit unit) {
+    return unit.convert(requestTime.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  void acquire() throws InterruptedException {
+    synchronized (concurrencyLock) {
+      while (inFlight >= (int) concurrencyLimit) {
+        concurrencyLock.wait();
+      }
+      inFlight++;
+    }
+
+    try {
+      long wait = reserve();
+      if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+    }
+    catch (InterruptedException e) {
+      release();
+      throw e;
+    }
+  }
+
+  /**
+   * Take a token, going into debt if there isn't one, so that waiting requests are served in order.
+   *
+   * @return How long to wait, in nanoseconds, before sending the request.
+   */
+  synchronized long reserve() {
+    long now = System.nanoTime();
+    if (!Double.isInfinite(permitsPerNano)) {
+      tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+      refilledAt = now;
+      tokens -= 1;
+    }
+    long wait = tokens < 0 ? (long) (-tokens / permitsPerNano) : 0;
+    return Math.max(wait, pausedUntil - now);
+  }
+
+  void release(boolean throttled) {
+    synchronized (concurrencyLock) {
+      if (throttled) {
+        concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+      }
+      else {
+        concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+      }
+      release();
+    }
+  }
+
+  /**
+   * Release a request without a response, leaving the concurrency limit as it is.
+   */
+  void release() {
+    synchronized (concurrencyLock) {
+      inFlight--;
+      concurrencyLock.notifyAll();
+    }
+  }
+
+  synchronized void pause(long millis) {
+    pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  /**
+   * How long the server asked to wait, in milliseconds, or an exponential backoff if it didn't say.
+   */
+  long retryDelay(ClientResponse response, int attempt) {
+    String retryAfter = response.getHeaders().getFirst("Retry-After");
+    if (retryAfter != null) {
+      retryAfter = retryAfter.trim();
+      try {
+        return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter)));
+      }
+      catch (NumberFormatException e) {
+        try {
+          return Math.max(0, ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis());
+        }
+        catch (DateTimeParseException e2) {
+          //fall through to the backoff.
+        }
+      }
+    }
+    return backoff << Math.min(attempt, 20);
+  }
+
+  static boolean isThrottled(int status) {
+    return status == TOO_MANY_REQUESTS || status == ClientResponse.Status.SERVICE_UNAVAILABLE.getStatusCode();
+  }
+
+  static boolean isIdempotent(String method) {
+    return !HttpMethod.POST.equals(method) && !"PATCH".equals(method);
+  }
+
+  /**
+   * Whether a request can be sent again: it must be idempotent, and its entity (if any) must not be one that is
+   * consumed by sending it, such as a stream.
+   */
+  static boolean isRetryable(ClientRequest request) {
+    Object entity = request.getEntity();
+    return isIdempotent(request.getMethod()) && !(entity instanceof InputStream) && !(entity instanceof Reader);
+  }
+
+  private class RateLimitFilter extends ClientFilter {
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+      int attempt = 0;
+      while (true) {
+        long queued = System.nanoTime();
+        try {
+          acquire();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ClientHandlerException(e);
+        }
+
+        long sent = System.nanoTime();
+        queueTime.add(sent - queued);
+        ClientResponse response;
+        try {
+          response = getNext().handle(request);
+        }
+        catch (RuntimeException | Error e) {
+          release();
+          throw e;
+        }
+        finally {
+          requestTime.add(System.nanoTime() - sent);
+          requestCount.increment();
+        }
+        boolean throttled = isThrottled(response.getStatus());
+        release(throttled);
+
+        if (!throttled) {
+          return response;
+        }
+
+        throttledCount.increment();
+        long delay = retryDelay(response, attempt);
+        long maxRetryDelay = getMaxRetryDelay();
+        pause(Math.min(delay, maxRetryDelay));
+        if (attempt >= getMaxRetries() || delay > maxRetryDelay || !isRetryable(request)) {
+          return response;
+        }
+
+        response.close();
+        retryCount.increment();
+        attempt++;
+      }
+    }
+  }
+}
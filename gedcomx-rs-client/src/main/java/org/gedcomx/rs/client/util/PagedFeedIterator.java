@@ -21,9 +21,11 @@ import com.sun.jersey.api.client.WebResource;
 import org.gedcomx.atom.Feed;
 import org.gedcomx.common.URI;
 import org.gedcomx.links.Link;
+import org.gedcomx.rs.client.transport.HttpTransport;
 
 import javax.ws.rs.core.MediaType;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * A paged {@link org.gedcomx.atom.Feed feed} iterator.
@@ -163,6 +165,18 @@ public class PagedFeedIterator implements Iterator<Feed> {
     return this;
   }
 
+  /**
+   * Sets the {@link org.gedcomx.rs.client.transport.HttpTransport} to use to get paged feed documents, e.g. a pooled
+   * transport shared with a {@link org.gedcomx.rs.client.StateFactory}.
+   *
+   * @param transport the {@link org.gedcomx.rs.client.transport.HttpTransport} to use to get paged feed documents.
+   * @return a reference to this {@link PagedFeedIterator} for fluent configuration chaining
+   */
+  public PagedFeedIterator withTransport(HttpTransport transport) {
+    setClient(new Client(transport.createClientHandler()));
+    return this;
+  }
+
   /**
    * Gets the {@link WebResourceProvider}.
    *
@@ -262,6 +276,30 @@ public class PagedFeedIterator implements Iterator<Feed> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Fetches the remaining pages in the background on a new daemon thread, up to {@code bufferSize} pages ahead of the
+   * caller. This iterator must not be used while the returned iterator is open.
+   *
+   * @param bufferSize the maximum number of pages to fetch ahead of the caller
+   * @return an iterator over the remaining pages
+   */
+  public PrefetchingPagedFeedIterator prefetch(int bufferSize) {
+    return prefetch(bufferSize, null);
+  }
+
+  /**
+   * Fetches the remaining pages in the background on the specified executor, up to {@code bufferSize} pages ahead of
+   * the caller. The fetch occupies one executor thread until the last page is read or the returned iterator is closed.
+   * This iterator must not be used while the returned iterator is open.
+   *
+   * @param bufferSize the maximum number of pages to fetch ahead of the caller
+   * @param executor   the executor on which to fetch the pages, or {@code null} for a new daemon thread
+   * @return an iterator over the remaining pages
+   */
+  public PrefetchingPagedFeedIterator prefetch(int bufferSize, Executor executor) {
+    return new PrefetchingPagedFeedIterator(this, bufferSize, executor);
+  }
+
   private void loadHRefsFromFeed(Feed feed) {
     first = getLinkRelHref(feed, "first");
     last = getLinkRelHref(feed, "last");
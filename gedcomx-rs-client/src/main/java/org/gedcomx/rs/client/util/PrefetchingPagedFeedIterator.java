@@ -0,0 +1,188 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.util;
+
+import org.gedcomx.atom.Entry;
+import org.gedcomx.atom.Feed;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link PagedFeedIterator} that follows the "next" links in the background, so that the following pages are being
+ * fetched while the caller processes the current one.
+ *
+ * <p>Each page's "next" link is only known once the page has been read, so the pages are still fetched one after the
+ * other; prefetching only hides the latency of each request behind the caller's work. At most {@code bufferSize} pages
+ * are fetched ahead of the caller.</p>
+ *
+ * <p>The underlying {@link PagedFeedIterator} must not be used while this iterator is open. The iterator should be
+ * closed if it isn't read to the end, so that the background fetch is cancelled.</p>
+ *
+ * @see PagedFeedIterator#prefetch(int)
+ */
+public class PrefetchingPagedFeedIterator implements Iterator<Feed>, Closeable {
+
+  private static final Object END = new Object();
+
+  private final LinkedBlockingQueue<Object> buffer = new LinkedBlockingQueue<Object>();
+  private final Semaphore permits;
+  private final FutureTask<Void> producer;
+  private Object head;
+
+  PrefetchingPagedFeedIterator(PagedFeedIterator pages, int bufferSize, Executor executor) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("Buffer size must be at least 1.");
+    }
+    this.permits = new Semaphore(bufferSize);
+    this.producer = new FutureTask<Void>(new Producer(pages));
+    if (executor == null) {
+      Thread thread = new Thread(this.producer, "paged-feed-prefetch");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    else {
+      executor.execute(this.producer);
+    }
+  }
+
+  @Override
+  public synchronized boolean hasNext() {
+    if (this.head == null) {
+      try {
+        this.head = this.buffer.take();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the next page.", e);
+      }
+    }
+
+    if (this.head instanceof Failure) {
+      Throwable cause = ((Failure) this.head).cause;
+      this.head = END;
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+
+    return this.head != END;
+  }
+
+  @Override
+  public synchronized Feed next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Feed feed = (Feed) this.head;
+    this.head = null;
+    this.permits.release();
+    return feed;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * A stream of the entries of the remaining pages, in page order. Closing the stream closes this iterator.
+   *
+   * @return The entries.
+   */
+  public Stream<Entry> entries() {
+    Spliterator<Feed> pages = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(pages, false)
+      .flatMap(feed -> {
+        List<Entry> entries = feed.getEntries();
+        return entries == null ? Stream.<Entry>empty() : entries.stream();
+      })
+      .onClose(this::close);
+  }
+
+  /**
+   * Stop fetching pages and discard the pages that have been fetched but not read. A caller waiting in
+   * {@link #hasNext()} is released, even if the background fetch was cancelled before it started.
+   */
+  @Override
+  public void close() {
+    this.producer.cancel(true);
+    //a producer that never ran won't add the end marker, so add it here for a caller blocked in hasNext().
+    this.buffer.clear();
+    this.buffer.add(END);
+    synchronized (this) {
+      this.buffer.clear();
+      this.head = END;
+    }
+  }
+
+  private static final class Failure {
+
+    private final Throwable cause;
+
+    private Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private final class Producer implements Callable<Void> {
+
+    private final PagedFeedIterator pages;
+
+    private Producer(PagedFeedIterator pages) {
+      this.pages = pages;
+    }
+
+    @Override
+    public Void call() {
+      try {
+        while (this.pages.hasNext()) {
+          permits.acquire();
+          Feed feed = this.pages.next();
+          if (feed == null) {
+            break;
+          }
+          buffer.add(feed);
+        }
+      }
+      catch (InterruptedException e) {
+        //closed.
+      }
+      catch (Throwable e) {
+        buffer.add(new Failure(e));
+      }
+      finally {
+        buffer.add(END);
+      }
+      return null;
+    }
+  }
+}
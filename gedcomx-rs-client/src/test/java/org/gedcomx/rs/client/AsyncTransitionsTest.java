@@ -0,0 +1,177 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.rs.Rel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncTransitionsTest {
+
+  private ExecutorService executor;
+  private StateFactory stateFactory;
+
+  @Before
+  public void setUp() {
+    this.executor = Executors.newFixedThreadPool(4);
+    this.stateFactory = new StateFactory();
+    this.stateFactory.setAsyncExecutor(this.executor);
+  }
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testTransitionsRunConcurrently() throws Exception {
+    final CountDownLatch inFlight = new CountDownLatch(4);
+    final boolean[] armed = new boolean[1];
+    EmbeddedResourcesTest.StubHandler handler = new EmbeddedResourcesTest.StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (armed[0]) {
+          inFlight.countDown();
+          if (!inFlight.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("requests weren't in flight together");
+          }
+        }
+        return EmbeddedResourcesTest.mainPerson();
+      }
+    };
+    final PersonState person = handler.readPerson(this.stateFactory);
+    armed[0] = true;
+
+    List<CompletableFuture<PersonState>> futures = new ArrayList<CompletableFuture<PersonState>>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(person.getAsync());
+    }
+    for (CompletableFuture<PersonState> future : futures) {
+      PersonState state = future.get(10, TimeUnit.SECONDS);
+      assertEquals(200, state.getResponse().getStatus());
+      assertEquals("p1", state.getPerson().getId());
+    }
+    assertEquals(4, handler.requests.get());
+  }
+
+  @Test
+  public void testFailureCompletesExceptionally() throws Exception {
+    final boolean[] failing = new boolean[1];
+    EmbeddedResourcesTest.StubHandler handler = new EmbeddedResourcesTest.StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (failing[0]) {
+          throw new ClientHandlerException("connection reset");
+        }
+        return EmbeddedResourcesTest.mainPerson();
+      }
+    };
+    final PersonState person = handler.readPerson(this.stateFactory);
+    failing[0] = true;
+
+    try {
+      person.async(person::get).get(10, TimeUnit.SECONDS);
+      fail();
+    }
+    catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ClientHandlerException);
+    }
+  }
+
+  @Test
+  public void testDefaultExecutor() throws Exception {
+    EmbeddedResourcesTest.StubHandler handler = new EmbeddedResourcesTest.StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        return EmbeddedResourcesTest.mainPerson();
+      }
+    };
+    final PersonState person = handler.readPerson(new StateFactory());
+    String thread = person.async(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+    assertTrue(thread.startsWith("gedcomx-async-"));
+  }
+
+  @Test
+  public void testDefaultExecutorIsBounded() throws Exception {
+    EmbeddedResourcesTest.StubHandler handler = new EmbeddedResourcesTest.StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        return EmbeddedResourcesTest.mainPerson();
+      }
+    };
+    final PersonState person = handler.readPerson(new StateFactory());
+    final CountDownLatch release = new CountDownLatch(1);
+    final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+    for (int i = 0; i < 20; i++) {
+      futures.add(person.async(() -> {
+        threads.add(Thread.currentThread().getName());
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }));
+    }
+    Thread.sleep(200);
+    assertTrue(threads.size() <= 8);
+    release.countDown();
+    for (CompletableFuture<Void> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    assertTrue(threads.size() <= 8);
+  }
+
+  @Test
+  public void testTypedTransitions() throws Exception {
+    EmbeddedResourcesTest.StubHandler handler = new EmbeddedResourcesTest.StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        return EmbeddedResourcesTest.mainPerson(Rel.ANCESTRY, Rel.DESCENDANCY, Rel.SPOUSES);
+      }
+    };
+    PersonState person = handler.readPerson(this.stateFactory);
+
+    PersonState head = person.headAsync().get(10, TimeUnit.SECONDS);
+    assertEquals(200, head.getResponse().getStatus());
+    AncestryResultsState ancestry = person.readAncestryAsync().get(10, TimeUnit.SECONDS);
+    assertTrue(ancestry.getUri().toString().endsWith("/" + Rel.ANCESTRY));
+    DescendancyResultsState descendancy = person.readDescendancyAsync().get(10, TimeUnit.SECONDS);
+    assertTrue(descendancy.getUri().toString().endsWith("/" + Rel.DESCENDANCY));
+    PersonSpousesState spouses = person.readSpousesAsync().get(10, TimeUnit.SECONDS);
+    assertTrue(spouses.getUri().toString().endsWith("/" + Rel.SPOUSES));
+    assertEquals(4, handler.requests.get());
+  }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.core.header.InBoundHeaders;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.common.URI;
+import org.gedcomx.conclusion.Fact;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.conclusion.Relationship;
+import org.gedcomx.rs.Rel;
+import org.gedcomx.rt.GedcomxConstants;
+import org.gedcomx.rt.json.GedcomJacksonModule;
+import org.gedcomx.rt.json.GedcomJsonProvider;
+import org.gedcomx.types.FactType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.HttpMethod;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedResourcesTest {
+
+  private static final String BASE = "http://localhost/persons/p1";
+
+  private ExecutorService executor;
+  private StateFactory stateFactory;
+
+  @Before
+  public void setUp() {
+    this.executor = Executors.newFixedThreadPool(4);
+    this.stateFactory = new StateFactory();
+    this.stateFactory.setEmbeddedResourceExecutor(this.executor);
+  }
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentLoadMergesInLinkOrder() throws Exception {
+    final CountDownLatch notesServed = new CountDownLatch(1);
+    final boolean[] overlapped = new boolean[1];
+    StubHandler handler = new StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (path.endsWith("/conclusions")) {
+          //hold the first link until the second has been served, so the results complete out of order.
+          overlapped[0] = notesServed.await(5, TimeUnit.SECONDS);
+          return personWithFact("conclusions");
+        }
+        else if (path.endsWith("/notes")) {
+          notesServed.countDown();
+          return personWithFact("notes");
+        }
+        else if (path.endsWith("/spouse-relationships")) {
+          Gedcomx gx = new Gedcomx();
+          gx.addRelationship(new Relationship().id("r1"));
+          return gx;
+        }
+        return mainPerson(Rel.CONCLUSIONS, Rel.NOTES, Rel.SPOUSE_RELATIONSHIPS);
+      }
+    };
+
+    PersonState state = handler.readPerson(this.stateFactory).loadEmbeddedResources();
+
+    assertTrue("embedded links weren't fetched concurrently", overlapped[0]);
+    List<Fact> facts = state.getPerson().getFacts();
+    assertEquals(2, facts.size());
+    assertEquals("conclusions", facts.get(0).getValue());
+    assertEquals("notes", facts.get(1).getValue());
+    assertEquals(1, state.getEntity().getRelationships().size());
+    assertTrue(state.isEmbeddedLinkLoaded(Rel.CONCLUSIONS));
+    assertTrue(state.isEmbeddedLinkLoaded(Rel.NOTES));
+    assertTrue(state.isEmbeddedLinkLoaded(Rel.SPOUSE_RELATIONSHIPS));
+    assertTrue(state.getLastEmbeddedRequest().getURI().toString().endsWith("/spouse-relationships"));
+  }
+
+  @Test
+  public void testConcurrentLoadReportsFailuresPerLink() throws Exception {
+    assertFailuresReportedPerLink(this.stateFactory);
+  }
+
+  @Test
+  public void testSequentialLoadReportsFailuresPerLink() throws Exception {
+    assertFailuresReportedPerLink(new StateFactory());
+  }
+
+  private void assertFailuresReportedPerLink(StateFactory stateFactory) throws Exception {
+    StubHandler handler = new StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (path.endsWith("/child-relationships")) {
+          throw new ClientHandlerException("connection reset");
+        }
+        else if (path.endsWith("/conclusions")) {
+          return personWithFact("conclusions");
+        }
+        else if (path.endsWith("/spouse-relationships")) {
+          return null;
+        }
+        return mainPerson(Rel.CHILD_RELATIONSHIPS, Rel.CONCLUSIONS, Rel.SPOUSE_RELATIONSHIPS);
+      }
+    };
+
+    PersonState state = handler.readPerson(stateFactory);
+    try {
+      state.loadEmbeddedResources();
+      fail();
+    }
+    catch (EmbeddedResourcesException e) {
+      List<EmbeddedResourcesException.Failure> failures = e.getFailures();
+      assertEquals(2, failures.size());
+      assertEquals(Rel.CHILD_RELATIONSHIPS, failures.get(0).getLink().getRel());
+      assertNull(failures.get(0).getResponse());
+      assertTrue(failures.get(0).getCause() instanceof ClientHandlerException);
+      assertEquals(Rel.SPOUSE_RELATIONSHIPS, failures.get(1).getLink().getRel());
+      assertEquals(500, failures.get(1).getResponse().getStatus());
+      assertNull(failures.get(1).getCause());
+    }
+
+    //the link that did load is still merged.
+    assertEquals("conclusions", state.getPerson().getFacts().get(0).getValue());
+    assertTrue(state.isEmbeddedLinkLoaded(Rel.CONCLUSIONS));
+    assertFalse(state.isEmbeddedLinkLoaded(Rel.CHILD_RELATIONSHIPS));
+    assertFalse(state.isEmbeddedLinkLoaded(Rel.SPOUSE_RELATIONSHIPS));
+  }
+
+  @Test
+  public void testSingleLinkReportsFailureLikeTheList() throws Exception {
+    StubHandler handler = new StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (path.endsWith("/spouse-relationships")) {
+          return null;
+        }
+        else if (path.endsWith("/conclusions")) {
+          return personWithFact("conclusions");
+        }
+        return mainPerson(Rel.CONCLUSIONS, Rel.SPOUSE_RELATIONSHIPS);
+      }
+    };
+
+    PersonState state = handler.readPerson(this.stateFactory);
+    try {
+      state.embed(state.getPerson().getLink(Rel.SPOUSE_RELATIONSHIPS), state.getEntity());
+      fail();
+    }
+    catch (EmbeddedResourcesException e) {
+      assertEquals(1, e.getFailures().size());
+      assertEquals(Rel.SPOUSE_RELATIONSHIPS, e.getFailures().get(0).getLink().getRel());
+      assertEquals(500, e.getFailures().get(0).getResponse().getStatus());
+    }
+    assertFalse(state.isEmbeddedLinkLoaded(Rel.SPOUSE_RELATIONSHIPS));
+
+    state.embed(state.getPerson().getLink(Rel.CONCLUSIONS), state.getEntity());
+    assertEquals("conclusions", state.getPerson().getFacts().get(0).getValue());
+    assertTrue(state.isEmbeddedLinkLoaded(Rel.CONCLUSIONS));
+    assertTrue(state.getLastEmbeddedRequest().getURI().toString().endsWith("/conclusions"));
+  }
+
+  @Test
+  public void testSequentialLoadWithoutExecutor() throws Exception {
+    StubHandler handler = new StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (path.endsWith("/conclusions")) {
+          return personWithFact("conclusions");
+        }
+        else if (path.endsWith("/notes")) {
+          return personWithFact("notes");
+        }
+        return mainPerson(Rel.CONCLUSIONS, Rel.NOTES);
+      }
+    };
+
+    PersonState state = handler.readPerson(new StateFactory()).loadEmbeddedResources();
+    List<Fact> facts = state.getPerson().getFacts();
+    assertEquals(2, facts.size());
+    assertEquals("conclusions", facts.get(0).getValue());
+    assertEquals("notes", facts.get(1).getValue());
+    assertEquals(2, handler.requests.get());
+  }
+
+  @Test
+  public void testEachRelIsLoadedOnce() throws Exception {
+    StubHandler handler = new StubHandler() {
+      @Override
+      protected Gedcomx respond(String path) throws Exception {
+        if (path.endsWith("/notes")) {
+          return personWithFact("notes");
+        }
+        else if (path.endsWith("/conclusions")) {
+          return personWithFact("conclusions");
+        }
+        Gedcomx gx = mainPerson(Rel.NOTES, Rel.CONCLUSIONS);
+        gx.addRelationship(new Relationship().id("r1").link(Rel.NOTES, URI.create("http://localhost/relationships/r1/notes")));
+        return gx;
+      }
+    };
+
+    for (StateFactory stateFactory : new StateFactory[] {this.stateFactory, new StateFactory()}) {
+      PersonState state = handler.readPerson(stateFactory).loadEmbeddedResources();
+      assertEquals(2, handler.requests.get());
+      assertEquals(2, state.getPerson().getFacts().size());
+    }
+  }
+
+  static Gedcomx mainPerson(String... rels) {
+    Person person = new Person().id("p1");
+    for (String rel : rels) {
+      person.link(rel, URI.create(BASE + "/" + rel));
+    }
+    Gedcomx gx = new Gedcomx();
+    gx.addPerson(person);
+    return gx;
+  }
+
+  static Gedcomx personWithFact(String value) {
+    Gedcomx gx = new Gedcomx();
+    gx.addPerson(new Person().id("p1").fact(new Fact(FactType.Birth, value)));
+    return gx;
+  }
+
+  /**
+   * Serves gedcomx documents from memory. A null document is served as a 500.
+   */
+  abstract static class StubHandler implements ClientHandler {
+
+    private final ObjectMapper mapper = GedcomJacksonModule.createObjectMapper();
+    private Client client;
+    final AtomicInteger requests = new AtomicInteger();
+
+    protected abstract Gedcomx respond(String path) throws Exception;
+
+    PersonState readPerson(StateFactory stateFactory) {
+      this.client = new Client(this, new DefaultClientConfig(GedcomJsonProvider.class));
+      ClientRequest request = ClientRequest.create().accept(GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE).build(java.net.URI.create(BASE), HttpMethod.GET);
+      PersonState state = new PersonState(request, this.client.handle(request), null, stateFactory);
+      this.requests.set(0);
+      return state;
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+      this.requests.incrementAndGet();
+      Gedcomx gx;
+      try {
+        gx = respond(request.getURI().getPath());
+      }
+      catch (ClientHandlerException e) {
+        throw e;
+      }
+      catch (Exception e) {
+        throw new ClientHandlerException(e);
+      }
+
+      InBoundHeaders headers = new InBoundHeaders();
+      if (gx == null) {
+        return new ClientResponse(500, headers, new ByteArrayInputStream(new byte[0]), this.client.getMessageBodyWorkers());
+      }
+
+      headers.putSingle("Content-Type", GedcomxConstants.GEDCOMX_JSON_MEDIA_TYPE);
+      try {
+        return new ClientResponse(200, headers, new ByteArrayInputStream(this.mapper.writeValueAsBytes(gx)), this.client.getMessageBodyWorkers());
+      }
+      catch (Exception e) {
+        throw new ClientHandlerException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An HTTP server on a free local port for tests, handling every request on its own thread.
+ */
+public class StubServer {
+
+  private final HttpServer server;
+  private final ExecutorService threads;
+  private final URI base;
+
+  private StubServer(HttpServer server, ExecutorService threads) {
+    this.server = server;
+    this.threads = threads;
+    this.base = URI.create("http://localhost:" + server.getAddress().getPort());
+  }
+
+  /**
+   * Start a server that hands every request to the given handler.
+   *
+   * @param handler The handler.
+   * @return The running server.
+   * @throws IOException If the server couldn't be started.
+   */
+  public static StubServer start(HttpHandler handler) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", handler);
+    ExecutorService threads = Executors.newCachedThreadPool();
+    server.setExecutor(threads);
+    server.start();
+    return new StubServer(server, threads);
+  }
+
+  /**
+   * @return The base URI of the server, e.g. {@code http://localhost:12345}.
+   */
+  public URI getBase() {
+    return base;
+  }
+
+  /**
+   * @param path The absolute path.
+   * @return The URI of the path on this server.
+   */
+  public URI resolve(String path) {
+    return this.base.resolve(path);
+  }
+
+  public void stop() {
+    this.server.stop(0);
+    this.threads.shutdownNow();
+  }
+
+  /**
+   * Send a response and close the exchange.
+   *
+   * @param exchange The exchange.
+   * @param status The status code.
+   * @param contentType The content type, or null if there's no body.
+   * @param body The body, or null for none.
+   * @throws IOException If the response couldn't be sent.
+   */
+  public static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+    if (body == null) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+
+    byte[] bytes = body.getBytes("UTF-8");
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+  public static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      out.write(buffer, 0, len);
+    }
+    return out.toByteArray();
+  }
+}
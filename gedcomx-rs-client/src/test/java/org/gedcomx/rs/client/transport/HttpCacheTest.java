@@ -0,0 +1,203 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.gedcomx.rs.client.StubServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HttpCacheTest {
+
+  private StubServer server;
+  private URI base;
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+  private volatile int version = 1;
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = StubServer.start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String etag = "\"" + exchange.getRequestURI().getPath() + "-" + version + "\"";
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + (ifNoneMatch == null ? "" : " " + ifNoneMatch));
+        exchange.getRequestBody().close();
+        if (!"GET".equals(exchange.getRequestMethod())) {
+          version++;
+          StubServer.respond(exchange, 204, null, null);
+        }
+        else if (etag.equals(ifNoneMatch)) {
+          exchange.getResponseHeaders().add("ETag", etag);
+          StubServer.respond(exchange, 304, null, null);
+        }
+        else {
+          if (!exchange.getRequestURI().getPath().startsWith("/nocache")) {
+            exchange.getResponseHeaders().add("ETag", etag);
+          }
+          StubServer.respond(exchange, 200, "text/plain", "version " + version + " of " + exchange.getRequestURI().getPath());
+        }
+      }
+    });
+    this.base = this.server.getBase();
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  @Test
+  public void testNotModifiedIsServedFromCache() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    ClientResponse first = client.resource(this.base.resolve("/persons/1")).accept("text/plain").get(ClientResponse.class);
+    assertEquals(200, first.getStatus());
+    assertEquals("version 1 of /persons/1", first.getEntity(String.class));
+    assertNull(first.getProperties().get(HttpCache.CACHED_PROPERTY));
+
+    ClientResponse second = client.resource(this.base.resolve("/persons/1")).accept("text/plain").get(ClientResponse.class);
+    assertEquals(200, second.getStatus());
+    assertEquals("text/plain", second.getHeaders().getFirst("Content-Type"));
+    assertEquals("\"/persons/1-1\"", second.getEntityTag().toString());
+    assertEquals("version 1 of /persons/1", second.getEntity(String.class));
+    assertEquals(Boolean.TRUE, second.getProperties().get(HttpCache.CACHED_PROPERTY));
+
+    assertEquals(2, this.requests.size());
+    assertEquals("GET /persons/1", this.requests.get(0));
+    assertEquals("GET /persons/1 \"/persons/1-1\"", this.requests.get(1));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getEntryCount());
+  }
+
+  @Test
+  public void testKeyedByAccept() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/persons/1")).accept("text/plain").get(String.class);
+    client.resource(this.base.resolve("/persons/1")).accept("text/*").get(String.class);
+    assertEquals("GET /persons/1", this.requests.get(1));
+    assertEquals(2, cache.getEntryCount());
+  }
+
+  @Test
+  public void testUnsafeMethodsInvalidate() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    client.resource(this.base.resolve("/persons/1")).delete();
+    assertEquals(0, cache.getEntryCount());
+    assertEquals("version 2 of /persons/1", client.resource(this.base.resolve("/persons/1")).get(String.class));
+    assertEquals("GET /persons/1", this.requests.get(2));
+  }
+
+  @Test
+  public void testChangedResourceReplacesEntry() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    this.version = 2;
+    assertEquals("version 2 of /persons/1", client.resource(this.base.resolve("/persons/1")).get(String.class));
+    assertEquals("version 2 of /persons/1", client.resource(this.base.resolve("/persons/1")).get(String.class));
+    assertEquals("GET /persons/1 \"/persons/1-2\"", this.requests.get(2));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getEntryCount());
+  }
+
+  @Test
+  public void testInvalidateDropsOnlyThatUri() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/persons/1")).accept("text/plain").get(String.class);
+    client.resource(this.base.resolve("/persons/1")).accept("text/*").get(String.class);
+    client.resource(this.base.resolve("/persons/2")).get(String.class);
+    assertEquals(3, cache.getEntryCount());
+    assertEquals(2, cache.getIndexedUriCount());
+
+    cache.invalidate(this.base.resolve("/persons/1"));
+    assertEquals(1, cache.getEntryCount());
+    assertEquals(1, cache.getIndexedUriCount());
+    assertEquals(23, cache.getSize());
+
+    cache.clear();
+    assertEquals(0, cache.getIndexedUriCount());
+  }
+
+  @Test
+  public void testResponsesWithoutValidatorsAreNotCached() {
+    HttpCache cache = new HttpCache();
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/nocache")).get(String.class);
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    //each body is 23 bytes, so only two fit.
+    HttpCache cache = new HttpCache(50);
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    client.resource(this.base.resolve("/persons/2")).get(String.class);
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    client.resource(this.base.resolve("/persons/3")).get(String.class);
+    assertEquals(2, cache.getEntryCount());
+    assertEquals(46, cache.getSize());
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.getIndexedUriCount());
+
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    client.resource(this.base.resolve("/persons/2")).get(String.class);
+    assertEquals("GET /persons/1 \"/persons/1-1\"", this.requests.get(4));
+    assertEquals("GET /persons/2", this.requests.get(5));
+  }
+
+  @Test
+  public void testOversizedBodiesPassThrough() {
+    HttpCache cache = new HttpCache(1024, 10);
+    Client client = new Client();
+    client.addFilter(cache.createFilter());
+
+    assertEquals("version 1 of /persons/1", client.resource(this.base.resolve("/persons/1")).get(String.class));
+    assertEquals(0, cache.getEntryCount());
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.gedcomx.rs.client.StubServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PooledHttpTransportTest {
+
+  private StubServer server;
+  private PooledHttpTransport transport;
+  private URI base;
+  private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger maxActive = new AtomicInteger();
+  private volatile long delay;
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = StubServer.start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        int now = active.incrementAndGet();
+        synchronized (maxActive) {
+          maxActive.set(Math.max(maxActive.get(), now));
+        }
+        try {
+          if (delay > 0) {
+            Thread.sleep(delay);
+          }
+          byte[] body = StubServer.readFully(exchange.getRequestBody());
+          StubServer.respond(exchange, 200, "text/plain", (exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " " + new String(body, "UTF-8")).trim());
+        }
+        catch (InterruptedException e) {
+          exchange.close();
+        }
+        finally {
+          active.decrementAndGet();
+        }
+      }
+    });
+    this.base = this.server.getBase();
+    this.transport = new PooledHttpTransport(10, 2);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    this.transport.close();
+    this.server.stop();
+  }
+
+  @Test
+  public void testConnectionsAreReused() {
+    Client client = new Client(this.transport.createClientHandler());
+    for (int i = 0; i < 10; i++) {
+      assertEquals("GET /persons/" + i, client.resource(this.base.resolve("/persons/" + i)).get(String.class));
+    }
+    assertEquals(1, this.clientPorts.size());
+    assertEquals(0, this.transport.getTotalStats().getLeased());
+    assertEquals(1, this.transport.getStats(this.base).getAvailable());
+  }
+
+  @Test
+  public void testClientsShareThePool() {
+    Client client1 = new Client(this.transport.createClientHandler());
+    Client client2 = new Client(this.transport.createClientHandler());
+    client1.resource(this.base.resolve("/one")).get(String.class);
+    client2.resource(this.base.resolve("/two")).get(String.class);
+    assertEquals(1, this.clientPorts.size());
+  }
+
+  @Test
+  public void testMaxConnectionsPerRoute() throws Exception {
+    this.delay = 100;
+    final Client client = new Client(this.transport.createClientHandler());
+    ExecutorService callers = Executors.newFixedThreadPool(6);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < 6; i++) {
+        final int n = i;
+        results.add(callers.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            return client.resource(base.resolve("/persons/" + n)).get(String.class);
+          }
+        }));
+      }
+      for (int i = 0; i < 6; i++) {
+        assertEquals("GET /persons/" + i, results.get(i).get());
+      }
+    }
+    finally {
+      callers.shutdownNow();
+    }
+    assertEquals(2, this.maxActive.get());
+    assertEquals(2, this.clientPorts.size());
+    assertEquals(2, this.transport.getStats(this.base).getAvailable());
+  }
+
+  @Test
+  public void testIdleConnectionsAreEvicted() throws Exception {
+    this.transport.setIdleTimeout(100);
+    Client client = new Client(this.transport.createClientHandler());
+    client.resource(this.base.resolve("/persons/1")).get(String.class);
+    assertEquals(1, this.transport.getTotalStats().getAvailable());
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (this.transport.getTotalStats().getAvailable() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertEquals(0, this.transport.getTotalStats().getAvailable());
+
+    //a new connection is opened on the next request.
+    client.resource(this.base.resolve("/persons/2")).get(String.class);
+    assertEquals(2, this.clientPorts.size());
+  }
+
+  @Test
+  public void testRequestEntity() {
+    Client client = new Client(this.transport.createClientHandler());
+    ClientResponse response = client.resource(this.base.resolve("/persons")).type("text/plain").post(ClientResponse.class, "hello");
+    assertEquals(200, response.getStatus());
+    assertEquals("text/plain", response.getHeaders().getFirst("Content-Type"));
+    assertEquals("POST /persons hello", response.getEntity(String.class));
+  }
+
+  @Test
+  public void testReadTimeout() {
+    this.delay = 2000;
+    this.transport.setReadTimeout(100);
+    Client client = new Client(this.transport.createClientHandler());
+    try {
+      client.resource(this.base.resolve("/slow")).get(String.class);
+      fail();
+    }
+    catch (ClientHandlerException e) {
+      assertTrue(e.getCause() instanceof SocketTimeoutException);
+    }
+    assertEquals(0, this.transport.getTotalStats().getLeased());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testClosed() throws IOException {
+    this.transport.close();
+    this.transport.createClientHandler();
+  }
+}
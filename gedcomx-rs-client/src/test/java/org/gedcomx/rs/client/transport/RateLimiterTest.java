@@ -0,0 +1,279 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.transport;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.gedcomx.Gedcomx;
+import org.gedcomx.conclusion.Person;
+import org.gedcomx.rs.client.StubServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+  private StubServer server;
+  private URI base;
+  private final AtomicInteger served = new AtomicInteger();
+  private final AtomicInteger throttle = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger maxActive = new AtomicInteger();
+  private volatile String retryAfter;
+  private volatile long delay;
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = StubServer.start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        served.incrementAndGet();
+        int now = active.incrementAndGet();
+        synchronized (maxActive) {
+          maxActive.set(Math.max(maxActive.get(), now));
+        }
+        try {
+          if (delay > 0) {
+            Thread.sleep(delay);
+          }
+        }
+        catch (InterruptedException e) {
+          exchange.close();
+          return;
+        }
+        finally {
+          //before responding, so the client can't get its next request in first.
+          active.decrementAndGet();
+        }
+
+        exchange.getRequestBody().close();
+        if (throttle.getAndDecrement() > 0) {
+          if (retryAfter != null) {
+            exchange.getResponseHeaders().add("Retry-After", retryAfter);
+          }
+          StubServer.respond(exchange, 429, null, null);
+          return;
+        }
+        StubServer.respond(exchange, 200, "text/plain", "ok");
+      }
+    });
+    this.base = this.server.resolve("/persons");
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  private Client client(RateLimiter limiter) {
+    Client client = new Client();
+    client.addFilter(limiter.createFilter());
+    return client;
+  }
+
+  @Test
+  public void testRateIsLimited() {
+    RateLimiter limiter = new RateLimiter(10, 1, 4);
+    Client client = client(limiter);
+    long start = System.nanoTime();
+    for (int i = 0; i < 6; i++) {
+      assertEquals("ok", client.resource(this.base).get(String.class));
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("took " + elapsed + "ms", elapsed >= 450);
+    assertEquals(6, limiter.getRequestCount());
+    assertTrue(limiter.getQueueTime(TimeUnit.MILLISECONDS) >= 300);
+    assertTrue(limiter.getRequestTime(TimeUnit.NANOSECONDS) > 0);
+  }
+
+  @Test
+  public void testConcurrencyIsLimited() throws Exception {
+    this.delay = 100;
+    RateLimiter limiter = new RateLimiter(Double.POSITIVE_INFINITY, 1, 2);
+    final Client client = client(limiter);
+    ExecutorService callers = Executors.newFixedThreadPool(6);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < 6; i++) {
+        results.add(callers.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            return client.resource(base).get(String.class);
+          }
+        }));
+      }
+      for (Future<String> result : results) {
+        assertEquals("ok", result.get());
+      }
+    }
+    finally {
+      callers.shutdownNow();
+    }
+    assertEquals(2, this.maxActive.get());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testRetryAfter() {
+    this.throttle.set(1);
+    this.retryAfter = "1";
+    RateLimiter limiter = new RateLimiter(100);
+    Client client = client(limiter);
+    long start = System.nanoTime();
+    ClientResponse response = client.resource(this.base).get(ClientResponse.class);
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertEquals(200, response.getStatus());
+    assertTrue("took " + elapsed + "ms", elapsed >= 950);
+    assertEquals(2, this.served.get());
+    assertEquals(1, limiter.getThrottledCount());
+    assertEquals(1, limiter.getRetryCount());
+  }
+
+  @Test
+  public void testBackoffWithoutRetryAfter() {
+    this.throttle.set(2);
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setBackoff(50);
+    Client client = client(limiter);
+    long start = System.nanoTime();
+    assertEquals(200, client.resource(this.base).get(ClientResponse.class).getStatus());
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    //50ms, then 100ms.
+    assertTrue("took " + elapsed + "ms", elapsed >= 140);
+    assertEquals(2, limiter.getRetryCount());
+  }
+
+  @Test
+  public void testPostIsNotRetried() {
+    this.throttle.set(1);
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setBackoff(10);
+    Client client = client(limiter);
+    assertEquals(429, client.resource(this.base).post(ClientResponse.class, "hello").getStatus());
+    assertEquals(1, this.served.get());
+    assertEquals(0, limiter.getRetryCount());
+  }
+
+  @Test
+  public void testStreamedEntityIsNotRetried() {
+    this.throttle.set(1);
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setBackoff(10);
+    Client client = client(limiter);
+    InputStream entity = new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8));
+    assertEquals(429, client.resource(this.base).type("text/plain").put(ClientResponse.class, entity).getStatus());
+    assertEquals(1, this.served.get());
+    assertEquals(0, limiter.getRetryCount());
+
+    this.throttle.set(1);
+    assertEquals(200, client.resource(this.base).type("text/plain").put(ClientResponse.class, "hello").getStatus());
+    assertEquals(3, this.served.get());
+    assertEquals(1, limiter.getRetryCount());
+  }
+
+  @Test
+  public void testEntityObjectIsRetried() {
+    this.throttle.set(1);
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setBackoff(10);
+    Client client = client(limiter);
+    Gedcomx entity = new Gedcomx().person(new Person().id("p1"));
+    assertEquals(200, client.resource(this.base).type(MediaType.APPLICATION_XML_TYPE).put(ClientResponse.class, entity).getStatus());
+    assertEquals(2, this.served.get());
+    assertEquals(1, limiter.getRetryCount());
+  }
+
+  @Test
+  public void testFailureLeavesConcurrencyLimit() {
+    this.throttle.set(1);
+    RateLimiter limiter = new RateLimiter(1000, 10, 8);
+    limiter.setMaxRetries(0);
+    Client client = client(limiter);
+    assertEquals(429, client.resource(this.base).get(ClientResponse.class).getStatus());
+    assertEquals(4, limiter.getConcurrencyLimit());
+
+    this.server.stop();
+    for (int i = 0; i < 20; i++) {
+      try {
+        client.resource(this.base).get(String.class);
+        fail();
+      }
+      catch (ClientHandlerException e) {
+        //fall through.
+      }
+    }
+    assertEquals(4, limiter.getConcurrencyLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testRetriesAreBounded() {
+    this.throttle.set(10);
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setBackoff(10);
+    limiter.setMaxRetries(2);
+    Client client = client(limiter);
+    assertEquals(429, client.resource(this.base).get(ClientResponse.class).getStatus());
+    assertEquals(3, this.served.get());
+  }
+
+  @Test
+  public void testRetryAfterTooLong() {
+    this.throttle.set(1);
+    this.retryAfter = "3600";
+    RateLimiter limiter = new RateLimiter(100);
+    limiter.setMaxRetryDelay(10);
+    Client client = client(limiter);
+    assertEquals(429, client.resource(this.base).get(ClientResponse.class).getStatus());
+    assertEquals(1, this.served.get());
+  }
+
+  @Test
+  public void testConcurrencyAdapts() {
+    this.throttle.set(2);
+    RateLimiter limiter = new RateLimiter(1000, 10, 8);
+    limiter.setBackoff(1);
+    Client client = client(limiter);
+    client.resource(this.base).get(String.class);
+    assertEquals(2, limiter.getConcurrencyLimit());
+
+    for (int i = 0; i < 20; i++) {
+      client.resource(this.base).get(String.class);
+    }
+    assertTrue(limiter.getConcurrencyLimit() > 2);
+    assertTrue(limiter.getConcurrencyLimit() <= 8);
+  }
+}
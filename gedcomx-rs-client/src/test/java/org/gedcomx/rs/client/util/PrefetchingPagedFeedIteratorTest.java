@@ -0,0 +1,219 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rs.client.util;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.gedcomx.atom.Entry;
+import org.gedcomx.atom.Feed;
+import org.gedcomx.common.URI;
+import org.gedcomx.rs.client.StubServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PrefetchingPagedFeedIteratorTest {
+
+  private static final int PAGES = 10;
+
+  private StubServer server;
+  private String base;
+  private final AtomicInteger served = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = StubServer.start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        int page = Integer.parseInt(exchange.getRequestURI().getPath().substring("/feed/".length()));
+        served.incrementAndGet();
+        if (page > PAGES) {
+          StubServer.respond(exchange, 500, null, null);
+          return;
+        }
+
+        //first line is the next link, the rest are entry ids.
+        StringBuilder body = new StringBuilder(page < PAGES ? base + (page + 1) : "-");
+        for (int i = 0; i < 3; i++) {
+          body.append('\n').append(page).append('.').append(i);
+        }
+        StubServer.respond(exchange, 200, "text/plain", body.toString());
+      }
+    });
+    this.base = this.server.resolve("/feed/").toString();
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  private PagedFeedIterator pages(String first) {
+    DefaultClientConfig config = new DefaultClientConfig();
+    config.getSingletons().add(new TextFeedReader());
+    return PagedFeedIterator.fromUri(URI.create(this.base + first)).withClient(Client.create(config));
+  }
+
+  @Test
+  public void testAllPagesInOrder() {
+    PrefetchingPagedFeedIterator it = pages("1").prefetch(2);
+    try {
+      int page = 0;
+      while (it.hasNext()) {
+        Feed feed = it.next();
+        page++;
+        assertEquals(page + ".0", feed.getEntries().get(0).getId().toString());
+      }
+      assertEquals(PAGES, page);
+      assertFalse(it.hasNext());
+    }
+    finally {
+      it.close();
+    }
+  }
+
+  @Test
+  public void testEntries() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Stream<Entry> entries = pages("1").prefetch(3, executor).entries()) {
+      List<String> ids = entries.map(entry -> entry.getId().toString()).collect(Collectors.toList());
+      assertEquals(PAGES * 3, ids.size());
+      assertEquals("1.0", ids.get(0));
+      assertEquals(PAGES + ".2", ids.get(ids.size() - 1));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testBufferIsBounded() throws Exception {
+    PrefetchingPagedFeedIterator it = pages("1").prefetch(2);
+    try {
+      assertTrue(it.hasNext());
+      Thread.sleep(300);
+      assertEquals(2, this.served.get());
+
+      //once the caller has the first page, the third is fetched.
+      it.next();
+      Thread.sleep(300);
+      assertEquals(3, this.served.get());
+    }
+    finally {
+      it.close();
+    }
+    Thread.sleep(100);
+    assertEquals(3, this.served.get());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testFailureIsRethrown() {
+    PrefetchingPagedFeedIterator it = pages(String.valueOf(PAGES)).prefetch(1);
+    try {
+      assertTrue(it.hasNext());
+      it.next();
+      assertFalse(it.hasNext());
+    }
+    finally {
+      it.close();
+    }
+
+    PrefetchingPagedFeedIterator failing = pages(String.valueOf(PAGES + 1)).prefetch(1);
+    try {
+      failing.hasNext();
+      fail();
+    }
+    catch (IllegalStateException e) {
+      //fall through.
+    }
+    finally {
+      failing.close();
+    }
+    assertFalse(failing.hasNext());
+  }
+
+  @Test
+  public void testCloseReleasesWaitingCaller() throws Exception {
+    //the executor never runs the producer, so the page never arrives.
+    List<Runnable> queued = new ArrayList<Runnable>();
+    PrefetchingPagedFeedIterator it = pages("1").prefetch(1, queued::add);
+    AtomicReference<Boolean> hasNext = new AtomicReference<Boolean>();
+    Thread caller = new Thread(() -> hasNext.set(it.hasNext()));
+    caller.start();
+    Thread.sleep(100);
+    assertTrue(caller.isAlive());
+
+    it.close();
+    caller.join(5000);
+    assertFalse(caller.isAlive());
+    assertEquals(Boolean.FALSE, hasNext.get());
+    assertFalse(it.hasNext());
+    assertEquals(1, queued.size());
+  }
+
+  @Consumes("text/plain")
+  public static class TextFeedReader implements MessageBodyReader<Feed> {
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+      return Feed.class.equals(type);
+    }
+
+    @Override
+    public Feed readFrom(Class<Feed> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(entityStream, "UTF-8"));
+      Feed feed = new Feed();
+      String next = reader.readLine();
+      if (!"-".equals(next)) {
+        feed.addLink("next", URI.create(next));
+      }
+      List<Entry> entries = new ArrayList<Entry>();
+      String id;
+      while ((id = reader.readLine()) != null) {
+        Entry entry = new Entry();
+        entry.setId(URI.create(id));
+        entries.add(entry);
+      }
+      feed.setEntries(entries);
+      return feed;
+    }
+  }
+}
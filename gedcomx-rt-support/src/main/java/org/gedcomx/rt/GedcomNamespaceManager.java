@@ -32,6 +32,8 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A nice namespace prefix mapper that can be used to make XML and JSON output as pretty as it can be.
@@ -43,13 +45,14 @@ public class GedcomNamespaceManager extends NamespacePrefixMapper {
   private final String defaultns;
   private final Map<String, String> ns2prefix;
 
-  private static boolean INITIALIZED = false;
+  private static volatile boolean INITIALIZED = false;
   private static final Map<String, String> KNOWN_PREFIXES = new HashMap<String, String>();
   private static final Map<String, String> RUNTIME_VERSIONS = new HashMap<String, String>();
   private static final Map<String, Class<?>> WRAPPED_JSON_TYPES_BY_NAME = new HashMap<String, Class<?>>();
   private static final Map<QName, String> QNAME_WRAPPER_JSON_NAMES = new HashMap<QName, String>();
-  private static final Map<String, Class<?>> KNOWN_JSON_TYPES_BY_NAME = new HashMap<String, Class<?>>();
-  private static final Map<String, Class<?>> KNOWN_JSON_TYPES_BY_TYPE_ID = new HashMap<String, Class<?>>();
+  private static final Map<String, Class<?>> KNOWN_JSON_TYPES_BY_NAME = new ConcurrentHashMap<String, Class<?>>();
+  private static final Map<String, Class<?>> KNOWN_JSON_TYPES_BY_TYPE_ID = new ConcurrentHashMap<String, Class<?>>();
+  private static final AtomicInteger KNOWN_JSON_TYPES_VERSION = new AtomicInteger();
 
   public GedcomNamespaceManager(Class<?> rootClass) {
     this(getDefaultNamespace(rootClass));
@@ -203,7 +206,7 @@ public class GedcomNamespaceManager extends NamespacePrefixMapper {
    * @return The json wrapper name, or null if none.
    */
   public static String getJsonNameForWrapperName(QName wrapperName) {
-    init(Thread.currentThread().getContextClassLoader());
+    getKnownPrefixes();
     return QNAME_WRAPPER_JSON_NAMES.get(wrapperName);
   }
 
@@ -214,7 +217,7 @@ public class GedcomNamespaceManager extends NamespacePrefixMapper {
    * @return The wrapper qname.
    */
   public static QName findWrapperNameForJsonName(String jsonName) {
-    init(Thread.currentThread().getContextClassLoader());
+    getKnownPrefixes();
     for (Map.Entry<QName, String> entry : QNAME_WRAPPER_JSON_NAMES.entrySet()) {
       if (entry.getValue().equals(jsonName)) {
         return entry.getKey();
@@ -231,7 +234,7 @@ public class GedcomNamespaceManager extends NamespacePrefixMapper {
    * @return The wrapped type.
    */
   public static Class<?> getWrappedTypeForJsonName(String jsonName) {
-    init(Thread.currentThread().getContextClassLoader());
+    getKnownPrefixes();
     return WRAPPED_JSON_TYPES_BY_NAME.get(jsonName);
   }
 
@@ -242,12 +245,22 @@ public class GedcomNamespaceManager extends NamespacePrefixMapper {
    */
   public static void registerKnownJsonType(Class<?> type) {
     String jsonName = getJsonName(type);
-    if (jsonName != null) {
-      KNOWN_JSON_TYPES_BY_NAME.put(jsonName, type);
+    if (jsonName != null && KNOWN_JSON_TYPES_BY_NAME.put(jsonName, type) != type) {
+      KNOWN_JSON_TYPES_VERSION.incrementAndGet();
     }
     KNOWN_JSON_TYPES_BY_TYPE_ID.put(getTypeIdName(type), type);
   }
 
+  /**
+   * A number that changes whenever a JSON name is registered to a different type, so that anything resolved from
+   * the known JSON types can tell when it needs to be resolved again.
+   *
+   * @return The version of the known JSON types.
+   */
+  public static int getKnownJsonTypesVersion() {
+    return KNOWN_JSON_TYPES_VERSION.get();
+  }
+
   /**
    * Get the JSON name for the specified type.
    *
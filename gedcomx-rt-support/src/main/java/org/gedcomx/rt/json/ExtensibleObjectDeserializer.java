@@ -21,13 +21,10 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.deser.BeanDeserializer;
-import org.gedcomx.rt.GedcomNamespaceManager;
 import org.gedcomx.rt.SupportsExtensionAttributes;
 import org.gedcomx.rt.SupportsExtensionElements;
 
-import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBElement;
-import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,8 +36,15 @@ import java.util.List;
  */
 public class ExtensibleObjectDeserializer extends BeanDeserializer {
 
+  private final ExtensionPropertyResolver resolver;
+
   public ExtensibleObjectDeserializer(BeanDeserializer src) {
+    this(src, new ExtensionPropertyResolver());
+  }
+
+  ExtensibleObjectDeserializer(BeanDeserializer src, ExtensionPropertyResolver resolver) {
     super(src);
+    this.resolver = resolver;
   }
 
   @Override
@@ -50,92 +54,39 @@ public class ExtensibleObjectDeserializer extends BeanDeserializer {
       return;
     }
 
+    ExtensionPropertyResolver.ExtensionProperty property = this.resolver.resolve(propName);
     if (beanOrClass instanceof SupportsExtensionElements) {
       SupportsExtensionElements target = (SupportsExtensionElements) beanOrClass;
-      //first check if it's a known json type
-      Class<?> type = GedcomNamespaceManager.getKnownJsonType(propName);
-      if (type != null) {
-        //it's a known json type.
-        if (HasJsonKey.class.isAssignableFrom(type)) {
-          for (Object ext : readKeyedMapOf(type, jp, ctxt)) {
+      switch (property.getStrategy()) {
+        case KEYED:
+          for (Object ext : readKeyedMapOf(property.getType(), jp, ctxt)) {
             target.addExtensionElement(ext);
           }
-        }
-        else {
+          return;
+        case LIST:
           //otherwise just deserialize as a list and go.
-          for (Object ext : readArrayOf(type, jp, ctxt)) {
+          for (Object ext : readArrayOf(property.getType(), jp, ctxt)) {
             target.addExtensionElement(ext);
           }
-        }
-        return;
-      }
-      else {
-        QName wrapper = getWrapperName(propName);
-        type = GedcomNamespaceManager.getWrappedTypeForJsonName(propName);
-        if (type != null) {
-          List<?> objects = readArrayOf(type, jp, ctxt);
-          for (Object ext : objects) {
-            target.addExtensionElement(new JAXBElement(wrapper, type, ext));
+          return;
+        case WRAPPED:
+          for (Object ext : readArrayOf(property.getType(), jp, ctxt)) {
+            target.addExtensionElement(new JAXBElement(property.getName(), property.getType(), ext));
           }
           return;
-        }
+        default:
+          break;
       }
     }
 
     if (beanOrClass instanceof SupportsExtensionAttributes && jp.getCurrentToken().isScalarValue()) {
-      ((SupportsExtensionAttributes) beanOrClass).addExtensionAttribute(getWrapperName(propName), jp.getText());
+      ((SupportsExtensionAttributes) beanOrClass).addExtensionAttribute(property.getName(), jp.getText());
       return;
     }
 
     jp.skipChildren();
   }
 
-  private QName getWrapperName(String propName) {
-    QName qname = GedcomNamespaceManager.findWrapperNameForJsonName(propName);
-
-    if (qname == null && propName.indexOf(':') >= 0) {
-      //if the propname has a ':', we'll treat it as a qname, because all qnames I know have a ':' in them.
-      List<String> knownNS = new ArrayList<String>(GedcomNamespaceManager.getKnownPrefixes().keySet());
-      knownNS.add(XMLConstants.XML_NS_URI + "#");
-      for (String ns : knownNS) {
-        if (propName.startsWith(ns)) {
-          String nsURI = propName.substring(0, ns.length());
-          String localPart = propName.substring(ns.length());
-          if (!"".equals(localPart)) {
-            qname = new QName(nsURI, localPart);
-          }
-          break;
-        }
-      }
-
-      if (qname == null && propName.indexOf('#') > 0) {
-        //well, it wasn't a known namespace; let's try separating ns from local part with a #
-        int hashIndex = propName.indexOf('#');
-        String nsURI = propName.substring(0, hashIndex);
-        String localPart = propName.substring(hashIndex + 1);
-        if (!"".equals(localPart)) {
-          qname = new QName(nsURI, localPart);
-        }
-      }
-
-      if (qname == null && propName.lastIndexOf('/') > 0) {
-        //still haven't found it; let's try separating ns from local part with the last '/'
-        int hashIndex = propName.lastIndexOf('/');
-        String nsURI = propName.substring(0, hashIndex);
-        String localPart = propName.substring(hashIndex + 1);
-        if (!"".equals(localPart)) {
-          qname = new QName(nsURI, localPart);
-        }
-      }
-    }
-
-    if (qname == null) {
-      qname = new QName("", propName);
-    }
-
-    return qname;
-  }
-
   private List<?> readArrayOf(Class<?> type, JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
     ArrayList<Object> objects = new ArrayList<Object>();
 
@@ -0,0 +1,185 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rt.json;
+
+import org.gedcomx.rt.GedcomNamespaceManager;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the names of unknown JSON properties to how they're read as extensions, remembering the answer so that
+ * a property name that shows up again resolves with a single lookup. One resolver is shared by the deserializers of
+ * an object mapper.
+ */
+class ExtensionPropertyResolver {
+
+  /**
+   * How many property names are remembered. Names beyond this are still resolved, just not remembered, so that a
+   * payload with many distinct names can't grow the cache without bound.
+   */
+  static final int MAX_CACHED_NAMES = 4096;
+
+  private final ConcurrentMap<String, ExtensionProperty> properties = new ConcurrentHashMap<String, ExtensionProperty>();
+
+  /**
+   * Resolve the given JSON property name.
+   *
+   * @param propName The property name.
+   * @return How the property is to be read.
+   */
+  ExtensionProperty resolve(String propName) {
+    ExtensionProperty property = this.properties.get(propName);
+    int version = GedcomNamespaceManager.getKnownJsonTypesVersion();
+    if (property == null || property.version != version) {
+      property = newProperty(propName, version);
+      if (this.properties.size() < MAX_CACHED_NAMES || this.properties.containsKey(propName)) {
+        this.properties.put(propName, property);
+      }
+    }
+    return property;
+  }
+
+  private static ExtensionProperty newProperty(String propName, int version) {
+    QName name = getWrapperName(propName);
+    Class<?> type = GedcomNamespaceManager.getKnownJsonType(propName);
+    if (type != null) {
+      return new ExtensionProperty(HasJsonKey.class.isAssignableFrom(type) ? Strategy.KEYED : Strategy.LIST, type, name, version);
+    }
+
+    type = GedcomNamespaceManager.getWrappedTypeForJsonName(propName);
+    if (type != null) {
+      return new ExtensionProperty(Strategy.WRAPPED, type, name, version);
+    }
+
+    return new ExtensionProperty(Strategy.NONE, null, name, version);
+  }
+
+  private static QName getWrapperName(String propName) {
+    QName qname = GedcomNamespaceManager.findWrapperNameForJsonName(propName);
+
+    if (qname == null && propName.indexOf(':') >= 0) {
+      //if the propname has a ':', we'll treat it as a qname, because all qnames I know have a ':' in them.
+      List<String> knownNS = new ArrayList<String>(GedcomNamespaceManager.getKnownPrefixes().keySet());
+      knownNS.add(XMLConstants.XML_NS_URI + "#");
+      for (String ns : knownNS) {
+        if (propName.startsWith(ns)) {
+          String nsURI = propName.substring(0, ns.length());
+          String localPart = propName.substring(ns.length());
+          if (!"".equals(localPart)) {
+            qname = new QName(nsURI, localPart);
+          }
+          break;
+        }
+      }
+
+      if (qname == null && propName.indexOf('#') > 0) {
+        //well, it wasn't a known namespace; let's try separating ns from local part with a #
+        int hashIndex = propName.indexOf('#');
+        String nsURI = propName.substring(0, hashIndex);
+        String localPart = propName.substring(hashIndex + 1);
+        if (!"".equals(localPart)) {
+          qname = new QName(nsURI, localPart);
+        }
+      }
+
+      if (qname == null && propName.lastIndexOf('/') > 0) {
+        //still haven't found it; let's try separating ns from local part with the last '/'
+        int hashIndex = propName.lastIndexOf('/');
+        String nsURI = propName.substring(0, hashIndex);
+        String localPart = propName.substring(hashIndex + 1);
+        if (!"".equals(localPart)) {
+          qname = new QName(nsURI, localPart);
+        }
+      }
+    }
+
+    if (qname == null) {
+      qname = new QName("", propName);
+    }
+
+    return qname;
+  }
+
+  /**
+   * How the value of an extension property is read.
+   */
+  enum Strategy {
+
+    /**
+     * A known JSON type that is keyed, read from a map of key to value.
+     */
+    KEYED,
+
+    /**
+     * A known JSON type, read from an array (or a single value).
+     */
+    LIST,
+
+    /**
+     * A type that is wrapped in a JAXB element, read from an array (or a single value).
+     */
+    WRAPPED,
+
+    /**
+     * Not a known type; only scalar values are read, as extension attributes.
+     */
+    NONE
+  }
+
+  /**
+   * A resolved extension property.
+   */
+  static final class ExtensionProperty {
+
+    private final Strategy strategy;
+    private final Class<?> type;
+    private final QName name;
+    private final int version;
+
+    ExtensionProperty(Strategy strategy, Class<?> type, QName name, int version) {
+      this.strategy = strategy;
+      this.type = type;
+      this.name = name;
+      this.version = version;
+    }
+
+    /**
+     * @return How the value is read.
+     */
+    Strategy getStrategy() {
+      return strategy;
+    }
+
+    /**
+     * @return The type the value is read as, or null if it's not a known type.
+     */
+    Class<?> getType() {
+      return type;
+    }
+
+    /**
+     * @return The qualified name of the wrapper element or extension attribute.
+     */
+    QName getName() {
+      return name;
+    }
+  }
+}
@@ -29,9 +29,12 @@ import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
  */
 public class GedcomBeanDeserializerModifier extends BeanDeserializerModifier {
 
+  //shared by all the deserializers of a mapper, so each extension property name is only resolved once.
+  private final ExtensionPropertyResolver resolver = new ExtensionPropertyResolver();
+
   @Override
   public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
-    return deserializer instanceof BeanDeserializer ? new ExtensibleObjectDeserializer((BeanDeserializer) deserializer) : deserializer;
+    return deserializer instanceof BeanDeserializer ? new ExtensibleObjectDeserializer((BeanDeserializer) deserializer, this.resolver) : deserializer;
   }
 
 }
@@ -0,0 +1,58 @@
+/**
+ * Copyright Intellectual Reserve, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gedcomx.rt.json;
+
+import org.gedcomx.rt.GedcomNamespaceManager;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ExtensionPropertyResolverTest {
+
+  @Test
+  public void testResolve() {
+    ExtensionPropertyResolver resolver = new ExtensionPropertyResolver();
+    ExtensionPropertyResolver.ExtensionProperty property = resolver.resolve("http://example.org/unknown#custom");
+    assertEquals(ExtensionPropertyResolver.Strategy.NONE, property.getStrategy());
+    assertNull(property.getType());
+    assertEquals(new QName("http://example.org/unknown", "custom"), property.getName());
+    assertSame(property, resolver.resolve("http://example.org/unknown#custom"));
+    assertEquals(new QName("", "plain"), resolver.resolve("plain").getName());
+  }
+
+  @Test
+  public void testResolveAfterRegistration() {
+    ExtensionPropertyResolver resolver = new ExtensionPropertyResolver();
+    assertEquals(ExtensionPropertyResolver.Strategy.NONE, resolver.resolve("http://example.org/resolver#thing").getStrategy());
+
+    GedcomNamespaceManager.registerKnownJsonType(Thing.class);
+    ExtensionPropertyResolver.ExtensionProperty property = resolver.resolve("http://example.org/resolver#thing");
+    assertEquals(ExtensionPropertyResolver.Strategy.LIST, property.getStrategy());
+    assertEquals(Thing.class, property.getType());
+
+    //registering the same type again doesn't invalidate anything.
+    GedcomNamespaceManager.registerKnownJsonType(Thing.class);
+    assertSame(property, resolver.resolve("http://example.org/resolver#thing"));
+  }
+
+  @JsonElementWrapper ( name = "thing", namespace = "http://example.org/resolver#" )
+  public static class Thing {
+  }
+}